@@ -0,0 +1,74 @@
+package com.minicompass.demo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Génère des réponses { "documents": [...] } réalistes pour les benchmarks :
+ * _id ObjectId, chaînes, entiers, décimaux, booléens, sous-document et tableau.
+ *
+ * La graine est fixe : les mêmes octets sont produits à chaque exécution.
+ */
+final class BenchmarkPayloads {
+
+    private static final String[] FIRST_NAMES = {
+            "Alice", "Bob", "Chloé", "David", "Émile", "Fatima", "Gabriel", "Hugo", "Inès", "Jade"
+    };
+    private static final String[] PROGRAMS = {
+            "Tech Info", "Sciences nature", "Génie civil", "Soins infirmiers", "Arts visuels"
+    };
+    private static final String[] CITIES = {
+            "Montréal", "Québec", "Sherbrooke", "Gatineau", "Trois-Rivières"
+    };
+
+    private BenchmarkPayloads() {
+    }
+
+    /** Corps JSON UTF-8 d'une réponse GET /collections/{name}/documents. */
+    static byte[] documentsResponse(int documentCount) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(documentCount * 260 + 32);
+        sb.append("{\"documents\":[");
+        for (int i = 0; i < documentCount; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendDocument(sb, i, random);
+        }
+        sb.append("]}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Document typique saisi dans l'interface (insertDocument / replaceDocument). */
+    static Map<String, Object> documentFields() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("name", "Alice Tremblay");
+        fields.put("program", "Tech Info");
+        fields.put("age", 19);
+        fields.put("email", "alice.tremblay@example.org");
+        fields.put("codePermanent", "TREA12345678");
+        fields.put("score", 87.5);
+        fields.put("active", true);
+        fields.put("city", "Montréal");
+        return fields;
+    }
+
+    private static void appendDocument(StringBuilder sb, int i, Random random) {
+        String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        sb.append("{\"_id\":\"").append(String.format(Locale.ROOT, "%024x", 0x65a000000000L + i)).append('"');
+        sb.append(",\"name\":\"").append(name).append(' ').append(i).append('"');
+        sb.append(",\"program\":\"").append(PROGRAMS[random.nextInt(PROGRAMS.length)]).append('"');
+        sb.append(",\"age\":").append(17 + random.nextInt(30));
+        sb.append(",\"email\":\"").append(name.toLowerCase(Locale.ROOT)).append(i).append("@example.org\"");
+        sb.append(",\"score\":").append(String.format(Locale.ROOT, "%.2f", random.nextDouble() * 100));
+        sb.append(",\"active\":").append(random.nextBoolean());
+        sb.append(",\"address\":{\"city\":\"").append(CITIES[random.nextInt(CITIES.length)])
+                .append("\",\"postalCode\":\"H2X ").append(random.nextInt(10)).append("Y").append(random.nextInt(10)).append("\"}");
+        sb.append(",\"tags\":[\"cohorte-").append(2020 + random.nextInt(6)).append("\",\"groupe-")
+                .append(random.nextInt(20)).append("\"]");
+        sb.append('}');
+    }
+}
@@ -0,0 +1,80 @@
+package com.minicompass.demo;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.minicompass.demo.ApiClient.DocumentSet;
+import com.minicompass.demo.ClientMetrics.Endpoint;
+import com.minicompass.demo.ClientMetrics.EndpointStats;
+
+/**
+ * Aller-retour fetchDocuments avec et sans compression gzip, contre StubApiServer
+ * (compression à chaque requête, comme le serveur Node).
+ *
+ * La latence est mesurée par JMH ; les octets reçus par requête (sur le réseau,
+ * donc compressés) sont affichés à la fin de chaque essai.
+ *
+ * bandwidth simule le lien : 0 = boucle locale (la compression ne peut que coûter),
+ * 12500000 ≈ 100 Mbit/s, 1250000 ≈ 10 Mbit/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class CompressionBenchmark {
+
+    @Param({ "50", "5000", "50000" })
+    public int documentCount;
+
+    @Param({ "false", "true" })
+    public boolean compression;
+
+    /** Octets par seconde, 0 : illimité. */
+    @Param({ "0", "12500000" })
+    public long bandwidth;
+
+    private StubApiServer server;
+    private ApiClient client;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new StubApiServer();
+        server.prepare(documentCount);
+        server.setBandwidth(bandwidth);
+
+        client = ApiClient.builder(server.baseUrl()).compression(compression).build();
+        client.setResponseCache(null);
+        client.setRequestLogger(RequestLogger.NONE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EndpointStats stats = client.getMetrics().snapshot().get(Endpoint.DOCUMENTS);
+        if (stats.getRequests() > 0) {
+            System.out.printf("%n%d documents, compression=%b : %,d octets reçus par requête%n",
+                    documentCount, compression, stats.getBytes() / stats.getRequests());
+        }
+        server.close();
+    }
+
+    @Benchmark
+    public DocumentSet fetchDocuments() throws IOException, InterruptedException {
+        return client.fetchDocuments("bench", documentCount);
+    }
+}
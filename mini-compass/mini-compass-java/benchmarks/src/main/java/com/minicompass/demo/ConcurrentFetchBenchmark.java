@@ -0,0 +1,108 @@
+package com.minicompass.demo;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.minicompass.demo.ApiClient.DocumentSet;
+
+/**
+ * Débit de fetchDocuments avec 16 threads qui partagent un seul ApiClient,
+ * selon la version HTTP et la taille du pool de connexions.
+ *
+ * Par défaut la cible est StubApiServer. Pour mesurer le serveur Node local :
+ *
+ *   java -jar benchmarks/target/benchmarks.jar ConcurrentFetchBenchmark \
+ *        -p baseUrl=http://localhost:3000 -p database=test -p collection=users
+ *
+ * Chaque fork démarre une JVM neuve : maxPooledConnections est donc bien pris
+ * en compte (ApiClient.configureConnectionPool, avant le premier HttpClient).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms1g", "-Xmx1g" })
+@Threads(16)
+public class ConcurrentFetchBenchmark {
+
+    /** URL de l'API ; vide : StubApiServer embarqué. */
+    @Param({ "" })
+    public String baseUrl;
+
+    @Param({ "" })
+    public String database;
+
+    @Param({ "bench" })
+    public String collection;
+
+    @Param({ "50" })
+    public int documentCount;
+
+    @Param({ "HTTP_1_1", "HTTP_2" })
+    public String version;
+
+    /** 0 : pool sans limite (défaut du JDK). */
+    @Param({ "0", "4" })
+    public int maxPooledConnections;
+
+    private StubApiServer server;
+    private ExecutorService executor;
+    private ApiClient client;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String url = baseUrl;
+        if (url.isEmpty()) {
+            server = new StubApiServer();
+            server.prepare(documentCount);
+            url = server.baseUrl();
+        }
+
+        ApiClient.configureConnectionPool(maxPooledConnections, Duration.ofSeconds(30));
+        executor = Executors.newFixedThreadPool(4);
+        client = ApiClient.builder(url)
+                .version(HttpClient.Version.valueOf(version))
+                .connectTimeout(Duration.ofSeconds(2))
+                .requestTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+        client.setResponseCache(null);
+        client.setRequestLogger(RequestLogger.NONE);
+        if (!database.isEmpty()) {
+            client.setDatabaseName(database);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public DocumentSet fetchDocuments() throws IOException, InterruptedException {
+        return client.fetchDocuments(collection, documentCount);
+    }
+}
@@ -0,0 +1,60 @@
+package com.minicompass.demo;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.minicompass.demo.ApiClient.DocumentSet;
+
+/**
+ * Aller-retour complet ApiClient.fetchDocuments (requête HTTP, lecture en flux, analyse)
+ * contre un serveur local StubApiServer. Le cache de réponses et la compression
+ * sont désactivés (voir CompressionBenchmark).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class FetchRoundTripBenchmark {
+
+    @Param({ "50", "5000", "500000" })
+    public int documentCount;
+
+    private StubApiServer server;
+    private ApiClient client;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new StubApiServer();
+        server.prepare(documentCount);
+
+        client = ApiClient.builder(server.baseUrl()).compression(false).build();
+        client.setResponseCache(null);
+        client.setRequestLogger(RequestLogger.NONE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public DocumentSet fetchDocuments() throws IOException, InterruptedException {
+        return client.fetchDocuments("bench", documentCount);
+    }
+}
@@ -0,0 +1,39 @@
+package com.minicompass.demo;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sérialisation du corps des écritures (ApiClient.mapToJson) pour un document typique.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapToJsonBenchmark {
+
+    private Map<String, Object> fields;
+
+    @Setup
+    public void setup() {
+        fields = BenchmarkPayloads.documentFields();
+    }
+
+    @Benchmark
+    public String mapToJson() {
+        return ApiClient.mapToJson(fields);
+    }
+}
@@ -0,0 +1,47 @@
+package com.minicompass.demo;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.minicompass.demo.ApiClient.DocumentSet;
+
+/**
+ * Analyse d'une page de documents (ApiClient.parseDocumentsToDocumentSet),
+ * sur des réponses de 50, 5 000 et 500 000 documents déjà en mémoire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class ParsingBenchmark {
+
+    @Param({ "50", "5000", "500000" })
+    public int documentCount;
+
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        body = BenchmarkPayloads.documentsResponse(documentCount);
+    }
+
+    @Benchmark
+    public DocumentSet parseDocumentsToDocumentSet() throws IOException {
+        return ApiClient.parseDocumentsToDocumentSet(new ByteArrayInputStream(body));
+    }
+}
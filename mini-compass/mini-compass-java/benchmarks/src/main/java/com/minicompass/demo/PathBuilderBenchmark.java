@@ -0,0 +1,59 @@
+package com.minicompass.demo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction des query strings par PathBuilder (appelée à chaque requête).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathBuilderBenchmark {
+
+    private Map<String, String> params;
+
+    @Setup
+    public void setup() {
+        params = new LinkedHashMap<>();
+        params.put("db", "cegep_bd1");
+        params.put("limit", "50");
+        params.put("field", "program");
+        params.put("value", "Tech Info / Génie");
+    }
+
+    @Benchmark
+    public String buildQuery() {
+        return PathBuilder.buildQuery(params);
+    }
+
+    @Benchmark
+    public String searchQuery() {
+        return PathBuilder.searchQuery(50, "program", "Tech Info / Génie", "cegep_bd1");
+    }
+
+    @Benchmark
+    public String paginationQuery() {
+        return PathBuilder.paginationQuery(50, 5000, "cegep_bd1");
+    }
+
+    @Benchmark
+    public String documentsPathWithPagination() {
+        return PathBuilder.documentsPath("students") + PathBuilder.paginationQuery(50, 5000, "cegep_bd1");
+    }
+}
@@ -0,0 +1,138 @@
+package com.minicompass.demo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Petit serveur HTTP local (com.sun.net.httpserver) qui imite l'API Mini Compass
+ * pour mesurer un aller-retour complet sans MongoDB ni Node.
+ *
+ * GET /collections/{name}/documents?limit=N → N documents de BenchmarkPayloads
+ * (réponses pré-calculées et gardées en mémoire).
+ *
+ * Comme le serveur Node, les réponses de plus de COMPRESSION_THRESHOLD octets sont
+ * compressées en gzip (niveau le plus rapide, à chaque requête) si le client l'accepte.
+ * setBandwidth simule un lien plus lent que la boucle locale.
+ */
+final class StubApiServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<Integer, byte[]> responses = new ConcurrentHashMap<>();
+
+    static final int COMPRESSION_THRESHOLD = 1024;
+    private static final int WRITE_CHUNK = 16 * 1024;
+
+    /** Débit simulé en octets par seconde, 0 : illimité. */
+    private volatile long bytesPerSecond = 0;
+
+    StubApiServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        server.setExecutor(executor);
+        server.createContext("/collections", this::handle);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /** Limite le débit d'envoi des réponses (octets par seconde, 0 : illimité). */
+    void setBandwidth(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /** Pré-calcule la réponse pour limit = documentCount. */
+    void prepare(int documentCount) {
+        responses.computeIfAbsent(documentCount, BenchmarkPayloads::documentsResponse);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            int limit = queryInt(exchange.getRequestURI().getRawQuery(), "limit", 50);
+            byte[] body = responses.computeIfAbsent(limit, BenchmarkPayloads::documentsResponse);
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip") && body.length >= COMPRESSION_THRESHOLD) {
+                body = gzip(body);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                write(out, body);
+            }
+        }
+    }
+
+    private void write(OutputStream out, byte[] body) throws IOException {
+        long rate = bytesPerSecond;
+        if (rate <= 0) {
+            out.write(body);
+            return;
+        }
+        long start = System.nanoTime();
+        for (int off = 0; off < body.length; off += WRITE_CHUNK) {
+            int len = Math.min(WRITE_CHUNK, body.length - off);
+            out.write(body, off, len);
+            long due = start + (off + len) * 1_000_000_000L / rate;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer, WRITE_CHUNK) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        }) {
+            out.write(body);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static int queryInt(String query, String name, int defaultValue) {
+        if (query == null) {
+            return defaultValue;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                try {
+                    return Integer.parseInt(pair.substring(eq + 1));
+                } catch (NumberFormatException e) {
+                    return defaultValue;
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
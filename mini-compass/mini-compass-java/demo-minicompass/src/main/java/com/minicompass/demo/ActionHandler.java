@@ -1,8 +1,13 @@
 package com.minicompass.demo;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
+import com.minicompass.demo.ApiClient.BulkResult;
 import com.minicompass.demo.ApiClient.DocumentSet;
 
 /**
@@ -13,6 +18,7 @@ import com.minicompass.demo.ApiClient.DocumentSet;
 public class ActionHandler {
 
     private final ApiClient apiClient;
+    private final SnapshotStore snapshotStore = new SnapshotStore();
 
     public ActionHandler(ApiClient apiClient) {
         this.apiClient = apiClient;
@@ -38,6 +44,13 @@ public class ActionHandler {
         return apiClient.fetchCollections();
     }
 
+    /**
+     * Récupère la liste des collections, de façon asynchrone (annulable).
+     */
+    public CompletableFuture<String[]> handleFetchCollectionsAsync() {
+        return apiClient.async().fetchCollections();
+    }
+
     // -----------------------------------------------------------------------
     // Lecture de documents
     // -----------------------------------------------------------------------
@@ -51,6 +64,82 @@ public class ActionHandler {
         return apiClient.fetchDocuments(collectionName, 50);
     }
 
+    /**
+     * Récupère une page de documents (sans filtre), de façon asynchrone.
+     * Utilisé par le modèle de table paginé.
+     */
+    public CompletableFuture<DocumentSet> handleFetchPage(String collectionName, int skip, int limit) {
+        return apiClient.async().fetchDocuments(collectionName, limit, skip);
+    }
+
+    /**
+     * Récupère une page de documents où field = value, de façon asynchrone.
+     */
+    public CompletableFuture<DocumentSet> handleFilterPage(String collectionName, String field, String value,
+            int skip, int limit) {
+        return apiClient.async().fetchDocumentsByField(collectionName, field, value, limit, skip);
+    }
+
+    /**
+     * Récupère une page de documents (sans filtre), rendue par paquets à onChunk
+     * au fur et à mesure de la lecture. Appel bloquant.
+     * projection : champs affichés (null : documents complets).
+     */
+    public int handleStreamPage(String collectionName, Projection projection, int skip, int limit, int chunkSize,
+            Consumer<DocumentSet> onChunk) throws IOException, InterruptedException {
+        return apiClient.streamDocuments(collectionName, limit, skip, projection, chunkSize, onChunk);
+    }
+
+    /**
+     * Récupère une page de documents où field = value, rendue par paquets. Appel bloquant.
+     */
+    public int handleStreamFilterPage(String collectionName, String field, String value, Projection projection,
+            int skip, int limit, int chunkSize, Consumer<DocumentSet> onChunk) throws IOException, InterruptedException {
+        return apiClient.streamDocumentsByField(collectionName, field, value, limit, skip, projection, chunkSize, onChunk);
+    }
+
+    /**
+     * Récupère une page des documents retenus par query (filtre, tri et index appliqués
+     * par le serveur), rendue par paquets. Appel bloquant.
+     */
+    public int handleStreamQueryPage(String collectionName, DocumentQuery query, Projection projection,
+            int skip, int limit, int chunkSize, Consumer<DocumentSet> onChunk) throws IOException, InterruptedException {
+        return apiClient.streamDocuments(collectionName, query, limit, skip, projection, chunkSize, onChunk);
+    }
+
+    /**
+     * Récupère une page des documents retenus par query (null : tous), triés par _id et rendus par paquets.
+     * afterId non null : pagination par clé (documents suivant ce _id) ; sinon lecture par skip.
+     * Appel bloquant.
+     */
+    public int handleStreamKeysetPage(String collectionName, DocumentQuery query, Projection projection,
+            int skip, Object afterId, int limit, int chunkSize, Consumer<DocumentSet> onChunk)
+            throws IOException, InterruptedException {
+        if (afterId != null || skip == 0) {
+            return apiClient.streamDocumentsAfter(collectionName, query, afterId, limit, projection, chunkSize, onChunk);
+        }
+        // Page atteinte sans la précédente (saut dans la barre de défilement) : skip, dans le même ordre
+        DocumentQuery byId = DocumentQuery.where(query == null ? null : query.getFilter()).sortAscending("_id");
+        if (query != null) {
+            byId.hint(query.getHint());
+        }
+        return apiClient.streamDocuments(collectionName, byId, limit, skip, projection, chunkSize, onChunk);
+    }
+
+    /**
+     * Nombre de documents retenus par query (null : toute la collection, estimation rapide).
+     */
+    public CompletableFuture<Long> handleCountAsync(String collectionName, DocumentQuery query) {
+        return apiClient.async().countDocuments(collectionName, query);
+    }
+
+    /**
+     * Nombre de documents où field = value.
+     */
+    public CompletableFuture<Long> handleCountByFieldAsync(String collectionName, String field, String value) {
+        return apiClient.async().countDocumentsByField(collectionName, field, value);
+    }
+
     /**
      * TODO #1 : Filtrer les documents d'une collection.
      *
@@ -102,6 +191,16 @@ public class ActionHandler {
         return apiClient.replaceDocument(collectionName, id, editedDoc);
     }
 
+    /**
+     * Mise à jour partielle : seuls les champs fournis sont modifiés
+     * (utilisé quand la table n'affiche qu'une partie des champs).
+     */
+    public boolean handlePartialUpdate(String collectionName, String id, Map<String, Object> fields)
+            throws IOException, InterruptedException {
+
+        return apiClient.updateDocument(collectionName, id, fields);
+    }
+
     /**
      * TODO #4 : Supprimer un document.
      *
@@ -114,4 +213,69 @@ public class ActionHandler {
 
         return apiClient.deleteDocument(collectionName, id);
     }
+
+    /**
+     * Exporte la collection (filtrée par query, null : toute la collection) dans un fichier.
+     * Appel bloquant : à lancer hors de l'EDT ; interrompre le thread annule l'export.
+     */
+    public DocumentExporter.Progress handleExport(String collectionName, DocumentQuery query,
+            DocumentExporter.Format format, Path target, DocumentExporter.ProgressListener listener)
+            throws IOException, InterruptedException {
+
+        return new DocumentExporter(apiClient).export(collectionName, query, format, target, listener);
+    }
+
+    /**
+     * Importe un fichier NDJSON ou CSV dans la collection (voir DocumentImporter).
+     * Appel bloquant : à lancer hors de l'EDT ; interrompre le thread arrête l'import (il pourra reprendre).
+     */
+    public DocumentImporter.Progress handleImport(String collectionName, Path file, DocumentExporter.Format format,
+            boolean resume, DocumentImporter.ProgressListener listener) throws IOException, InterruptedException {
+
+        return new DocumentImporter(apiClient).importFile(collectionName, file, format, resume, listener);
+    }
+
+    /**
+     * Dernier instantané local de la collection (base courante), null s'il n'y en a pas.
+     * Ne fait aucune requête : utilisable sans serveur.
+     */
+    public SnapshotDocumentSet handleOpenSnapshot(String collectionName) throws IOException {
+        return snapshotStore.open(apiClient.getDatabaseName(), collectionName);
+    }
+
+    /**
+     * Collections de la base courante qui ont un instantané local.
+     */
+    public List<String> handleSnapshotCollections() throws IOException {
+        return snapshotStore.collections(apiClient.getDatabaseName());
+    }
+
+    /**
+     * Relit toute la collection et remplace son instantané local.
+     * Appel bloquant : à lancer hors de l'EDT ; interrompre le thread annule l'écriture.
+     */
+    public long handleWriteSnapshot(String collectionName, SnapshotStore.ProgressListener listener)
+            throws IOException, InterruptedException {
+
+        return snapshotStore.write(apiClient, collectionName, listener);
+    }
+
+    /**
+     * Suit en direct les modifications de la collection (filtrée par field = value ou par query).
+     * Non bloquant ; le listener est appelé hors de l'EDT. Fermer le ChangeFeed arrête le suivi.
+     */
+    public ChangeFeed handleWatch(String collectionName, String field, String value, DocumentQuery query,
+            Projection projection, ChangeFeed.Listener listener) {
+
+        return apiClient.watchDocuments(collectionName, field, value, query, projection, listener);
+    }
+
+    /**
+     * Supprime plusieurs documents en requêtes groupées.
+     */
+    public BulkResult handleDeleteMany(String collectionName, List<String> ids)
+            throws IOException, InterruptedException {
+
+        return apiClient.deleteDocuments(collectionName, ids);
+    }
 }
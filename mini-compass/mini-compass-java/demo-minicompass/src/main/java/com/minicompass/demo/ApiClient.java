@@ -1,16 +1,27 @@
 package com.minicompass.demo;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
+
+import com.minicompass.demo.ClientMetrics.Endpoint;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 /**
  * Client Java de base pour communiquer avec l'API Mini Compass.
@@ -25,19 +36,188 @@ import java.util.Set;
  * - DELETE /collections/{name}/documents/{id}
  * - PATCH /collections/{name}/documents/{id} (si implémenté côté API)
  *
- * Les réponses sont retournées sous forme de String (JSON brut).
+ * Les réponses courtes sont lues sous forme de String (JSON brut).
+ * Les listes de documents sont lues en flux (InputStream) et converties
+ * directement en DocumentSet par DocumentStreamParser.
+ *
+ * Configuration du transport (timeouts, version HTTP, exécuteur, pool de connexions) :
+ *
+ *   ApiClient client = ApiClient.builder("http://localhost:3000")
+ *           .connectTimeout(Duration.ofSeconds(2))
+ *           .requestTimeout(Duration.ofSeconds(10))
+ *           .build();
  */
 public class ApiClient {
 
     private final String baseUrl;
     private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final boolean compression;
+    private final ResilientSender sender;
     private String databaseName;
+    private AsyncApiClient asyncClient;
+    private ResponseCache responseCache;
+    private final SingleFlight singleFlight = new SingleFlight();
+    private int bulkChunkSize = 500;
+    private RequestLogger requestLogger = ConsoleRequestLogger.fromSystemProperties();
+    private final ClientMetrics metrics = new ClientMetrics();
 
+    /** Client avec la configuration par défaut (voir Builder). */
     public ApiClient(String baseUrl) {
+        this(new Builder(baseUrl));
+    }
+
+    private ApiClient(Builder config) {
         // Exemple : "http://localhost:3000"
-        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
-        this.httpClient = HttpClient.newHttpClient();
+        String url = config.baseUrl;
+        this.baseUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        this.httpClient = config.newHttpClient();
+        this.requestTimeout = config.requestTimeout;
+        this.compression = config.compression;
+        this.sender = new ResilientSender(httpClient, metrics, config.retryPolicy,
+                config.circuitBreaker, config.hedgePercentile);
         this.databaseName = null; 
+        // 500 réponses / 64 Mo max, valables 30 secondes
+        this.responseCache = new ResponseCache(500, 64L * 1024 * 1024, Duration.ofSeconds(30));
+    }
+
+    public static Builder builder(String baseUrl) {
+        return new Builder(baseUrl);
+    }
+
+    /**
+     * Pool de connexions HTTP/1.1 de toute la JVM (propriétés jdk.httpclient.connectionPoolSize
+     * et jdk.httpclient.keepalive.timeout), commun à tous les HttpClient et donc à tous les ApiClient.
+     * Le JDK lit ces propriétés une seule fois : appeler cette méthode au démarrage, avant
+     * de créer le premier client ; ensuite elle est sans effet.
+     *
+     * @param maxPooledConnections nombre maximal de connexions inactives gardées (0 : pas de limite)
+     * @param keepAlive durée de conservation d'une connexion inactive (défaut du JDK : 20 minutes),
+     *                  arrondie à la seconde supérieure ; null : défaut du JDK
+     */
+    public static void configureConnectionPool(int maxPooledConnections, Duration keepAlive) {
+        if (maxPooledConnections < 0) {
+            throw new IllegalArgumentException("maxPooledConnections must be >= 0");
+        }
+        if (keepAlive != null && (keepAlive.isNegative() || keepAlive.isZero())) {
+            throw new IllegalArgumentException("keepAlive must be > 0");
+        }
+        System.setProperty("jdk.httpclient.connectionPoolSize", Integer.toString(maxPooledConnections));
+        if (keepAlive != null) {
+            long seconds = keepAlive.getSeconds() + (keepAlive.getNano() > 0 ? 1 : 0);
+            System.setProperty("jdk.httpclient.keepalive.timeout", Long.toString(seconds));
+        }
+    }
+
+    /**
+     * Configuration du transport HTTP de ApiClient.
+     *
+     * Par défaut : HTTP/2 quand le serveur l'accepte (h2c sur http://, ALPN sur https://,
+     * sinon HTTP/1.1), connexion en 10 s maximum, réponse en 60 s maximum,
+     * exécuteur et pool de connexions du JDK, RetryPolicy.defaults(),
+     * CircuitBreaker.defaults(), pas de requête doublée, réponses compressées acceptées.
+     * Le pool de connexions est commun à toute la JVM : voir configureConnectionPool.
+     */
+    public static class Builder {
+        private final String baseUrl;
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration requestTimeout = Duration.ofSeconds(60);
+        private Executor executor;
+        private RetryPolicy retryPolicy = RetryPolicy.defaults();
+        private CircuitBreaker circuitBreaker = CircuitBreaker.defaults();
+        private double hedgePercentile = 0;
+        private boolean compression = true;
+
+        private Builder(String baseUrl) {
+            if (baseUrl == null || baseUrl.isBlank()) {
+                throw new IllegalArgumentException("baseUrl is required");
+            }
+            this.baseUrl = baseUrl;
+        }
+
+        /**
+         * HTTP_2 : mise à niveau tentée (h2c) puis repli sur HTTP/1.1 si le serveur refuse ;
+         * plusieurs requêtes partagent alors une seule connexion.
+         * HTTP_1_1 : une connexion par requête en cours.
+         */
+        public Builder version(HttpClient.Version version) {
+            this.version = version;
+            return this;
+        }
+
+        /** Durée maximale d'établissement d'une connexion TCP. null : pas de limite. */
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Durée maximale d'attente de la réponse (jusqu'à la réception des en-têtes),
+         * au-delà une HttpTimeoutException est levée. null : pas de limite.
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /** Exécuteur des tâches asynchrones de HttpClient (sendAsync, callbacks). null : celui du JDK. */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /** Nouvelles tentatives des GET (RetryPolicy.NONE ou null : aucune). */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /** Disjoncteur partagé par toutes les requêtes du client. null : désactivé. */
+        public Builder circuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        /**
+         * Double un GET dont la réponse tarde au-delà de ce percentile des durées
+         * déjà mesurées pour le même endpoint (0.95 : p95). 0 : désactivé.
+         * Le seuil est estimé par l'histogramme de ClientMetrics (à un facteur 2 près).
+         */
+        public Builder hedgeAfterPercentile(double percentile) {
+            if (percentile < 0 || percentile >= 1) {
+                throw new IllegalArgumentException("percentile must be in [0, 1)");
+            }
+            this.hedgePercentile = percentile;
+            return this;
+        }
+
+        /**
+         * Annonce Accept-Encoding: gzip, deflate (par défaut : oui). Les grosses pages de
+         * documents, très répétitives, sont alors 5 à 10 fois plus petites sur le réseau ;
+         * elles sont décompressées en flux pendant l'analyse.
+         */
+        public Builder compression(boolean compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        public ApiClient build() {
+            return new ApiClient(this);
+        }
+
+        private HttpClient newHttpClient() {
+            HttpClient.Builder builder = HttpClient.newBuilder()
+                    .version(version)
+                    .followRedirects(HttpClient.Redirect.NEVER);
+            if (connectTimeout != null) {
+                builder.connectTimeout(connectTimeout);
+            }
+            if (executor != null) {
+                builder.executor(executor);
+            }
+            return builder.build();
+        }
     }
 
     /** Change la base MongoDB utilisée pour les prochaines requêtes. */
@@ -45,10 +225,70 @@ public class ApiClient {
         this.databaseName = databaseName;
     }
 
+    String getDatabaseName() {
+        return databaseName;
+    }
+
+    /** Envoi asynchrone avec nouvelles tentatives, requêtes doublées et disjoncteur. */
+    <T> CompletableFuture<HttpResponse<T>> sendAsync(Endpoint endpoint, HttpRequest request,
+            HttpResponse.BodyHandler<T> handler) {
+        return sender.sendAsync(endpoint, request, handler);
+    }
+
+    /**
+     * Remplace le cache des lectures (fetchCollections, fetchDocuments, fetchDocumentsByField).
+     * null désactive le cache.
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Journalisation des échanges HTTP. null (ou RequestLogger.NONE) : aucune journalisation.
+     * Par défaut : configurée par -Dminicompass.log=OFF|BASIC|BODY (voir ConsoleRequestLogger).
+     */
+    public void setRequestLogger(RequestLogger requestLogger) {
+        this.requestLogger = requestLogger == null ? RequestLogger.NONE : requestLogger;
+    }
+
+    /** Mesures par endpoint (latence, temps d'analyse, octets reçus) : metrics.snapshot(). */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** Nombre maximal de documents envoyés par requête groupée (insertDocuments, ...). */
+    public void setBulkChunkSize(int bulkChunkSize) {
+        if (bulkChunkSize <= 0) {
+            throw new IllegalArgumentException("bulkChunkSize must be > 0");
+        }
+        this.bulkChunkSize = bulkChunkSize;
+    }
+
+    /**
+     * Version non bloquante de ce client (CompletableFuture + sendAsync).
+     * Partage le même HttpClient, la même URL de base et la même base MongoDB.
+     */
+    public synchronized AsyncApiClient async() {
+        if (asyncClient == null) {
+            asyncClient = new AsyncApiClient(this);
+        }
+        return asyncClient;
+    }
+
     // --------------------------------------------------------------------
     // 1. STRUCTURE DocumentSet (ensemble de documents)
     // --------------------------------------------------------------------
 
+    /**
+     * Ensemble de documents sous forme de table : fieldNames (colonnes) x documents (lignes).
+     *
+     * Cette implémentation stocke les lignes telles quelles (Object[][]).
+     * Voir ColumnarDocumentSet pour un stockage par colonnes.
+     */
     public static class DocumentSet {
         private final String[] fieldNames;
         private final Object[][] documents;
@@ -58,13 +298,113 @@ public class ApiClient {
             this.documents = documents;
         }
 
+        /** Pour les implémentations qui ne stockent pas de Object[][]. */
+        protected DocumentSet(String[] fieldNames) {
+            this(fieldNames, null);
+        }
+
         public String[] getFieldNames() {
             return fieldNames;
         }
 
+        public int getRowCount() {
+            return documents.length;
+        }
+
+        /** Valeur d'un champ (null si absent du document). */
+        public Object getValueAt(int row, int column) {
+            return documents[row][column];
+        }
+
         public Object[][] getDocuments() {
             return documents;
         }
+
+        /**
+         * _id du dernier document (point de départ de la page suivante par clé) : String
+         * (ObjectId ou texte) ou Number, avec son type. null si absent ou d'un autre type
+         * (la page suivante ne peut alors pas être lue par clé).
+         */
+        public Object getLastId() {
+            int row = getRowCount() - 1;
+            if (row < 0) {
+                return null;
+            }
+            for (int c = 0; c < fieldNames.length; c++) {
+                if ("_id".equals(fieldNames[c])) {
+                    Object id = getValueAt(row, c);
+                    return id instanceof String || id instanceof Number ? id : null;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Résultat d'une opération groupée : un ItemResult par document, dans l'ordre d'envoi.
+     */
+    public static class BulkResult {
+        private final List<ItemResult> items;
+
+        public BulkResult(List<ItemResult> items) {
+            this.items = Collections.unmodifiableList(items);
+        }
+
+        public List<ItemResult> getItems() {
+            return items;
+        }
+
+        public int getSuccessCount() {
+            int count = 0;
+            for (ItemResult item : items) {
+                if (item.isSuccess()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        public List<ItemResult> getFailures() {
+            List<ItemResult> failures = new ArrayList<>();
+            for (ItemResult item : items) {
+                if (!item.isSuccess()) {
+                    failures.add(item);
+                }
+            }
+            return failures;
+        }
+    }
+
+    public static class ItemResult {
+        private final int index;
+        private final String id;
+        private final boolean success;
+        private final String error;
+
+        public ItemResult(int index, String id, boolean success, String error) {
+            this.index = index;
+            this.id = id;
+            this.success = success;
+            this.error = error;
+        }
+
+        /** Position de l'élément dans la liste passée à la méthode groupée. */
+        public int getIndex() {
+            return index;
+        }
+
+        /** _id du document (inséré, modifié ou supprimé), ou null. */
+        public String getId() {
+            return id;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getError() {
+            return error;
+        }
     }
 
     // --------------------------------------------------------------------
@@ -76,19 +416,46 @@ public class ApiClient {
      */
     public String[] fetchCollections() throws IOException, InterruptedException {
         String path = applyDatabase(PathBuilder.collectionsPath());
-        String jsonResponse = sendRequest("GET", path, null);
+        String[] cached = cacheGet(path);
+        if (cached != null) {
+            return cached;
+        }
+
+        return singleFlight.call(databaseName, path, () -> {
+            long generation = cacheGeneration(path);
+            String jsonResponse = sendRequest(Endpoint.COLLECTIONS, "GET", path, null, true);
 
-        return parseCollections(jsonResponse);
+            long parseStart = System.nanoTime();
+            String[] collections = parseCollections(jsonResponse);
+            metrics.recordParse(Endpoint.COLLECTIONS, System.nanoTime() - parseStart);
+            cachePut(path, collections, jsonResponse.length(), generation);
+            return collections;
+        });
     }
 
     /**
      * GET /collections/{name}/documents?limit=...
      */
     public DocumentSet fetchDocuments(String collectionName, int limit) throws IOException, InterruptedException {
-        String path = PathBuilder.documentsPath(collectionName) + PathBuilder.paginationQuery(limit, 0, databaseName);
-        String jsonResponse = sendRequest("GET", path, null);
+        return fetchDocuments(collectionName, limit, 0);
+    }
 
-        return parseDocumentsToDocumentSet(jsonResponse);
+    /**
+     * GET /collections/{name}/documents?limit=...&skip=...
+     */
+    public DocumentSet fetchDocuments(String collectionName, int limit, int skip) throws IOException, InterruptedException {
+        return fetchDocuments(collectionName, limit, skip, null);
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...&skip=...&fields=... (ou &exclude=...)
+     * Seuls les champs retenus par projection sont transférés (null : documents complets).
+     */
+    public DocumentSet fetchDocuments(String collectionName, int limit, int skip, Projection projection) throws IOException, InterruptedException {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.paginationQuery(limit, skip, projection, databaseName);
+
+        return fetchDocumentSet(Endpoint.DOCUMENTS, path);
     }
 
     /**
@@ -96,9 +463,179 @@ public class ApiClient {
      */
     public DocumentSet fetchDocumentsByField(String collectionName, String field, String value, int limit) throws IOException, InterruptedException {
         String path = PathBuilder.documentsPath(collectionName) + PathBuilder.searchQuery(limit, field, value, databaseName);
-        String jsonResponse = sendRequest("GET", path, null);
 
-        return parseDocumentsToDocumentSet(jsonResponse);
+        return fetchDocumentSet(Endpoint.SEARCH, path);
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...&skip=...&field=...&value=...&fields=...
+     */
+    public DocumentSet fetchDocumentsByField(String collectionName, String field, String value, int limit, int skip,
+            Projection projection) throws IOException, InterruptedException {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.searchQuery(limit, skip, field, value, projection, databaseName);
+
+        return fetchDocumentSet(Endpoint.SEARCH, path);
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...&skip=...&q=...&sort=...&hint=...
+     * Le filtre, le tri et l'index conseillé sont appliqués par MongoDB :
+     * seuls les documents retenus sont transférés (projection null : documents complets).
+     */
+    public DocumentSet fetchDocuments(String collectionName, DocumentQuery query, int limit, int skip,
+            Projection projection) throws IOException, InterruptedException {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.documentQuery(limit, skip, query, projection, databaseName);
+
+        return fetchDocumentSet(Endpoint.QUERY, path);
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...&skip=..., rendu par paquets :
+     * onChunk reçoit chaque paquet de chunkSize documents dès qu'il est lu dans le flux,
+     * sans attendre la fin de la réponse. Appel bloquant ; onChunk est appelé sur le thread appelant.
+     *
+     * Le résultat n'est pas mis en cache (il n'est jamais assemblé en un seul DocumentSet).
+     *
+     * @return nombre total de documents reçus
+     */
+    public int streamDocuments(String collectionName, int limit, int skip, int chunkSize,
+            Consumer<DocumentSet> onChunk) throws IOException, InterruptedException {
+        return streamDocuments(collectionName, limit, skip, null, chunkSize, onChunk);
+    }
+
+    /**
+     * Comme streamDocuments, avec une projection (null : documents complets).
+     */
+    public int streamDocuments(String collectionName, int limit, int skip, Projection projection, int chunkSize,
+            Consumer<DocumentSet> onChunk) throws IOException, InterruptedException {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.paginationQuery(limit, skip, projection, databaseName);
+
+        return streamDocumentSet(Endpoint.DOCUMENTS, path, chunkSize, onChunk);
+    }
+
+    /**
+     * Comme streamDocuments, limité aux documents où field = value.
+     */
+    public int streamDocumentsByField(String collectionName, String field, String value, int limit, int skip,
+            int chunkSize, Consumer<DocumentSet> onChunk) throws IOException, InterruptedException {
+        return streamDocumentsByField(collectionName, field, value, limit, skip, null, chunkSize, onChunk);
+    }
+
+    /**
+     * Comme streamDocumentsByField, avec une projection (null : documents complets).
+     */
+    public int streamDocumentsByField(String collectionName, String field, String value, int limit, int skip,
+            Projection projection, int chunkSize, Consumer<DocumentSet> onChunk) throws IOException, InterruptedException {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.searchQuery(limit, skip, field, value, projection, databaseName);
+
+        return streamDocumentSet(Endpoint.SEARCH, path, chunkSize, onChunk);
+    }
+
+    /**
+     * Comme streamDocuments, pour les documents retenus par query.
+     */
+    public int streamDocuments(String collectionName, DocumentQuery query, int limit, int skip, Projection projection,
+            int chunkSize, Consumer<DocumentSet> onChunk) throws IOException, InterruptedException {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.documentQuery(limit, skip, query, projection, databaseName);
+
+        return streamDocumentSet(Endpoint.QUERY, path, chunkSize, onChunk);
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...&afterId=...&q=...
+     * Pagination par clé : les limit documents qui suivent afterId dans l'ordre de _id
+     * (afterId null : première page). Le coût d'une page ne dépend pas de sa position,
+     * contrairement à skip. query peut être null ; son tri doit être vide (ou _id croissant).
+     */
+    public DocumentSet fetchDocumentsAfter(String collectionName, DocumentQuery query, Object afterId, int limit,
+            Projection projection) throws IOException, InterruptedException {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.keysetQuery(limit, afterId, null, requireIdOrder(query), projection, databaseName);
+
+        return fetchDocumentSet(Endpoint.KEYSET, path);
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...&beforeId=...&q=...
+     * Page précédente : les limit documents qui précèdent beforeId, dans l'ordre de _id.
+     */
+    public DocumentSet fetchDocumentsBefore(String collectionName, DocumentQuery query, Object beforeId, int limit,
+            Projection projection) throws IOException, InterruptedException {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.keysetQuery(limit, null, requireKeysetId(beforeId), requireIdOrder(query), projection, databaseName);
+
+        return fetchDocumentSet(Endpoint.KEYSET, path);
+    }
+
+    /**
+     * Comme fetchDocumentsAfter, rendu par paquets (voir streamDocuments).
+     */
+    public int streamDocumentsAfter(String collectionName, DocumentQuery query, Object afterId, int limit,
+            Projection projection, int chunkSize, Consumer<DocumentSet> onChunk) throws IOException, InterruptedException {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.keysetQuery(limit, afterId, null, requireIdOrder(query), projection, databaseName);
+
+        return streamDocumentSet(Endpoint.KEYSET, path, chunkSize, onChunk);
+    }
+
+    /**
+     * Parcourt toute une collection page par page.
+     * La page suivante est téléchargée en arrière-plan pendant que l'appelant traite la page courante.
+     *
+     * try (DocumentCursor cursor = apiClient.openCursor("students", 500)) {
+     *     while (cursor.hasNext()) { DocumentSet page = cursor.next(); ... }
+     * }
+     */
+    public DocumentCursor openCursor(String collectionName, int pageSize) {
+        // Pagination par clé : chaque page part du dernier _id de la précédente
+        return new DocumentCursor(pageSize,
+                (skip, afterId) -> fetchCursorPage(collectionName, null, skip, afterId, pageSize));
+    }
+
+    /**
+     * Comme openCursor(collectionName, pageSize), limité aux documents où field = value.
+     * value est convertie comme le fait le serveur pour ?field=...&value=... (nombre, booléen ou texte).
+     */
+    public DocumentCursor openCursor(String collectionName, String field, String value, int pageSize) {
+        DocumentQuery query = field == null || value == null
+                ? null
+                : DocumentQuery.where(DocumentQuery.Filter.eq(field, fieldValue(value)));
+        return new DocumentCursor(pageSize,
+                (skip, afterId) -> fetchCursorPage(collectionName, query, skip, afterId, pageSize));
+    }
+
+    /**
+     * Comme openCursor(collectionName, pageSize), pour les documents retenus par query.
+     * Sans tri (ou trié par _id), les pages sont lues par clé ; avec un autre tri, par skip.
+     */
+    public DocumentCursor openCursor(String collectionName, DocumentQuery query, int pageSize) {
+        if (query == null || query.isIdOrdered()) {
+            return new DocumentCursor(pageSize,
+                    (skip, afterId) -> fetchCursorPage(collectionName, query, skip, afterId, pageSize));
+        }
+        return new DocumentCursor(pageSize,
+                (skip, afterId) -> async().fetchDocuments(collectionName, query, pageSize, skip, null));
+    }
+
+    /**
+     * Page d'un curseur par clé. Sans _id utilisable à la fin de la page précédente
+     * (ni texte, ni nombre), la page est lue par skip, dans le même ordre (_id).
+     */
+    private CompletableFuture<DocumentSet> fetchCursorPage(String collectionName, DocumentQuery query, int skip,
+            Object afterId, int pageSize) {
+        if (afterId != null || skip == 0) {
+            return async().fetchDocumentsAfter(collectionName, query, afterId, pageSize, null);
+        }
+        DocumentQuery byId = DocumentQuery.where(query == null ? null : query.getFilter()).sortAscending("_id");
+        if (query != null) {
+            byId.hint(query.getHint());
+        }
+        return async().fetchDocuments(collectionName, byId, pageSize, skip, null);
     }
 
     /**
@@ -108,14 +645,10 @@ public class ApiClient {
         String path = applyDatabase(PathBuilder.documentsPath(collectionName));
         String body = mapToJson(fields);
 
-        String jsonResponse = sendRequest("POST", path, body);
+        String jsonResponse = sendRequest(Endpoint.INSERT, "POST", path, body);
+        invalidateCollection(collectionName);
 
-        JSONObject root = new JSONObject(jsonResponse);
-
-        if (root.has("error")) {
-            return null;
-        }
-        return root.optString("insertedId", null);
+        return parseInsertedId(jsonResponse);
     }
 
     /**
@@ -125,10 +658,10 @@ public class ApiClient {
         String path = applyDatabase(PathBuilder.singleDocumentPath(collectionName, id));
         String body = mapToJson(fields);
 
-        String jsonResponse = sendRequest("PUT", path, body);
-        JSONObject root = new JSONObject(jsonResponse);
+        String jsonResponse = sendRequest(Endpoint.SINGLE_DOCUMENT, "PUT", path, body);
+        invalidateCollection(collectionName);
 
-        return !root.has("error");
+        return parseSuccess(jsonResponse);
     }
 
     /**
@@ -138,10 +671,10 @@ public class ApiClient {
         String path = applyDatabase(PathBuilder.singleDocumentPath(collectionName, id));
         String body = mapToJson(partialFields);
 
-        String jsonResponse = sendRequest("PATCH", path, body);
+        String jsonResponse = sendRequest(Endpoint.SINGLE_DOCUMENT, "PATCH", path, body);
+        invalidateCollection(collectionName);
 
-        JSONObject root = new JSONObject(jsonResponse);
-        return !root.has("error");
+        return parseSuccess(jsonResponse);
     }
 
     /**
@@ -150,39 +683,301 @@ public class ApiClient {
     public boolean deleteDocument(String collectionName, String id) throws IOException, InterruptedException {
         String path = applyDatabase(PathBuilder.singleDocumentPath(collectionName, id));
 
-        String jsonResponse = sendRequest("DELETE", path, null);
+        String jsonResponse = sendRequest(Endpoint.SINGLE_DOCUMENT, "DELETE", path, null);
+        invalidateCollection(collectionName);
 
-        JSONObject root = new JSONObject(jsonResponse);
-        return !root.has("error");
+        return parseSuccess(jsonResponse);
+    }
+
+    /**
+     * POST /collections/{name}/documents/bulk, par paquets de bulkChunkSize documents.
+     *
+     * @throws BulkException si un paquet échoue : résultats des paquets précédents (déjà insérés)
+     */
+    public BulkResult insertDocuments(String collectionName, List<Map<String, Object>> documents) throws IOException, InterruptedException {
+        String path = applyDatabase(PathBuilder.bulkDocumentsPath(collectionName));
+        List<ItemResult> results = new ArrayList<>(documents.size());
+
+        try {
+            for (int start = 0; start < documents.size(); start += bulkChunkSize) {
+                List<Map<String, Object>> chunk = documents.subList(start, Math.min(start + bulkChunkSize, documents.size()));
+                JSONArray array = new JSONArray();
+                for (Map<String, Object> doc : chunk) {
+                    array.put(doc == null ? new JSONObject() : new JSONObject(doc));
+                }
+                insertChunk(path, array, start, results);
+            }
+        } catch (IOException e) {
+            throw new BulkException(new BulkResult(results), documents.size(), e);
+        } finally {
+            // Les paquets précédents ont pu être écrits, même en cas d'échec
+            invalidateCollection(collectionName);
+        }
+        return new BulkResult(results);
+    }
+
+    /**
+     * POST /collections/{name}/documents/bulk en une seule requête, documents déjà en JSON
+     * (import de fichier : pas de conversion en Map). Les index des résultats partent de 0.
+     *
+     * @throws IOException si le serveur refuse tout le paquet ({ error }) : rien n'a été inséré
+     */
+    BulkResult insertJsonDocuments(String collectionName, JSONArray documents) throws IOException, InterruptedException {
+        String path = applyDatabase(PathBuilder.bulkDocumentsPath(collectionName));
+        String body = new JSONObject().put("documents", documents).toString();
+
+        String jsonResponse = sendRequest(Endpoint.BULK, "POST", path, body);
+        invalidateCollection(collectionName);
+        try {
+            if (!parseSuccess(jsonResponse)) {
+                throw new IOException("Bulk insert failed: " + new JSONObject(jsonResponse).optString("error"));
+            }
+        } catch (JSONException e) {
+            throw new IOException("Invalid bulk insert response", e);
+        }
+
+        List<ItemResult> results = new ArrayList<>(documents.length());
+        parseBulkResults(jsonResponse, 0, documents.length(), null, results);
+        return new BulkResult(results);
+    }
+
+    private void insertChunk(String path, JSONArray documents, int offset, List<ItemResult> results)
+            throws IOException, InterruptedException {
+        String body = new JSONObject().put("documents", documents).toString();
+
+        String jsonResponse = sendRequest(Endpoint.BULK, "POST", path, body);
+        parseBulkResults(jsonResponse, offset, documents.length(), null, results);
+    }
+
+    /**
+     * PATCH /collections/{name}/documents/bulk : mises à jour partielles, id -> champs.
+     *
+     * @throws BulkException si un paquet échoue : résultats des paquets précédents (déjà appliqués)
+     */
+    public BulkResult updateDocuments(String collectionName, Map<String, Map<String, Object>> updatesById) throws IOException, InterruptedException {
+        String path = applyDatabase(PathBuilder.bulkDocumentsPath(collectionName));
+        List<String> ids = new ArrayList<>(updatesById.keySet());
+        List<ItemResult> results = new ArrayList<>(ids.size());
+
+        try {
+            for (int start = 0; start < ids.size(); start += bulkChunkSize) {
+                List<String> chunk = ids.subList(start, Math.min(start + bulkChunkSize, ids.size()));
+                JSONArray array = new JSONArray();
+                for (String id : chunk) {
+                    Map<String, Object> fields = updatesById.get(id);
+                    array.put(new JSONObject()
+                            .put("id", id)
+                            .put("fields", fields == null ? new JSONObject() : new JSONObject(fields)));
+                }
+                String body = new JSONObject().put("updates", array).toString();
+
+                String jsonResponse = sendRequest(Endpoint.BULK, "PATCH", path, body);
+                parseBulkResults(jsonResponse, start, chunk.size(), chunk, results);
+            }
+        } catch (IOException e) {
+            throw new BulkException(new BulkResult(results), ids.size(), e);
+        } finally {
+            invalidateCollection(collectionName);
+        }
+        return new BulkResult(results);
+    }
+
+    /**
+     * POST /collections/{name}/documents/bulk-delete, par paquets de bulkChunkSize ids.
+     *
+     * @throws BulkException si un paquet échoue : résultats des paquets précédents (déjà supprimés)
+     */
+    public BulkResult deleteDocuments(String collectionName, List<String> ids) throws IOException, InterruptedException {
+        String path = applyDatabase(PathBuilder.bulkDeletePath(collectionName));
+        List<ItemResult> results = new ArrayList<>(ids.size());
+
+        try {
+            for (int start = 0; start < ids.size(); start += bulkChunkSize) {
+                List<String> chunk = ids.subList(start, Math.min(start + bulkChunkSize, ids.size()));
+                String body = new JSONObject().put("ids", new JSONArray(chunk)).toString();
+
+                String jsonResponse = sendRequest(Endpoint.BULK_DELETE, "POST", path, body);
+                parseBulkResults(jsonResponse, start, chunk.size(), chunk, results);
+            }
+        } catch (IOException e) {
+            throw new BulkException(new BulkResult(results), ids.size(), e);
+        } finally {
+            invalidateCollection(collectionName);
+        }
+        return new BulkResult(results);
     }
 
     public boolean existsDocument(String collectionName, String field, String value) throws IOException, InterruptedException {
         String path = PathBuilder.existsDocumentPath(collectionName) + PathBuilder.fieldQuery(field, value, databaseName);
 
-        String jsonResponse = sendRequest("GET", path, null);
+        String jsonResponse = sendRequest(Endpoint.EXISTS, "GET", path, null);
 
-        JSONObject root = new JSONObject(jsonResponse);
-        return root.optBoolean("exists", false);
+        return parseFlag(jsonResponse, "exists");
     }
 
     public boolean hasDuplicateValue(String collectionName, String field, String value) throws IOException, InterruptedException {
         String path = PathBuilder.hasDuplicatePath(collectionName) + PathBuilder.fieldQuery(field, value, databaseName);
 
-        String jsonResponse = sendRequest("GET", path, null);
-        JSONObject root = new JSONObject(jsonResponse);
+        String jsonResponse = sendRequest(Endpoint.HAS_DUPLICATE, "GET", path, null);
+
+        return parseFlag(jsonResponse, "duplicate");
+    }
+
+    /**
+     * GET /collections/{name}/count
+     * Sans filtre, le serveur renvoie une estimation instantanée (estimatedDocumentCount).
+     */
+    public long countDocuments(String collectionName) throws IOException, InterruptedException {
+        return countDocuments(collectionName, null);
+    }
+
+    /**
+     * GET /collections/{name}/count?q=...
+     * Nombre exact de documents retenus par le filtre de query (null : toute la collection, estimation).
+     */
+    public long countDocuments(String collectionName, DocumentQuery query) throws IOException, InterruptedException {
+        String path = PathBuilder.countPath(collectionName) + PathBuilder.countQuery(null, null, query, databaseName);
+
+        return parseCount(sendRequest(Endpoint.COUNT, "GET", path, null, true));
+    }
+
+    /**
+     * GET /collections/{name}/count?field=...&value=...
+     */
+    public long countDocumentsByField(String collectionName, String field, String value) throws IOException, InterruptedException {
+        String path = PathBuilder.countPath(collectionName) + PathBuilder.countQuery(field, value, null, databaseName);
+
+        return parseCount(sendRequest(Endpoint.COUNT, "GET", path, null, true));
+    }
+
+    /**
+     * GET /collections/{name}/changes : suivi en direct des modifications (Server-Sent Events),
+     * limité au filtre (field / value, ou celui de query) et à la projection de la vue.
+     * Le suivi se reconnecte seul jusqu'à ChangeFeed.close().
+     * Nécessite un replica set MongoDB côté serveur (sinon : Listener.onError, sans reconnexion).
+     */
+    public ChangeFeed watchDocuments(String collectionName, String field, String value, DocumentQuery query,
+            Projection projection, ChangeFeed.Listener listener) {
+        String path = PathBuilder.changesPath(collectionName)
+                + PathBuilder.changesQuery(field, value, query, projection, databaseName);
 
-        return root.optBoolean("duplicate", false);
+        ChangeFeed feed = new ChangeFeed(httpClient, URI.create(baseUrl + path), listener);
+        feed.start();
+        return feed;
     }
 
     // ---------------------------------------------------------
     // Méthodes utilitaires
     // ---------------------------------------------------------
 
+    /**
+     * GET d'une liste de documents, via le cache si possible.
+     * Les demandes identiques simultanées partagent la même requête (SingleFlight).
+     * La réponse est lue en flux ; sa taille en octets sert de poids dans le cache.
+     */
+    private DocumentSet fetchDocumentSet(Endpoint endpoint, String path) throws IOException, InterruptedException {
+        DocumentSet cached = cacheGet(path);
+        if (cached != null) {
+            return cached;
+        }
+
+        return singleFlight.call(databaseName, path, () -> {
+            long generation = cacheGeneration(path);
+            HttpResponse<InputStream> response = sendStreamingRequest(endpoint, "GET", path);
+            requireSuccess(response);
+            // wire : octets reçus (compressés) ; body : JSON décompressé en flux
+            try (CountingInputStream wire = new CountingInputStream(response.body());
+                    CountingInputStream body = new CountingInputStream(ContentEncoding.decode(response.headers(), wire))) {
+                // Lecture en flux : le temps d'analyse inclut la réception du corps
+                long parseStart = System.nanoTime();
+                DocumentSet documentSet = parseDocumentsToDocumentSet(body);
+                metrics.recordParse(endpoint, System.nanoTime() - parseStart);
+                metrics.recordBytes(endpoint, wire.getCount());
+
+                cachePut(path, documentSet, body.getCount(), generation);
+                return documentSet;
+            }
+        });
+    }
+
+    /** Lecture en flux d'une liste de documents, rendue par paquets (sans cache ni SingleFlight). */
+    private int streamDocumentSet(Endpoint endpoint, String path, int chunkSize,
+            Consumer<DocumentSet> onChunk) throws IOException, InterruptedException {
+        return readStreaming(endpoint, path, body -> DocumentStreamParser.parse(body, chunkSize, onChunk));
+    }
+
+    /** Lit le corps JSON (décompressé) d'une réponse, au fur et à mesure de sa réception. */
+    @FunctionalInterface
+    interface BodyReader<R> {
+        R read(InputStream body) throws IOException;
+    }
+
+    /**
+     * Page par clé (voir fetchDocumentsAfter) lue telle quelle par reader :
+     * le JSON { "documents": [...] } n'est ni converti en DocumentSet, ni mis en cache.
+     */
+    <R> R readDocumentsAfter(String collectionName, DocumentQuery query, Object afterId, int limit,
+            BodyReader<R> reader) throws IOException, InterruptedException {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.keysetQuery(limit, afterId, null, requireIdOrder(query), null, databaseName);
+
+        return readStreaming(Endpoint.KEYSET, path, reader);
+    }
+
+    private <R> R readStreaming(Endpoint endpoint, String path, BodyReader<R> reader) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = sendStreamingRequest(endpoint, "GET", path);
+        requireSuccess(response);
+        try (CountingInputStream wire = new CountingInputStream(response.body());
+                InputStream body = ContentEncoding.decode(response.headers(), wire)) {
+            long parseStart = System.nanoTime();
+            R result = reader.read(body);
+            metrics.recordParse(endpoint, System.nanoTime() - parseStart);
+            metrics.recordBytes(endpoint, wire.getCount());
+            return result;
+        }
+    }
+
+    <T> T cacheGet(String path) {
+        ResponseCache cache = responseCache;
+        return cache == null ? null : cache.get(databaseName, path);
+    }
+
+    /** À relever avant d'envoyer une lecture destinée au cache (voir ResponseCache.generation). */
+    long cacheGeneration(String path) {
+        ResponseCache cache = responseCache;
+        return cache == null ? 0 : cache.generation(databaseName, path);
+    }
+
+    void cachePut(String path, Object value, long bytes, long generation) {
+        ResponseCache cache = responseCache;
+        if (cache != null) {
+            cache.put(databaseName, path, value, bytes, generation);
+        }
+    }
+
+    /** Lectures identiques en cours, partagées entre ApiClient et AsyncApiClient. */
+    SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * Après une écriture : les lectures en cache de cette collection ne sont plus valides,
+     * et les lectures en cours ne sont plus partagées avec les nouvelles demandes.
+     */
+    void invalidateCollection(String collectionName) {
+        singleFlight.forget(databaseName, PathBuilder.collectionPath(collectionName) + "/");
+        singleFlight.forget(databaseName, PathBuilder.collectionsPath());
+        ResponseCache cache = responseCache;
+        if (cache != null) {
+            cache.invalidateCollection(databaseName, collectionName);
+        }
+    }
+
     /**
      * Ajoute ?db=... au path si un nom de base est défini.
      * À utiliser uniquement sur des paths sans query string (pas de "?").
      */
-    private String applyDatabase(String path) {
+    String applyDatabase(String path) {
         if (databaseName == null || databaseName.isBlank()) {
             return path;
         }
@@ -191,18 +986,125 @@ public class ApiClient {
         return path + PathBuilder.buildQuery(params);
     }
 
-    private String mapToJson(Map<String, Object> map) {
+    static String mapToJson(Map<String, Object> map) {
         if (map == null)
             return "{}";
         return new JSONObject(map).toString();
     }
 
-    private String sendRequest(String method, String path, String jsonBody) throws IOException, InterruptedException {
+    private String sendRequest(Endpoint endpoint, String method, String path, String jsonBody) throws IOException, InterruptedException {
+        return sendRequest(endpoint, method, path, jsonBody, false);
+    }
+
+    /**
+     * @param requireSuccess true : une réponse d'erreur (statut >= 400) lève une IOException
+     *                       au lieu d'être rendue (lectures mises en cache)
+     */
+    private String sendRequest(Endpoint endpoint, String method, String path, String jsonBody,
+            boolean requireSuccess) throws IOException, InterruptedException {
+        HttpRequest request = buildRequest(method, path, jsonBody);
+        long start = System.nanoTime();
+
+        HttpResponse<byte[]> response;
+        try {
+            response = sender.send(
+                    endpoint,
+                    request,
+                    HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            metrics.recordError(endpoint);
+            throw e;
+        }
+
+        int statusCode = response.statusCode();
+        // Octets reçus tels quels (compressés ou non), puis corps décodé
+        byte[] wire = response.body();
+        String body = ContentEncoding.decodeToString(response.headers(), wire);
+
+        long elapsed = System.nanoTime() - start;
+        recordResponse(endpoint, statusCode, elapsed, wire.length);
+        logExchange(method, request.uri(), statusCode, elapsed, body);
+
+        if (requireSuccess && statusCode >= 400) {
+            throw errorResponse(statusCode, body);
+        }
+        return body;
+    }
+
+    /**
+     * Variante de sendRequest qui ne charge pas le corps en mémoire :
+     * l'appelant lit le corps (ContentEncoding.decode) puis le ferme (try-with-resources).
+     * La durée mesurée va jusqu'à la réception des en-têtes.
+     */
+    private HttpResponse<InputStream> sendStreamingRequest(Endpoint endpoint, String method, String path) throws IOException, InterruptedException {
+        HttpRequest request = buildRequest(method, path, null);
+        long start = System.nanoTime();
+
+        HttpResponse<InputStream> response;
+        try {
+            response = sender.send(
+                    endpoint,
+                    request,
+                    HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            metrics.recordError(endpoint);
+            throw e;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        recordResponse(endpoint, response.statusCode(), elapsed, 0);
+        // Le corps n'est pas affiché : il est lu en flux
+        logExchange(method, request.uri(), response.statusCode(), elapsed, null);
+
+        return response;
+    }
+
+    /**
+     * Lève une IOException si la réponse lue en flux est une erreur (statut >= 400) :
+     * son corps { error } ne doit pas être lu comme une liste vide. Le corps est alors fermé.
+     */
+    static void requireSuccess(HttpResponse<InputStream> response) throws IOException {
+        if (response.statusCode() < 400) {
+            return;
+        }
+        try (InputStream body = ContentEncoding.decode(response.headers(), response.body())) {
+            throw errorResponse(response.statusCode(), new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Exception pour une réponse d'erreur, avec le message { error } du serveur s'il y en a un. */
+    static IOException errorResponse(int statusCode, String body) {
+        String message = body;
+        try {
+            message = new JSONObject(body).optString("error", body);
+        } catch (JSONException e) {
+            // corps non JSON (proxy, page d'erreur) : rendu tel quel
+        }
+        return new IOException("HTTP " + statusCode + ": " + message);
+    }
+
+    void recordResponse(Endpoint endpoint, int statusCode, long elapsedNanos, long bytes) {
+        metrics.recordRoundTrip(endpoint, elapsedNanos);
+        if (bytes > 0) {
+            metrics.recordBytes(endpoint, bytes);
+        }
+        if (statusCode >= 400) {
+            metrics.recordError(endpoint);
+        }
+    }
+
+    HttpRequest buildRequest(String method, String path, String jsonBody) {
         URI uri = URI.create(baseUrl + path);
 
         HttpRequest.Builder builder = HttpRequest.newBuilder()
                 .uri(uri)
                 .header("Accept", "application/json");
+        if (compression) {
+            builder.header("Accept-Encoding", ContentEncoding.ACCEPT_ENCODING);
+        }
+        if (requestTimeout != null) {
+            builder.timeout(requestTimeout);
+        }
 
         if (jsonBody != null && !jsonBody.isEmpty()) {
             builder.header("Content-Type", "application/json; charset=UTF-8");
@@ -211,25 +1113,23 @@ public class ApiClient {
             builder.method(method, HttpRequest.BodyPublishers.noBody());
         }
 
-        HttpRequest request = builder.build();
-
-        HttpResponse<String> response = httpClient.send(
-                request,
-                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
-
-        int statusCode = response.statusCode();
-        String body = response.body();
-
-        // Logging simple pour le debug
-        System.out.println("[" + method + "] " + uri);
-        System.out.println("Status: " + statusCode);
-        System.out.println("Body: " + body);
-        System.out.println("---------------------------------");
+        return builder.build();
+    }
 
-        return body;
+    /**
+     * Transmet l'échange au RequestLogger, seulement s'il est actif.
+     * body == null : corps non disponible (réponse lue en flux).
+     */
+    void logExchange(String method, URI uri, int statusCode, long elapsedNanos, String body) {
+        RequestLogger logger = requestLogger;
+        if (!logger.isEnabled(RequestLogger.Level.BASIC)) {
+            return;
+        }
+        String loggedBody = logger.isEnabled(RequestLogger.Level.BODY) ? body : null;
+        logger.logExchange(method, uri, statusCode, elapsedNanos, loggedBody);
     }
 
-    private String[] parseCollections(String collectionsJson) {
+    static String[] parseCollections(String collectionsJson) {
         if (collectionsJson == null || collectionsJson.isEmpty()) {
             return new String[0];
         }
@@ -247,39 +1147,120 @@ public class ApiClient {
         return result;
     }
 
-    private DocumentSet parseDocumentsToDocumentSet(String documentsJson) {
-        if (documentsJson == null || documentsJson.isEmpty()) {
-            return new DocumentSet(new String[0], new Object[0][0]);
+    static DocumentSet parseDocumentsToDocumentSet(InputStream documentsJson) throws IOException {
+        // TIP: Si tu veux cacher _id dans l’affichage, il faut ignorer ce champ
+        // dans DocumentStreamParser.
+        return DocumentStreamParser.parse(documentsJson);
+    }
+
+    /** { insertedId: "..." } → id, ou null si la réponse contient "error". */
+    static String parseInsertedId(String json) {
+        JSONObject root = new JSONObject(json);
+
+        if (root.has("error")) {
+            return null;
         }
+        return root.optString("insertedId", null);
+    }
 
-        JSONObject root = new JSONObject(documentsJson);
-        JSONArray docs = root.optJSONArray("documents");
-        if (docs == null || docs.length() == 0) {
-            return new DocumentSet(new String[0], new Object[0][0]);
+    /**
+     * { results: [ { index, id?, success, error? } ] } → ajoute un ItemResult par élément du paquet.
+     * Si le serveur refuse tout le paquet (ex: { error: ... }), chaque élément est marqué en échec.
+     *
+     * @param offset position du paquet dans la liste complète
+     * @param ids    ids envoyés (update / delete), ou null pour une insertion
+     */
+    static void parseBulkResults(String json, int offset, int chunkSize, List<String> ids, List<ItemResult> out) {
+        JSONObject root;
+        try {
+            root = new JSONObject(json);
+        } catch (JSONException e) {
+            root = new JSONObject().put("error", "Réponse invalide");
         }
 
-        JSONObject first = docs.getJSONObject(0);
-        Set<String> keySet = first.keySet();
+        JSONArray arr = root.optJSONArray("results");
+        ItemResult[] chunkResults = new ItemResult[chunkSize];
+        if (arr != null) {
+            for (int i = 0; i < arr.length(); i++) {
+                JSONObject item = arr.optJSONObject(i);
+                if (item == null) {
+                    continue;
+                }
+                int index = item.optInt("index", i);
+                if (index < 0 || index >= chunkSize) {
+                    continue;
+                }
+                String id = item.optString("id", ids != null ? ids.get(index) : null);
+                chunkResults[index] = new ItemResult(offset + index, id,
+                        item.optBoolean("success", false), item.optString("error", null));
+            }
+        }
 
-        // TIP: Si tu veux cacher _id dans l’affichage, tu peux filtrer ici.
-        // keySet.remove("_id");
+        String chunkError = root.optString("error", "Aucun résultat pour cet élément");
+        for (int i = 0; i < chunkSize; i++) {
+            if (chunkResults[i] == null) {
+                chunkResults[i] = new ItemResult(offset + i, ids != null ? ids.get(i) : null, false, chunkError);
+            }
+            out.add(chunkResults[i]);
+        }
+    }
 
-        String[] fieldNames = keySet.toArray(new String[0]);
-        Object[][] documents = new Object[docs.length()][fieldNames.length];
+    /** true si la réponse ne contient pas de champ "error". */
+    static boolean parseSuccess(String json) {
+        JSONObject root = new JSONObject(json);
+        return !root.has("error");
+    }
 
-        for (int i = 0; i < docs.length(); i++) {
-            JSONObject doc = docs.getJSONObject(i);
-            for (int j = 0; j < fieldNames.length; j++) {
-                String field = fieldNames[j];
-                Object value = doc.opt(field);
+    private static final Pattern NUMBER = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
 
-                if (value instanceof JSONObject || value instanceof JSONArray) {
-                    value = value.toString();
-                }
-                documents[i][j] = value;
+    /** Valeur de ?value=... telle que le serveur la compare : nombre, puis true / false, sinon texte. */
+    static Object fieldValue(String value) {
+        String trimmed = value.trim();
+        if (NUMBER.matcher(trimmed).matches()) {
+            try {
+                return Long.valueOf(trimmed);
+            } catch (NumberFormatException e) {
+                return Double.valueOf(trimmed);
             }
         }
+        if (value.equals("true") || value.equals("false")) {
+            return Boolean.valueOf(value);
+        }
+        return value;
+    }
+
+    /** La pagination par clé impose l'ordre de _id. */
+    static DocumentQuery requireIdOrder(DocumentQuery query) {
+        if (query != null && !query.isIdOrdered()) {
+            throw new IllegalArgumentException("Keyset pagination requires no sort or an ascending _id sort");
+        }
+        return query;
+    }
+
+    private static String requireId(String id) {
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("Id must not be null or blank");
+        }
+        return id;
+    }
+
+    /** _id de pagination par clé : texte non vide ou nombre. */
+    private static Object requireKeysetId(Object id) {
+        if (id instanceof Number) {
+            return id;
+        }
+        return requireId(id instanceof String ? (String) id : null);
+    }
+
+    /** Lit le champ "count" d'une réponse de /count. */
+    static long parseCount(String json) {
+        JSONObject root = new JSONObject(json);
+        return root.getLong("count");
+    }
 
-        return new DocumentSet(fieldNames, documents);
+    /** Lit un booléen de premier niveau (ex: "exists", "duplicate"). */
+    static boolean parseFlag(String json, String key) {
+        JSONObject root = new JSONObject(json);
+        return root.optBoolean(key, false);
     }
 }
@@ -0,0 +1,314 @@
+package com.minicompass.demo;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import com.minicompass.demo.ApiClient.DocumentSet;
+import com.minicompass.demo.ClientMetrics.Endpoint;
+
+/**
+ * Version non bloquante de ApiClient, basée sur HttpClient.sendAsync.
+ *
+ * Chaque méthode retourne immédiatement un CompletableFuture : aucun thread
+ * n'est bloqué pendant l'échange réseau, on peut donc garder des centaines
+ * de requêtes en vol avec une seule instance.
+ *
+ * Obtenir une instance via apiClient.async() : les routes (PathBuilder),
+ * l'URL de base, le HttpClient et la base MongoDB sont partagés avec le client synchrone,
+ * ainsi que les nouvelles tentatives et le disjoncteur (ResilientSender).
+ *
+ * Annuler le CompletableFuture d'une lecture (cancel) interrompt l'échange HTTP.
+ */
+public class AsyncApiClient {
+
+    private final ApiClient client;
+
+    AsyncApiClient(ApiClient client) {
+        this.client = client;
+    }
+
+    // --------------------------------------------------------------------
+    // Lecture
+    // --------------------------------------------------------------------
+
+    /**
+     * GET /collections
+     */
+    public CompletableFuture<String[]> fetchCollections() {
+        String path = client.applyDatabase(PathBuilder.collectionsPath());
+        String[] cached = client.cacheGet(path);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return client.getSingleFlight().callAsync(client.getDatabaseName(), path, () -> {
+            long generation = client.cacheGeneration(path);
+            return thenApplyCancellable(sendAsync(Endpoint.COLLECTIONS, "GET", path, null, true), json -> {
+                long parseStart = System.nanoTime();
+                String[] collections = ApiClient.parseCollections(json);
+                client.getMetrics().recordParse(Endpoint.COLLECTIONS, System.nanoTime() - parseStart);
+                client.cachePut(path, collections, json.length(), generation);
+                return collections;
+            });
+        });
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...
+     */
+    public CompletableFuture<DocumentSet> fetchDocuments(String collectionName, int limit) {
+        return fetchDocuments(collectionName, limit, 0);
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...&skip=...
+     */
+    public CompletableFuture<DocumentSet> fetchDocuments(String collectionName, int limit, int skip) {
+        return fetchDocuments(collectionName, limit, skip, null);
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...&skip=...&fields=... (null : documents complets)
+     */
+    public CompletableFuture<DocumentSet> fetchDocuments(String collectionName, int limit, int skip, Projection projection) {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.paginationQuery(limit, skip, projection, client.getDatabaseName());
+        return sendForDocuments(Endpoint.DOCUMENTS, path);
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...&field=...&value=...
+     */
+    public CompletableFuture<DocumentSet> fetchDocumentsByField(String collectionName, String field, String value, int limit) {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.searchQuery(limit, field, value, client.getDatabaseName());
+        return sendForDocuments(Endpoint.SEARCH, path);
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...&skip=...&field=...&value=...
+     */
+    public CompletableFuture<DocumentSet> fetchDocumentsByField(String collectionName, String field, String value, int limit, int skip) {
+        return fetchDocumentsByField(collectionName, field, value, limit, skip, null);
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...&skip=...&field=...&value=...&fields=...
+     */
+    public CompletableFuture<DocumentSet> fetchDocumentsByField(String collectionName, String field, String value,
+            int limit, int skip, Projection projection) {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.searchQuery(limit, skip, field, value, projection, client.getDatabaseName());
+        return sendForDocuments(Endpoint.SEARCH, path);
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...&skip=...&q=...&sort=...&hint=...
+     */
+    public CompletableFuture<DocumentSet> fetchDocuments(String collectionName, DocumentQuery query, int limit, int skip,
+            Projection projection) {
+        String path = PathBuilder.documentsPath(collectionName)
+                + PathBuilder.documentQuery(limit, skip, query, projection, client.getDatabaseName());
+        return sendForDocuments(Endpoint.QUERY, path);
+    }
+
+    /**
+     * GET /collections/{name}/documents?limit=...&afterId=...&q=... (pagination par clé, afterId null : première page)
+     */
+    public CompletableFuture<DocumentSet> fetchDocumentsAfter(String collectionName, DocumentQuery query, Object afterId,
+            int limit, Projection projection) {
+        String path = PathBuilder.documentsPath(collectionName) + PathBuilder.keysetQuery(limit, afterId, null,
+                ApiClient.requireIdOrder(query), projection, client.getDatabaseName());
+        return sendForDocuments(Endpoint.KEYSET, path);
+    }
+
+    public CompletableFuture<Boolean> existsDocument(String collectionName, String field, String value) {
+        String path = PathBuilder.existsDocumentPath(collectionName)
+                + PathBuilder.fieldQuery(field, value, client.getDatabaseName());
+        return thenApplyCancellable(sendAsync(Endpoint.EXISTS, "GET", path, null),
+                json -> ApiClient.parseFlag(json, "exists"));
+    }
+
+    public CompletableFuture<Boolean> hasDuplicateValue(String collectionName, String field, String value) {
+        String path = PathBuilder.hasDuplicatePath(collectionName)
+                + PathBuilder.fieldQuery(field, value, client.getDatabaseName());
+        return thenApplyCancellable(sendAsync(Endpoint.HAS_DUPLICATE, "GET", path, null),
+                json -> ApiClient.parseFlag(json, "duplicate"));
+    }
+
+    /**
+     * GET /collections/{name}/count?q=... (query null : estimation pour toute la collection)
+     */
+    public CompletableFuture<Long> countDocuments(String collectionName, DocumentQuery query) {
+        String path = PathBuilder.countPath(collectionName)
+                + PathBuilder.countQuery(null, null, query, client.getDatabaseName());
+        return thenApplyCancellable(sendAsync(Endpoint.COUNT, "GET", path, null, true), ApiClient::parseCount);
+    }
+
+    /**
+     * GET /collections/{name}/count?field=...&value=...
+     */
+    public CompletableFuture<Long> countDocumentsByField(String collectionName, String field, String value) {
+        String path = PathBuilder.countPath(collectionName)
+                + PathBuilder.countQuery(field, value, null, client.getDatabaseName());
+        return thenApplyCancellable(sendAsync(Endpoint.COUNT, "GET", path, null, true), ApiClient::parseCount);
+    }
+
+    // --------------------------------------------------------------------
+    // Écriture
+    // --------------------------------------------------------------------
+
+    /**
+     * POST /collections/{name}/documents
+     */
+    public CompletableFuture<String> insertDocument(String collectionName, Map<String, Object> fields) {
+        String path = client.applyDatabase(PathBuilder.documentsPath(collectionName));
+        return sendAsync(Endpoint.INSERT, "POST", path, ApiClient.mapToJson(fields)).thenApply(json -> {
+            client.invalidateCollection(collectionName);
+            return ApiClient.parseInsertedId(json);
+        });
+    }
+
+    /**
+     * PUT /collections/{name}/documents/{id}
+     */
+    public CompletableFuture<Boolean> replaceDocument(String collectionName, String id, Map<String, Object> fields) {
+        String path = client.applyDatabase(PathBuilder.singleDocumentPath(collectionName, id));
+        return sendAsync(Endpoint.SINGLE_DOCUMENT, "PUT", path, ApiClient.mapToJson(fields)).thenApply(json -> {
+            client.invalidateCollection(collectionName);
+            return ApiClient.parseSuccess(json);
+        });
+    }
+
+    /**
+     * PATCH /collections/{name}/documents/{id}
+     */
+    public CompletableFuture<Boolean> updateDocument(String collectionName, String id, Map<String, Object> partialFields) {
+        String path = client.applyDatabase(PathBuilder.singleDocumentPath(collectionName, id));
+        return sendAsync(Endpoint.SINGLE_DOCUMENT, "PATCH", path, ApiClient.mapToJson(partialFields)).thenApply(json -> {
+            client.invalidateCollection(collectionName);
+            return ApiClient.parseSuccess(json);
+        });
+    }
+
+    /**
+     * DELETE /collections/{name}/documents/{id}
+     */
+    public CompletableFuture<Boolean> deleteDocument(String collectionName, String id) {
+        String path = client.applyDatabase(PathBuilder.singleDocumentPath(collectionName, id));
+        return sendAsync(Endpoint.SINGLE_DOCUMENT, "DELETE", path, null).thenApply(json -> {
+            client.invalidateCollection(collectionName);
+            return ApiClient.parseSuccess(json);
+        });
+    }
+
+    // ---------------------------------------------------------
+    // Méthodes utilitaires
+    // ---------------------------------------------------------
+
+    private CompletableFuture<String> sendAsync(Endpoint endpoint, String method, String path, String jsonBody) {
+        return sendAsync(endpoint, method, path, jsonBody, false);
+    }
+
+    /** requireSuccess : une réponse d'erreur (statut >= 400) termine le résultat par une IOException. */
+    private CompletableFuture<String> sendAsync(Endpoint endpoint, String method, String path, String jsonBody,
+            boolean requireSuccess) {
+        HttpRequest request = client.buildRequest(method, path, jsonBody);
+        long start = System.nanoTime();
+
+        CompletableFuture<HttpResponse<byte[]>> exchange =
+                client.sendAsync(endpoint, request, HttpResponse.BodyHandlers.ofByteArray());
+        exchange.whenComplete((response, error) -> recordFailure(endpoint, error));
+
+        return thenApplyCancellable(exchange, response -> {
+            long elapsed = System.nanoTime() - start;
+            byte[] wire = response.body();
+            String body;
+            try {
+                body = ContentEncoding.decodeToString(response.headers(), wire);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            client.recordResponse(endpoint, response.statusCode(), elapsed, wire.length);
+            client.logExchange(method, request.uri(), response.statusCode(), elapsed, body);
+            if (requireSuccess && response.statusCode() >= 400) {
+                throw new CompletionException(ApiClient.errorResponse(response.statusCode(), body));
+            }
+            return body;
+        });
+    }
+
+    /**
+     * Les octets sont reçus sans bloquer de thread, puis analysés en flux
+     * par DocumentStreamParser (pas de String intermédiaire).
+     * Les demandes identiques simultanées partagent la même requête (SingleFlight).
+     */
+    private CompletableFuture<DocumentSet> sendForDocuments(Endpoint endpoint, String path) {
+        DocumentSet cached = client.cacheGet(path);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return client.getSingleFlight().callAsync(client.getDatabaseName(), path, () -> {
+            long generation = client.cacheGeneration(path);
+            HttpRequest request = client.buildRequest("GET", path, null);
+            long start = System.nanoTime();
+
+            CompletableFuture<HttpResponse<byte[]>> exchange =
+                    client.sendAsync(endpoint, request, HttpResponse.BodyHandlers.ofByteArray());
+            exchange.whenComplete((response, error) -> recordFailure(endpoint, error));
+
+            return thenApplyCancellable(exchange, response -> {
+                long elapsed = System.nanoTime() - start;
+                byte[] bytes = response.body();
+                client.recordResponse(endpoint, response.statusCode(), elapsed, bytes.length);
+                client.logExchange("GET", request.uri(), response.statusCode(), elapsed, null);
+                // Décompression en flux pendant l'analyse
+                try (CountingInputStream body = new CountingInputStream(
+                        ContentEncoding.decode(response.headers(), new ByteArrayInputStream(bytes)))) {
+                    // Réponse d'erreur : { error }, ni analysée comme une liste vide ni mise en cache
+                    if (response.statusCode() >= 400) {
+                        throw ApiClient.errorResponse(response.statusCode(),
+                                new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                    long parseStart = System.nanoTime();
+                    DocumentSet documentSet = ApiClient.parseDocumentsToDocumentSet(body);
+                    client.getMetrics().recordParse(endpoint, System.nanoTime() - parseStart);
+                    client.cachePut(path, documentSet, body.getCount(), generation);
+                    return documentSet;
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            });
+        });
+    }
+
+    /**
+     * source.thenApply(fn), mais annuler le résultat annule aussi source :
+     * pour une lecture, cancel() interrompt donc l'échange HTTP au lieu de le laisser finir.
+     */
+    private static <S, T> CompletableFuture<T> thenApplyCancellable(CompletableFuture<S> source,
+            Function<? super S, ? extends T> fn) {
+        CompletableFuture<T> result = source.thenApply(fn);
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private void recordFailure(Endpoint endpoint, Throwable error) {
+        if (error != null && !(error instanceof CancellationException)) {
+            client.getMetrics().recordError(endpoint);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.minicompass.demo;
+
+import java.io.IOException;
+
+import com.minicompass.demo.ApiClient.BulkResult;
+
+/**
+ * Opération groupée interrompue par l'échec d'un paquet (réseau, serveur) :
+ * les paquets envoyés avant lui ont été appliqués, leurs résultats sont dans getPartialResult().
+ * Les éléments suivants n'ont pas été envoyés.
+ */
+public class BulkException extends IOException {
+
+    private final transient BulkResult partialResult;
+
+    public BulkException(BulkResult partialResult, int total, IOException cause) {
+        super("Bulk operation failed after " + partialResult.getItems().size() + " of " + total + " items: "
+                + cause.getMessage(), cause);
+        this.partialResult = partialResult;
+    }
+
+    /** Résultats des paquets terminés, dans l'ordre d'envoi (index de 0 à getItems().size() - 1). */
+    public BulkResult getPartialResult() {
+        return partialResult;
+    }
+}
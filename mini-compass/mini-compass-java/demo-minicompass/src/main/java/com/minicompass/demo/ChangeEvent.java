@@ -0,0 +1,84 @@
+package com.minicompass.demo;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.minicompass.demo.ApiClient.DocumentSet;
+
+/**
+ * Modification d'un document reçue en direct (voir ChangeFeed).
+ *
+ * Pour INSERT et UPDATE, le document est fourni tel que la vue l'afficherait
+ * (projection comprise), sous forme d'un DocumentSet d'une ligne.
+ */
+public final class ChangeEvent {
+
+    public enum Type {
+        INSERT,
+        UPDATE,
+        /** Supprimé, ou modifié de telle sorte qu'il ne correspond plus au filtre de la vue. */
+        DELETE,
+        /** Collection supprimée ou renommée, ou suivi perdu : la vue doit être rechargée. */
+        RESET
+    }
+
+    private final Type type;
+    private final String id;
+    private final DocumentSet document;
+
+    ChangeEvent(Type type, String id, DocumentSet document) {
+        this.type = type;
+        this.id = id;
+        this.document = document;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /** _id du document, null pour RESET. */
+    public String getId() {
+        return id;
+    }
+
+    /** Le document (une ligne) pour INSERT et UPDATE, null sinon. */
+    public DocumentSet getDocument() {
+        return document;
+    }
+
+    @Override
+    public String toString() {
+        return type + (id != null ? " " + id : "");
+    }
+
+    /** { "op": "insert" | "update" | "delete" | "reset", "id": "...", "document": {...} } */
+    static ChangeEvent parse(String json) throws IOException {
+        try {
+            JSONObject root = new JSONObject(json);
+            Type type = Type.valueOf(root.getString("op").toUpperCase(Locale.ROOT));
+            if (type == Type.RESET) {
+                return new ChangeEvent(type, null, null);
+            }
+            String id = root.getString("id");
+            JSONObject document = root.optJSONObject("document");
+            if (type == Type.DELETE || document == null) {
+                if (type != Type.DELETE) {
+                    throw new IOException("Change event without document: " + type);
+                }
+                return new ChangeEvent(type, id, null);
+            }
+            // Même conversion des valeurs que les pages lues par ApiClient
+            String page = "{\"documents\":[" + document + "]}";
+            DocumentSet row = ApiClient.parseDocumentsToDocumentSet(
+                    new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)));
+            return new ChangeEvent(type, id, row);
+        } catch (JSONException | IllegalArgumentException e) {
+            throw new IOException("Invalid change event: " + json, e);
+        }
+    }
+}
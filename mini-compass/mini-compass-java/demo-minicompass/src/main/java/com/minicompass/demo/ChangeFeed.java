@@ -0,0 +1,263 @@
+package com.minicompass.demo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Suivi en direct des modifications d'une collection (GET /collections/{name}/changes,
+ * Server-Sent Events). Créé par ApiClient.watchDocuments.
+ *
+ * Le flux est lu ligne par ligne au fil de sa réception (BodySubscribers.fromLineSubscriber) :
+ * chaque événement est transmis au Listener dès qu'il est complet, sans interrogation périodique.
+ * Si la connexion est perdue, le flux se reconnecte seul (délai croissant de 1 à 30 s) et
+ * reprend après le dernier événement reçu (en-tête Last-Event-ID), tant que le serveur a encore
+ * cet historique ; sinon il envoie un RESET et la vue doit être rechargée.
+ *
+ * Les modifications ne sont suivies qu'à partir de l'ouverture du flux (Listener.onReady) :
+ * les documents affichés doivent être lus après, sinon une modification faite entre leur lecture
+ * et l'ouverture du flux ne serait jamais reçue.
+ *
+ * Les méthodes du Listener sont appelées sur un thread de HttpClient, jamais sur l'EDT,
+ * une à la fois et dans l'ordre des modifications.
+ */
+public final class ChangeFeed implements Closeable {
+
+    public interface Listener {
+        /** Flux ouvert (à chaque connexion) : toute modification ultérieure sera transmise. */
+        default void onReady() {
+        }
+
+        void onChange(ChangeEvent event);
+
+        /**
+         * Erreur : connexion perdue (reconnect = true, une nouvelle tentative suit)
+         * ou refus du serveur (reconnect = false, le suivi s'arrête).
+         */
+        default void onError(Throwable error, boolean reconnect) {
+        }
+    }
+
+    private static final long MIN_RETRY_MILLIS = 1000;
+    private static final long MAX_RETRY_MILLIS = 30_000;
+
+    private final HttpClient httpClient;
+    private final URI uri;
+    private final Listener listener;
+
+    private volatile boolean closed = false;
+    /** Jeton de reprise : id du dernier événement reçu. */
+    private volatile String lastEventId;
+    private volatile EventStream current;
+    private long retryMillis = MIN_RETRY_MILLIS;
+
+    ChangeFeed(HttpClient httpClient, URI uri, Listener listener) {
+        this.httpClient = httpClient;
+        this.uri = uri;
+        this.listener = listener;
+    }
+
+    void start() {
+        connect();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /** Arrête le suivi et ferme la connexion. Aucun événement n'est transmis ensuite. */
+    @Override
+    public void close() {
+        closed = true;
+        EventStream stream = current;
+        if (stream != null) {
+            stream.cancel();
+        }
+    }
+
+    private void connect() {
+        if (closed) {
+            return;
+        }
+        // Pas de timeout : la réponse reste ouverte tant que le suivi dure
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .header("Accept", "text/event-stream")
+                .GET();
+        String resumeToken = lastEventId;
+        if (resumeToken != null) {
+            builder.header("Last-Event-ID", resumeToken);
+        }
+
+        EventStream stream = new EventStream();
+        current = stream;
+        stream.response = httpClient.sendAsync(builder.build(), info -> info.statusCode() == 200
+                ? BodySubscribers.fromLineSubscriber(stream, s -> "", StandardCharsets.UTF_8, null)
+                : BodySubscribers.ofString(StandardCharsets.UTF_8));
+        stream.response.whenComplete((response, error) -> onDisconnected(stream, response, error));
+        if (closed) {
+            stream.cancel();
+        }
+    }
+
+    private void onDisconnected(EventStream stream, HttpResponse<String> response, Throwable error) {
+        if (closed) {
+            return;
+        }
+        if (stream.serverError != null) {
+            listener.onError(new IOException(stream.serverError), false);
+            return;
+        }
+        if (response != null && response.statusCode() != 200) {
+            boolean reconnect = response.statusCode() >= 500;
+            listener.onError(new IOException("HTTP " + response.statusCode() + ": " + response.body()), reconnect);
+            if (!reconnect) {
+                return;
+            }
+        } else if (error != null) {
+            listener.onError(error, true);
+        }
+
+        // Fin du flux (serveur redémarré, collection supprimée...) ou erreur réseau
+        long delay = stream.received ? 0 : retryMillis;
+        retryMillis = stream.received ? MIN_RETRY_MILLIS : Math.min(MAX_RETRY_MILLIS, retryMillis * 2);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(this::connect);
+    }
+
+    /**
+     * Une connexion : découpe le flux en événements SSE (lignes "champ: valeur",
+     * un événement par ligne vide ; les lignes commençant par ":" sont des commentaires).
+     */
+    private final class EventStream implements Flow.Subscriber<String> {
+        volatile CompletableFuture<HttpResponse<String>> response;
+        private volatile Flow.Subscription subscription;
+        volatile boolean received = false;
+        volatile String serverError;
+
+        private String eventType = "";
+        private final StringBuilder data = new StringBuilder();
+        private String eventId;
+
+        void cancel() {
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+            CompletableFuture<?> r = response;
+            if (r != null) {
+                r.cancel(true);
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (closed) {
+                subscription.cancel();
+                return;
+            }
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (closed) {
+                return;
+            }
+            if (line.isEmpty()) {
+                dispatch();
+                return;
+            }
+            if (line.startsWith(":")) {
+                return; // commentaire (maintien de la connexion)
+            }
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            switch (field) {
+                case "event":
+                    eventType = value;
+                    break;
+                case "data":
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(value);
+                    break;
+                case "id":
+                    eventId = value;
+                    break;
+                default:
+                    break; // retry et champs inconnus : ignorés
+            }
+        }
+
+        private void dispatch() {
+            String type = eventType;
+            String payload = data.toString();
+            eventType = "";
+            data.setLength(0);
+            if (payload.isEmpty()) {
+                return;
+            }
+
+            if ("error".equals(type)) {
+                try {
+                    serverError = new JSONObject(payload).optString("error", payload);
+                } catch (JSONException e) {
+                    serverError = payload;
+                }
+                return;
+            }
+            received = true;
+            if ("ready".equals(type)) {
+                if (eventId != null) {
+                    lastEventId = eventId;
+                }
+                try {
+                    listener.onReady();
+                } catch (RuntimeException e) {
+                    listener.onError(e, true);
+                }
+                return;
+            }
+            ChangeEvent event;
+            try {
+                event = ChangeEvent.parse(payload);
+            } catch (IOException e) {
+                listener.onError(e, true);
+                return;
+            }
+            // Après RESET, l'ancien jeton ne sert plus : la vue est rechargée en entier
+            lastEventId = event.getType() == ChangeEvent.Type.RESET ? null : eventId;
+            try {
+                listener.onChange(event);
+            } catch (RuntimeException e) {
+                listener.onError(e, true);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // Transmis par la réponse (onDisconnected)
+        }
+
+        @Override
+        public void onComplete() {
+            // Idem
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.minicompass.demo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Écriture de texte UTF-8 dans un FileChannel à travers deux tampons de taille fixe :
+ * les caractères sont accumulés dans un CharBuffer, encodés par un CharsetEncoder
+ * dans un ByteBuffer direct, puis écrits dans le canal quand il est plein.
+ *
+ * La mémoire utilisée ne dépend pas de la quantité de texte écrite.
+ * Fermer le writer vide les tampons puis ferme le canal.
+ */
+final class ChannelTextWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+    private long bytesWritten = 0;
+
+    /** @param bufferSize taille du tampon d'octets (direct) ; le tampon de caractères en a le quart */
+    ChannelTextWriter(FileChannel channel, int bufferSize) {
+        if (bufferSize < 1024) {
+            throw new IllegalArgumentException("bufferSize must be >= 1024");
+        }
+        this.channel = channel;
+        this.bytes = ByteBuffer.allocateDirect(bufferSize);
+        this.chars = CharBuffer.allocate(bufferSize / 4);
+    }
+
+    ChannelTextWriter append(String text) throws IOException {
+        int start = 0;
+        int length = text.length();
+        while (start < length) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            int end = Math.min(length, start + chars.remaining());
+            chars.put(text, start, end);
+            start = end;
+        }
+        return this;
+    }
+
+    ChannelTextWriter append(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+        chars.put(c);
+        return this;
+    }
+
+    /** Octets déjà écrits dans le canal (hors tampons). */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            encode(true);
+            while (encoder.flush(bytes).isOverflow()) {
+                drain();
+            }
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /** Encode les caractères en attente ; un surrogate isolé en fin de tampon attend la suite. */
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                result.throwException();
+            }
+        }
+        chars.compact();
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            bytesWritten += channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
@@ -0,0 +1,96 @@
+package com.minicompass.demo;
+
+import java.time.Duration;
+
+/**
+ * Disjoncteur partagé par toutes les requêtes d'un ApiClient.
+ *
+ * - CLOSED : les requêtes passent ; failureThreshold échecs consécutifs l'ouvrent.
+ * - OPEN : les requêtes échouent immédiatement (CircuitOpenException) pendant openDuration.
+ * - HALF_OPEN : une seule requête d'essai passe ; succès → CLOSED, échec → OPEN.
+ *
+ * Un échec est une erreur réseau ou une réponse 502 / 503 / 504 ;
+ * les autres réponses, même en erreur, prouvent que l'API répond.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt;
+    private boolean probeInFlight = false;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be >= 1");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /** Ouvert après 5 échecs consécutifs, pendant 10 secondes. */
+    public static CircuitBreaker defaults() {
+        return new CircuitBreaker(5, Duration.ofSeconds(10));
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * À appeler avant chaque requête.
+     * @throws CircuitOpenException si le circuit est ouvert
+     */
+    synchronized void acquire() throws CircuitOpenException {
+        if (state == State.OPEN) {
+            long remaining = openNanos - (System.nanoTime() - openedAt);
+            if (remaining > 0) {
+                throw new CircuitOpenException(Duration.ofNanos(remaining));
+            }
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                throw new CircuitOpenException(Duration.ZERO);
+            }
+            probeInFlight = true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            probeInFlight = false;
+        }
+    }
+
+    /** Requête annulée par l'appelant : ni succès ni échec, mais l'essai est libéré. */
+    synchronized void onCancelled() {
+        probeInFlight = false;
+    }
+
+    /** Referme le circuit (par exemple après un changement de serveur). */
+    public synchronized void reset() {
+        onSuccess();
+    }
+}
@@ -0,0 +1,23 @@
+package com.minicompass.demo;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Requête refusée sans appel réseau : le CircuitBreaker est ouvert
+ * (l'API a échoué plusieurs fois de suite).
+ */
+public class CircuitOpenException extends IOException {
+
+    private final Duration retryAfter;
+
+    public CircuitOpenException(Duration retryAfter) {
+        super("API indisponible (circuit ouvert), nouvel essai dans " + retryAfter.toMillis() + " ms");
+        this.retryAfter = retryAfter;
+    }
+
+    /** Temps restant avant que le circuit laisse passer une requête d'essai. */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,356 @@
+package com.minicompass.demo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesures de ApiClient, par endpoint logique (la méthode de PathBuilder
+ * qui a produit le path, pas l'URL brute) :
+ * - durée de l'aller-retour HTTP (histogramme) ;
+ * - durée d'analyse de la réponse (parseCollections, parseDocumentsToDocumentSet) ;
+ * - octets reçus, nombre de requêtes et d'erreurs ;
+ * - nouvelles tentatives et requêtes doublées (ResilientSender).
+ *
+ * L'enregistrement ne prend aucun verrou (compteurs atomiques) ;
+ * snapshot() fournit une copie cohérente pour l'affichage.
+ */
+public class ClientMetrics {
+
+    /** Endpoints logiques, nommés d'après les méthodes de PathBuilder. */
+    public enum Endpoint {
+        COLLECTIONS("collectionsPath"),
+        DOCUMENTS("documentsPath + paginationQuery"),
+        SEARCH("documentsPath + searchQuery"),
+        QUERY("documentsPath + documentQuery"),
+        KEYSET("documentsPath + keysetQuery"),
+        INSERT("documentsPath"),
+        SINGLE_DOCUMENT("singleDocumentPath"),
+        BULK("bulkDocumentsPath"),
+        BULK_DELETE("bulkDeletePath"),
+        EXISTS("existsDocumentPath"),
+        HAS_DUPLICATE("hasDuplicatePath"),
+        COUNT("countPath + countQuery");
+
+        private final String route;
+
+        Endpoint(String route) {
+            this.route = route;
+        }
+
+        /** Méthode(s) de PathBuilder utilisée(s) pour cet endpoint. */
+        public String getRoute() {
+            return route;
+        }
+    }
+
+    private final Map<Endpoint, EndpointMetrics> byEndpoint = new EnumMap<>(Endpoint.class);
+    private volatile long startNanos = System.nanoTime();
+
+    public ClientMetrics() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            byEndpoint.put(endpoint, new EndpointMetrics());
+        }
+    }
+
+    // ---------------------------------------------------------
+    // Enregistrement
+    // ---------------------------------------------------------
+
+    public void recordRoundTrip(Endpoint endpoint, long nanos) {
+        EndpointMetrics m = byEndpoint.get(endpoint);
+        m.requests.increment();
+        m.roundTrip.record(nanos);
+    }
+
+    public void recordParse(Endpoint endpoint, long nanos) {
+        byEndpoint.get(endpoint).parse.record(nanos);
+    }
+
+    public void recordBytes(Endpoint endpoint, long bytes) {
+        byEndpoint.get(endpoint).bytes.add(bytes);
+    }
+
+    public void recordError(Endpoint endpoint) {
+        byEndpoint.get(endpoint).errors.increment();
+    }
+
+    public void recordRetry(Endpoint endpoint) {
+        byEndpoint.get(endpoint).retries.increment();
+    }
+
+    public void recordHedge(Endpoint endpoint) {
+        byEndpoint.get(endpoint).hedges.increment();
+    }
+
+    /** Percentile p (0..1) des allers-retours mesurés pour cet endpoint, en nanosecondes. */
+    long roundTripPercentileNanos(Endpoint endpoint, double p) {
+        return byEndpoint.get(endpoint).roundTrip.percentileNanos(p);
+    }
+
+    long roundTripCount(Endpoint endpoint) {
+        return byEndpoint.get(endpoint).roundTrip.count();
+    }
+
+    /** Remet tous les compteurs à zéro. */
+    public void reset() {
+        for (EndpointMetrics m : byEndpoint.values()) {
+            m.reset();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    public Snapshot snapshot() {
+        long elapsed = System.nanoTime() - startNanos;
+        List<EndpointStats> stats = new ArrayList<>();
+        for (Map.Entry<Endpoint, EndpointMetrics> e : byEndpoint.entrySet()) {
+            stats.add(e.getValue().toStats(e.getKey(), elapsed));
+        }
+        return new Snapshot(elapsed, stats);
+    }
+
+    // ---------------------------------------------------------
+    // Structures exposées
+    // ---------------------------------------------------------
+
+    public static class Snapshot {
+        private final long elapsedNanos;
+        private final List<EndpointStats> endpoints;
+
+        Snapshot(long elapsedNanos, List<EndpointStats> endpoints) {
+            this.elapsedNanos = elapsedNanos;
+            this.endpoints = Collections.unmodifiableList(endpoints);
+        }
+
+        /** Durée couverte par ces mesures (depuis la création ou le dernier reset). */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public List<EndpointStats> getEndpoints() {
+            return endpoints;
+        }
+
+        public EndpointStats get(Endpoint endpoint) {
+            for (EndpointStats stats : endpoints) {
+                if (stats.getEndpoint() == endpoint) {
+                    return stats;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static class EndpointStats {
+        private final Endpoint endpoint;
+        private final long requests;
+        private final long errors;
+        private final long bytes;
+        private final long retries;
+        private final long hedges;
+        private final double requestsPerSecond;
+        private final HistogramStats roundTrip;
+        private final HistogramStats parse;
+
+        EndpointStats(Endpoint endpoint, long requests, long errors, long bytes, long retries, long hedges,
+                double requestsPerSecond, HistogramStats roundTrip, HistogramStats parse) {
+            this.endpoint = endpoint;
+            this.requests = requests;
+            this.errors = errors;
+            this.bytes = bytes;
+            this.retries = retries;
+            this.hedges = hedges;
+            this.requestsPerSecond = requestsPerSecond;
+            this.roundTrip = roundTrip;
+            this.parse = parse;
+        }
+
+        public Endpoint getEndpoint() {
+            return endpoint;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        /** Octets reçus (corps des réponses). */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /** Nouvelles tentatives après une erreur réseau ou un 502 / 503 / 504. */
+        public long getRetries() {
+            return retries;
+        }
+
+        /** Requêtes doublées parce que la réponse tardait. */
+        public long getHedges() {
+            return hedges;
+        }
+
+        public double getRequestsPerSecond() {
+            return requestsPerSecond;
+        }
+
+        public HistogramStats getRoundTrip() {
+            return roundTrip;
+        }
+
+        public HistogramStats getParse() {
+            return parse;
+        }
+    }
+
+    /** Résumé d'un histogramme de durées, en millisecondes. */
+    public static class HistogramStats {
+        private final long count;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        HistogramStats(long count, double meanMillis, double p50Millis, double p95Millis,
+                double p99Millis, double maxMillis) {
+            this.count = count;
+            this.meanMillis = meanMillis;
+            this.p50Millis = p50Millis;
+            this.p95Millis = p95Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMillis() {
+            return meanMillis;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP95Millis() {
+            return p95Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+    }
+
+    // ---------------------------------------------------------
+    // Implémentation
+    // ---------------------------------------------------------
+
+    private static class EndpointMetrics {
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder hedges = new LongAdder();
+        final LatencyHistogram roundTrip = new LatencyHistogram();
+        final LatencyHistogram parse = new LatencyHistogram();
+
+        void reset() {
+            requests.reset();
+            errors.reset();
+            bytes.reset();
+            retries.reset();
+            hedges.reset();
+            roundTrip.reset();
+            parse.reset();
+        }
+
+        EndpointStats toStats(Endpoint endpoint, long elapsedNanos) {
+            long count = requests.sum();
+            double seconds = elapsedNanos / 1e9;
+            return new EndpointStats(endpoint, count, errors.sum(), bytes.sum(), retries.sum(), hedges.sum(),
+                    seconds > 0 ? count / seconds : 0, roundTrip.stats(), parse.stats());
+        }
+    }
+
+    /**
+     * Histogramme à seaux logarithmiques (puissances de 2 en microsecondes) :
+     * taille fixe, enregistrement en O(1) sans verrou.
+     * Les percentiles sont estimés par la borne haute du seau.
+     */
+    static class LatencyHistogram {
+        private static final int BUCKETS = 40;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder total = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            counts.incrementAndGet(bucket);
+            total.increment();
+            sumNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            total.reset();
+            sumNanos.reset();
+            maxNanos.set(0);
+        }
+
+        /** Estimation du percentile p (0..1), en nanosecondes. */
+        long percentileNanos(double p) {
+            long[] snapshot = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                count += snapshot[i];
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(p * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    long upperMicros = i == 0 ? 1 : 1L << i;
+                    return Math.min(upperMicros * 1000, maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+
+        long count() {
+            return total.sum();
+        }
+
+        HistogramStats stats() {
+            long count = total.sum();
+            double mean = count == 0 ? 0 : sumNanos.sum() / (double) count / 1e6;
+            return new HistogramStats(count, mean,
+                    percentileNanos(0.50) / 1e6,
+                    percentileNanos(0.95) / 1e6,
+                    percentileNanos(0.99) / 1e6,
+                    maxNanos.get() / 1e6);
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.minicompass.demo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONObject;
+
+import com.minicompass.demo.ApiClient.DocumentSet;
+
+/**
+ * DocumentSet stocké par colonnes.
+ *
+ * - Le schéma est l'union des champs de TOUS les documents (pas seulement du premier) ;
+ *   un champ absent d'un document vaut null.
+ * - Une colonne dont toutes les valeurs sont des entiers est stockée dans un long[],
+ *   des décimaux (mêlés ou non d'entiers) dans un double[], des booléens dans un BitSet ;
+ *   les autres (chaînes, sous-documents, types mélangés) dans un Object[].
+ * - Les valeurs nulles sont marquées dans un BitSet par colonne.
+ *
+ * getDocuments() reconstruit un Object[][] à chaque appel : préférer getValueAt,
+ * ou getLong / getDouble / isNull pour parcourir une colonne sans allocation.
+ */
+public class ColumnarDocumentSet extends DocumentSet {
+
+    public enum ColumnType {
+        /** Aucune valeur non nulle. */
+        EMPTY,
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        OBJECT
+    }
+
+    private final Column[] columns;
+    private final int rowCount;
+
+    private ColumnarDocumentSet(String[] fieldNames, Column[] columns, int rowCount) {
+        super(fieldNames);
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return columns[column].get(row);
+    }
+
+    @Override
+    public Object[][] getDocuments() {
+        Object[][] documents = new Object[rowCount][columns.length];
+        for (int j = 0; j < columns.length; j++) {
+            Column c = columns[j];
+            for (int i = 0; i < rowCount; i++) {
+                documents[i][j] = c.get(i);
+            }
+        }
+        return documents;
+    }
+
+    public ColumnType getColumnType(int column) {
+        return columns[column].type;
+    }
+
+    public boolean isNull(int row, int column) {
+        return columns[column].nulls.get(row);
+    }
+
+    /** Valeur d'une colonne LONG (0 si nulle). */
+    public long getLong(int row, int column) {
+        return columns[column].longs[row];
+    }
+
+    /** Valeur d'une colonne DOUBLE (0 si nulle). */
+    public double getDouble(int row, int column) {
+        return columns[column].doubles[row];
+    }
+
+    // ---------------------------------------------------------
+    // Stockage d'une colonne
+    // ---------------------------------------------------------
+
+    private static final class Column {
+        final ColumnType type;
+        final BitSet nulls;
+        final long[] longs;
+        final double[] doubles;
+        final BitSet booleans;
+        final Object[] objects;
+
+        Column(ColumnType type, BitSet nulls, long[] longs, double[] doubles, BitSet booleans, Object[] objects) {
+            this.type = type;
+            this.nulls = nulls;
+            this.longs = longs;
+            this.doubles = doubles;
+            this.booleans = booleans;
+            this.objects = objects;
+        }
+
+        Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            switch (type) {
+                case LONG:
+                    return longs[row];
+                case DOUBLE:
+                    return doubles[row];
+                case BOOLEAN:
+                    return booleans.get(row);
+                case OBJECT:
+                    return objects[row];
+                default:
+                    return null;
+            }
+        }
+    }
+
+    // ---------------------------------------------------------
+    // Construction en une passe
+    // ---------------------------------------------------------
+
+    /**
+     * Construit le DocumentSet ligne par ligne :
+     *
+     *   builder.startRow();
+     *   builder.set(builder.column("name"), "Alice");
+     *   builder.endRow();
+     *
+     * Une nouvelle colonne peut apparaître à n'importe quelle ligne :
+     * les lignes précédentes valent null pour ce champ.
+     */
+    public static class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> indexByName = new HashMap<>();
+        private final List<ColumnBuilder> builders = new ArrayList<>();
+        private int rowCount = 0;
+        private boolean inRow = false;
+
+        /** Index de la colonne (créée si elle n'existe pas encore). */
+        public int column(String name) {
+            Integer index = indexByName.get(name);
+            if (index != null) {
+                return index;
+            }
+            int created = names.size();
+            names.add(name);
+            indexByName.put(name, created);
+            builders.add(new ColumnBuilder());
+            return created;
+        }
+
+        public void startRow() {
+            inRow = true;
+        }
+
+        /** Valeur d'un champ de la ligne courante (un champ répété garde sa première valeur). */
+        public void set(int column, Object value) {
+            if (!inRow) {
+                throw new IllegalStateException("startRow() must be called first");
+            }
+            builders.get(column).set(rowCount, value);
+        }
+
+        public void endRow() {
+            inRow = false;
+            rowCount++;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public ColumnarDocumentSet build() {
+            Column[] columns = new Column[builders.size()];
+            for (int j = 0; j < columns.length; j++) {
+                columns[j] = builders.get(j).build(rowCount);
+            }
+            return new ColumnarDocumentSet(names.toArray(new String[0]), columns, rowCount);
+        }
+    }
+
+    /**
+     * Colonne en construction. Le type est déduit des valeurs :
+     * entiers seuls → LONG, décimaux (éventuellement mêlés d'entiers) → DOUBLE, booléens seuls → BOOLEAN,
+     * tout autre cas (dont un mélange de types) → OBJECT.
+     * Un entier hors de ±2^53 n'est pas représentable exactement en double : il fait passer
+     * une colonne mixte en OBJECT plutôt que d'être arrondi.
+     */
+    private static final class ColumnBuilder {
+        private ColumnType type = ColumnType.EMPTY;
+        private int size = 0;
+        private final BitSet nulls = new BitSet();
+        private long[] longs;
+        private double[] doubles;
+        private BitSet booleans;
+        private Object[] objects;
+
+        void set(int row, Object value) {
+            if (size > row) {
+                return; // champ répété dans le même document
+            }
+            if (size < row) {
+                nulls.set(size, row); // champ absent des documents précédents
+                size = row;
+            }
+
+            if (value == null || value == JSONObject.NULL) {
+                nulls.set(row);
+                size = row + 1;
+                return;
+            }
+
+            ColumnType valueType = typeOf(value);
+            if (type == ColumnType.EMPTY) {
+                allocate(valueType, Math.max(16, row + 1));
+            } else if (type != valueType && type != ColumnType.OBJECT) {
+                if (type == ColumnType.LONG && valueType == ColumnType.DOUBLE && longsFitInDoubles()) {
+                    toDoubles();
+                } else if (type != ColumnType.DOUBLE || valueType != ColumnType.LONG
+                        || !fitsInDouble(((Number) value).longValue())) {
+                    toObjects();
+                }
+            }
+
+            ensureCapacity(row + 1);
+            switch (type) {
+                case LONG:
+                    longs[row] = ((Number) value).longValue();
+                    break;
+                case DOUBLE:
+                    doubles[row] = ((Number) value).doubleValue();
+                    break;
+                case BOOLEAN:
+                    booleans.set(row, (Boolean) value);
+                    break;
+                default:
+                    objects[row] = value;
+                    break;
+            }
+            size = row + 1;
+        }
+
+        Column build(int rowCount) {
+            if (size < rowCount) {
+                nulls.set(size, rowCount);
+            }
+            switch (type) {
+                case LONG:
+                    return new Column(type, nulls, Arrays.copyOf(longs, rowCount), null, null, null);
+                case DOUBLE:
+                    return new Column(type, nulls, null, Arrays.copyOf(doubles, rowCount), null, null);
+                case BOOLEAN:
+                    return new Column(type, nulls, null, null, booleans, null);
+                case OBJECT:
+                    return new Column(type, nulls, null, null, null, Arrays.copyOf(objects, rowCount));
+                default:
+                    return new Column(ColumnType.EMPTY, nulls, null, null, null, null);
+            }
+        }
+
+        private static ColumnType typeOf(Object value) {
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return ColumnType.LONG;
+            }
+            if (value instanceof Double || value instanceof Float) {
+                return ColumnType.DOUBLE;
+            }
+            if (value instanceof Boolean) {
+                return ColumnType.BOOLEAN;
+            }
+            // String, BigInteger, BigDecimal, JSON imbriqué, ...
+            return ColumnType.OBJECT;
+        }
+
+        private void allocate(ColumnType newType, int capacity) {
+            type = newType;
+            switch (newType) {
+                case LONG:
+                    longs = new long[capacity];
+                    break;
+                case DOUBLE:
+                    doubles = new double[capacity];
+                    break;
+                case BOOLEAN:
+                    booleans = new BitSet(capacity);
+                    break;
+                default:
+                    objects = new Object[capacity];
+                    break;
+            }
+        }
+
+        private void ensureCapacity(int needed) {
+            switch (type) {
+                case LONG:
+                    if (longs.length < needed) {
+                        longs = Arrays.copyOf(longs, Math.max(needed, longs.length * 2));
+                    }
+                    break;
+                case DOUBLE:
+                    if (doubles.length < needed) {
+                        doubles = Arrays.copyOf(doubles, Math.max(needed, doubles.length * 2));
+                    }
+                    break;
+                case OBJECT:
+                    if (objects.length < needed) {
+                        objects = Arrays.copyOf(objects, Math.max(needed, objects.length * 2));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+        private static boolean fitsInDouble(long value) {
+            return value >= -MAX_EXACT_DOUBLE && value <= MAX_EXACT_DOUBLE;
+        }
+
+        private boolean longsFitInDoubles() {
+            for (int i = 0; i < size; i++) {
+                if (!nulls.get(i) && !fitsInDouble(longs[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Entiers puis décimaux : élargissement du long[] en double[]. */
+        private void toDoubles() {
+            double[] widened = new double[longs.length];
+            for (int i = 0; i < size; i++) {
+                widened[i] = longs[i];
+            }
+            longs = null;
+            doubles = widened;
+            type = ColumnType.DOUBLE;
+        }
+
+        /** Types mélangés : repli sur un Object[] (valeurs déjà lues converties en objets). */
+        private void toObjects() {
+            Object[] boxed = new Object[Math.max(16, size * 2)];
+            for (int i = 0; i < size; i++) {
+                if (nulls.get(i)) {
+                    continue;
+                }
+                switch (type) {
+                    case LONG:
+                        boxed[i] = longs[i];
+                        break;
+                    case DOUBLE:
+                        boxed[i] = doubles[i];
+                        break;
+                    case BOOLEAN:
+                        boxed[i] = booleans.get(i);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            longs = null;
+            doubles = null;
+            booleans = null;
+            objects = boxed;
+            type = ColumnType.OBJECT;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.minicompass.demo;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RequestLogger qui écrit sur la console.
+ *
+ * - le corps est tronqué à maxBodyChars caractères ;
+ * - seul un échange sur sampleEvery est écrit (1 = tous).
+ *
+ * Configuration par propriétés système (voir fromSystemProperties) :
+ *   -Dminicompass.log=OFF|BASIC|BODY   (OFF par défaut)
+ *   -Dminicompass.log.maxBody=2000
+ *   -Dminicompass.log.sampleEvery=1
+ */
+public class ConsoleRequestLogger implements RequestLogger {
+
+    private final Level level;
+    private final int maxBodyChars;
+    private final int sampleEvery;
+    private final PrintStream out;
+    private final AtomicLong counter = new AtomicLong();
+
+    public ConsoleRequestLogger(Level level, int maxBodyChars, int sampleEvery) {
+        this(level, maxBodyChars, sampleEvery, System.out);
+    }
+
+    public ConsoleRequestLogger(Level level, int maxBodyChars, int sampleEvery, PrintStream out) {
+        if (maxBodyChars < 0 || sampleEvery <= 0) {
+            throw new IllegalArgumentException("maxBodyChars must be >= 0 and sampleEvery > 0");
+        }
+        this.level = level;
+        this.maxBodyChars = maxBodyChars;
+        this.sampleEvery = sampleEvery;
+        this.out = out;
+    }
+
+    /**
+     * Logger configuré par les propriétés minicompass.log*.
+     * Retourne RequestLogger.NONE si la journalisation est désactivée.
+     */
+    public static RequestLogger fromSystemProperties() {
+        Level level;
+        try {
+            level = Level.valueOf(System.getProperty("minicompass.log", "OFF").trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            level = Level.OFF;
+        }
+        if (level == Level.OFF) {
+            return RequestLogger.NONE;
+        }
+        int maxBody = Integer.getInteger("minicompass.log.maxBody", 2000);
+        int sampleEvery = Integer.getInteger("minicompass.log.sampleEvery", 1);
+        return new ConsoleRequestLogger(level, Math.max(0, maxBody), Math.max(1, sampleEvery));
+    }
+
+    @Override
+    public boolean isEnabled(Level requested) {
+        return requested != Level.OFF && level.compareTo(requested) >= 0;
+    }
+
+    @Override
+    public void logExchange(String method, URI uri, int statusCode, long elapsedNanos, String body) {
+        if (sampleEvery > 1 && counter.getAndIncrement() % sampleEvery != 0) {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder(128);
+        sb.append('[').append(method).append("] ").append(uri)
+                .append(" -> ").append(statusCode)
+                .append(" (").append(elapsedNanos / 1_000_000).append(" ms)");
+
+        if (body != null && isEnabled(Level.BODY)) {
+            sb.append(System.lineSeparator()).append("Body: ");
+            if (body.length() > maxBodyChars) {
+                sb.append(body, 0, maxBodyChars)
+                        .append("... (").append(body.length() - maxBodyChars).append(" caractères tronqués)");
+            } else {
+                sb.append(body);
+            }
+        }
+
+        out.println(sb);
+    }
+}
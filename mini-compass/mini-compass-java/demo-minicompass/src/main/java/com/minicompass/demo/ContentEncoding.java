@@ -0,0 +1,74 @@
+package com.minicompass.demo;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Décompression des réponses (en-tête Content-Encoding).
+ *
+ * Le client annonce ACCEPT_ENCODING ; le serveur compresse les grosses réponses.
+ * La décompression se fait en flux : le JSON est analysé au fur et à mesure
+ * qu'il est décompressé, sans copie intermédiaire du corps décompressé.
+ *
+ * Brotli n'est pas proposé : le JDK ne fournit pas de décodeur.
+ */
+final class ContentEncoding {
+
+    /** Valeur de l'en-tête Accept-Encoding envoyé par ApiClient. */
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private ContentEncoding() {
+    }
+
+    /** Flux décompressé selon Content-Encoding (le flux lui-même sans en-tête ou "identity"). */
+    static InputStream decode(HttpHeaders headers, InputStream body) throws IOException {
+        String encoding = headers.firstValue("Content-Encoding").orElse("identity").trim().toLowerCase(Locale.ROOT);
+        switch (encoding) {
+            case "identity":
+            case "":
+                return body;
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(body, BUFFER_SIZE);
+            case "deflate":
+                return inflate(body);
+            default:
+                body.close();
+                throw new IOException("Unsupported Content-Encoding: " + encoding);
+        }
+    }
+
+    /** Corps complet décompressé puis décodé en UTF-8. */
+    static String decodeToString(HttpHeaders headers, byte[] body) throws IOException {
+        if (headers.firstValue("Content-Encoding").isEmpty()) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+        try (InputStream in = decode(headers, new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Format zlib (RFC 1950), celui de "deflate" en HTTP. L'Inflater est libéré à la fermeture. */
+    private static InputStream inflate(InputStream body) {
+        Inflater inflater = new Inflater();
+        return new InflaterInputStream(body, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package com.minicompass.demo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import com.minicompass.demo.ApiClient.DocumentSet;
+
+/**
+ * Itérateur sur toutes les pages d'une collection, par clé (afterId = dernier _id reçu)
+ * ou par limit / skip.
+ *
+ * Dès qu'une page est rendue par next(), la page suivante est demandée en
+ * arrière-plan : pendant que l'appelant traite la page N, la page N+1 est
+ * déjà en cours de téléchargement.
+ *
+ * Le parcours s'arrête à la première page incomplète (moins de pageSize documents).
+ * Les erreurs réseau sont relancées sous forme de UncheckedIOException.
+ */
+public class DocumentCursor implements Iterator<DocumentSet>, AutoCloseable {
+
+    private final int pageSize;
+    private final PageFetcher pageFetcher;
+
+    private CompletableFuture<DocumentSet> pending;
+    private int nextSkip;
+
+    /** Demande une page de façon asynchrone. */
+    @FunctionalInterface
+    interface PageFetcher {
+        /**
+         * @param skip    nombre de documents déjà rendus
+         * @param afterId _id du dernier document rendu, String ou Number (null pour la première
+         *                page, ou si ce _id n'est ni un texte ni un nombre : voir DocumentSet.getLastId)
+         */
+        CompletableFuture<DocumentSet> fetch(int skip, Object afterId);
+    }
+
+    /**
+     * @param pageSize    nombre de documents par page
+     * @param pageFetcher (skip, afterId) -> page demandée de façon asynchrone ;
+     *                    un curseur par clé utilise afterId, un curseur par skip utilise skip
+     */
+    DocumentCursor(int pageSize, PageFetcher pageFetcher) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be > 0");
+        }
+        this.pageSize = pageSize;
+        this.pageFetcher = pageFetcher;
+        this.nextSkip = 0;
+        this.pending = pageFetcher.fetch(0, null);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pending == null) {
+            return false;
+        }
+        if (await(pending).getRowCount() == 0) {
+            pending = null;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public DocumentSet next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        DocumentSet page = await(pending);
+        int count = page.getRowCount();
+        nextSkip += count;
+
+        // Préchargement de la page suivante
+        pending = count < pageSize ? null : pageFetcher.fetch(nextSkip, page.getLastId());
+
+        return page;
+    }
+
+    /** Annule le préchargement éventuellement en cours. */
+    @Override
+    public void close() {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    private static DocumentSet await(CompletableFuture<DocumentSet> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+}
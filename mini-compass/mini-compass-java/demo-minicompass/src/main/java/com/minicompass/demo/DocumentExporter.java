@@ -0,0 +1,358 @@
+package com.minicompass.demo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.json.JSONObject;
+
+/**
+ * Exporte une collection entière (éventuellement filtrée) dans un fichier NDJSON ou CSV.
+ *
+ * Les documents sont lus page par page (pagination par clé, voir ApiClient.fetchDocumentsAfter)
+ * et chaque document est écrit dès qu'il est lu dans la réponse : ni la collection,
+ * ni même une page entière ne sont gardées en mémoire. L'écriture passe par un
+ * FileChannel et des tampons de taille fixe (ChannelTextWriter) : la mémoire utilisée
+ * est la même pour 1 000 ou 10 millions de documents.
+ *
+ * Le fichier est écrit à côté de la cible (suffixe .part) puis renommé à la fin :
+ * un export annulé ou en échec ne laisse pas de fichier incomplet.
+ *
+ * Annulation : interrompre le thread qui exécute export() (SwingWorker.cancel(true)).
+ */
+public class DocumentExporter {
+
+    public enum Format {
+        /** Un document JSON par ligne, tel que renvoyé par le serveur (sous-documents compris). */
+        NDJSON,
+        /**
+         * Une ligne par document (RFC 4180). Les colonnes sont les champs du premier document ;
+         * les champs apparus ensuite sont ignorés (voir Progress.getIgnoredFields).
+         * Sous-documents et tableaux : JSON compact dans la cellule.
+         */
+        CSV
+    }
+
+    /** Appelé après chaque page, sur le thread de l'export. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(Progress progress);
+    }
+
+    /** État d'avancement d'un export. */
+    public static final class Progress {
+        private final long documents;
+        private final long totalDocuments;
+        private final long bytesWritten;
+        private final long elapsedNanos;
+        private final Set<String> ignoredFields;
+
+        Progress(long documents, long totalDocuments, long bytesWritten, long elapsedNanos, Set<String> ignoredFields) {
+            this.documents = documents;
+            this.totalDocuments = totalDocuments;
+            this.bytesWritten = bytesWritten;
+            this.elapsedNanos = elapsedNanos;
+            this.ignoredFields = ignoredFields;
+        }
+
+        public long getDocuments() {
+            return documents;
+        }
+
+        /** Nombre de documents annoncé par le serveur (estimation sans filtre), -1 s'il est inconnu. */
+        public long getTotalDocuments() {
+            return totalDocuments;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /** Débit d'écriture moyen depuis le début, en Mo/s. */
+        public double getMegabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytesWritten / 1e6 / (elapsedNanos / 1e9);
+        }
+
+        /** CSV : champs absents du premier document, donc sans colonne. */
+        public Set<String> getIgnoredFields() {
+            return ignoredFields;
+        }
+    }
+
+    /** Au-delà, les champs ignorés ne sont plus mémorisés (mémoire bornée). */
+    private static final int MAX_IGNORED_FIELDS = 100;
+
+    private final ApiClient client;
+    private final int pageSize;
+    private final int bufferSize;
+
+    /** Pages de 5 000 documents, tampon d'écriture de 256 Ko. */
+    public DocumentExporter(ApiClient client) {
+        this(client, 5000, 256 * 1024);
+    }
+
+    public DocumentExporter(ApiClient client, int pageSize, int bufferSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be > 0");
+        }
+        this.client = client;
+        this.pageSize = pageSize;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Exporte les documents retenus par query (null : toute la collection) dans target.
+     * Appel bloquant. Le tri de query doit être vide : les documents sont exportés dans l'ordre de _id.
+     *
+     * @throws InterruptedException si le thread est interrompu (export annulé, fichier supprimé)
+     */
+    public Progress export(String collectionName, DocumentQuery query, Format format, Path target,
+            ProgressListener listener) throws IOException, InterruptedException {
+        long total;
+        try {
+            total = client.countDocuments(collectionName, query);
+        } catch (IOException e) {
+            total = -1; // l'export reste possible, sans pourcentage
+        }
+
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        Export export = new Export(format, total, listener);
+        boolean done = false;
+        try {
+            FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            try (ChannelTextWriter out = new ChannelTextWriter(channel, bufferSize)) {
+                export.out = out;
+                Object afterId = null;
+                int count;
+                do {
+                    export.pageCount = 0;
+                    export.lastId = null;
+                    client.readDocumentsAfter(collectionName, query, afterId, pageSize, export::readPage);
+                    count = export.pageCount;
+                    afterId = export.lastId;
+                    export.report();
+                    // Page pleine sans _id utilisable pour la suivante : export incomplet, donc en échec
+                    if (count == pageSize && afterId == null) {
+                        throw new IOException("Export stopped after " + export.documents
+                                + " documents: the last _id is neither a string, an ObjectId nor a number");
+                    }
+                } while (count == pageSize);
+            }
+            move(partial, target);
+            done = true;
+            return export.progress();
+        } catch (InterruptedIOException | ClosedByInterruptException e) {
+            throw new InterruptedException("Export cancelled");
+        } finally {
+            if (!done) {
+                Files.deleteIfExists(partial);
+            }
+        }
+    }
+
+    /** Écriture en cours : un objet par appel à export(). */
+    private static final class Export {
+        final Format format;
+        final long total;
+        final ProgressListener listener;
+        final long start = System.nanoTime();
+
+        ChannelTextWriter out;
+        List<String> columns;
+        final Set<String> ignoredFields = new LinkedHashSet<>();
+        long documents = 0;
+        int pageCount;
+        /** _id du dernier document lu (String ou Number), null s'il n'en a pas d'utilisable. */
+        Object lastId;
+
+        Export(Format format, long total, ProgressListener listener) {
+            this.format = format;
+            this.total = total;
+            this.listener = listener;
+        }
+
+        /** Lit une réponse { "documents": [...] } et écrit chaque document au fil de la lecture. */
+        Void readPage(InputStream body) throws IOException {
+            try (JsonTokenReader reader = new JsonTokenReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                if (reader.peek() != JsonTokenReader.Token.BEGIN_OBJECT) {
+                    throw new IOException("Unexpected response");
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if ("documents".equals(name) && reader.peek() == JsonTokenReader.Token.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            if (Thread.interrupted()) {
+                                throw new InterruptedIOException("Export cancelled");
+                            }
+                            if (reader.peek() != JsonTokenReader.Token.BEGIN_OBJECT) {
+                                reader.skipValue();
+                                continue;
+                            }
+                            lastId = null;
+                            if (format == Format.CSV) {
+                                writeCsvRow(reader);
+                            } else {
+                                writeJsonLine(reader);
+                            }
+                            pageCount++;
+                            documents++;
+                        }
+                        reader.endArray();
+                    } else if ("error".equals(name) && reader.peek() == JsonTokenReader.Token.STRING) {
+                        throw new IOException("Server error: " + reader.nextString());
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            return null;
+        }
+
+        private void writeJsonLine(JsonTokenReader reader) throws IOException {
+            out.append('{');
+            reader.beginObject();
+            boolean first = true;
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                out.append(JSONObject.quote(name)).append(':');
+                if ("_id".equals(name) && reader.peek() == JsonTokenReader.Token.STRING) {
+                    String id = reader.nextString();
+                    lastId = id;
+                    out.append(JSONObject.quote(id));
+                } else if ("_id".equals(name) && reader.peek() == JsonTokenReader.Token.NUMBER) {
+                    // Gardé comme nombre : la page suivante compare des nombres
+                    Number id = reader.nextNumber();
+                    lastId = id;
+                    out.append(JSONObject.numberToString(id));
+                } else {
+                    out.append(reader.nextRawValue());
+                }
+            }
+            reader.endObject();
+            out.append("}\n");
+        }
+
+        private void writeCsvRow(JsonTokenReader reader) throws IOException {
+            // Colonnes : champs du premier document (lu en entier une seule fois)
+            List<String> names = new ArrayList<>();
+            List<String> values = new ArrayList<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                names.add(name);
+                if ("_id".equals(name) && reader.peek() == JsonTokenReader.Token.NUMBER) {
+                    Number id = reader.nextNumber();
+                    lastId = id;
+                    values.add(JSONObject.numberToString(id));
+                } else if ("_id".equals(name) && reader.peek() == JsonTokenReader.Token.STRING) {
+                    String id = reader.nextString();
+                    lastId = id;
+                    values.add(id);
+                } else {
+                    values.add(cellValue(reader));
+                }
+            }
+            reader.endObject();
+
+            if (columns == null) {
+                columns = names;
+                writeCsvLine(columns);
+            }
+
+            String[] row = new String[columns.size()];
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                int column = columns.indexOf(name);
+                if (column >= 0) {
+                    row[column] = values.get(i);
+                } else if (ignoredFields.size() < MAX_IGNORED_FIELDS) {
+                    ignoredFields.add(name);
+                }
+            }
+            List<String> line = new ArrayList<>(row.length);
+            Collections.addAll(line, row);
+            writeCsvLine(line);
+        }
+
+        /** Texte d'une cellule : chaîne telle quelle, null vide, le reste en JSON compact. */
+        private static String cellValue(JsonTokenReader reader) throws IOException {
+            switch (reader.peek()) {
+                case STRING:
+                    return reader.nextString();
+                case NULL:
+                    reader.nextNull();
+                    return null;
+                default:
+                    return reader.nextRawValue();
+            }
+        }
+
+        private void writeCsvLine(List<String> cells) throws IOException {
+            for (int i = 0; i < cells.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                String cell = cells.get(i);
+                if (cell != null) {
+                    out.append(csvEscape(cell));
+                }
+            }
+            out.append("\r\n");
+        }
+
+        void report() {
+            if (listener != null) {
+                listener.onProgress(progress());
+            }
+        }
+
+        Progress progress() {
+            return new Progress(documents, total, out.getBytesWritten(), System.nanoTime() - start,
+                    Collections.unmodifiableSet(new LinkedHashSet<>(ignoredFields)));
+        }
+    }
+
+    /** RFC 4180 : entre guillemets si la cellule contient , " ou un saut de ligne ; " doublé. */
+    static String csvEscape(String cell) {
+        boolean quote = false;
+        for (int i = 0; i < cell.length() && !quote; i++) {
+            char c = cell.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? '"' + cell.replace("\"", "\"\"") + '"' : cell;
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
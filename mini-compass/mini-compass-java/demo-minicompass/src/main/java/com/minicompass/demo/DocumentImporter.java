@@ -0,0 +1,846 @@
+package com.minicompass.demo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.minicompass.demo.ApiClient.BulkResult;
+import com.minicompass.demo.ApiClient.ItemResult;
+import com.minicompass.demo.DocumentExporter.Format;
+
+/**
+ * Importe un fichier NDJSON ou CSV (mêmes formats que DocumentExporter) dans une collection.
+ *
+ * Le thread appelant lit le fichier en flux (FileChannel, tampon de taille fixe) et le découpe
+ * en paquets d'au plus chunkSize enregistrements et MAX_CHUNK_BYTES octets (limite du corps
+ * des requêtes côté serveur). Les paquets passent par une file bornée : quand les
+ * envois prennent du retard, la lecture attend (contre-pression) et la mémoire reste bornée
+ * à quelques paquets, quelle que soit la taille du fichier. parallelism threads analysent
+ * chaque paquet puis l'envoient en une requête groupée (POST .../documents/bulk).
+ *
+ * Reprise : après chaque paquet, l'avancement est enregistré à côté du fichier (stateFile) :
+ * position jusqu'à laquelle tout a été envoyé, plus les paquets déjà envoyés au-delà
+ * (les envois sont concurrents et ne se terminent pas dans l'ordre). Un import annulé,
+ * interrompu ou dont des paquets n'ont pas pu être envoyés reprend là, sans renvoyer
+ * ce qui a déjà été inséré.
+ *
+ * Annulation : interrompre le thread qui exécute importFile() (SwingWorker.cancel(true)).
+ */
+public class DocumentImporter {
+
+    /** Appelé après chaque paquet, sur un des threads d'envoi. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(Progress progress);
+    }
+
+    /** Enregistrement non inséré : position dans le fichier et raison. */
+    public static final class Failure {
+        private final long offset;
+        private final int documents;
+        private final String message;
+
+        Failure(long offset, int documents, String message) {
+            this.offset = offset;
+            this.documents = documents;
+            this.message = message;
+        }
+
+        /** Position (en octets) de l'enregistrement, ou du début du paquet. */
+        public long getOffset() {
+            return offset;
+        }
+
+        /** 1 pour un document refusé, la taille du paquet pour un envoi en échec. */
+        public int getDocuments() {
+            return documents;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /** État d'avancement d'un import (cumulé depuis le premier lancement s'il a été repris). */
+    public static final class Progress {
+        private final long documentsInserted;
+        private final long documentsFailed;
+        private final long documentsThisRun;
+        private final long bytesDone;
+        private final long totalBytes;
+        private final long elapsedNanos;
+        private final int failedChunks;
+        private final boolean complete;
+        private final List<Failure> failures;
+
+        Progress(long documentsInserted, long documentsFailed, long documentsThisRun, long bytesDone, long totalBytes,
+                long elapsedNanos, int failedChunks, boolean complete, List<Failure> failures) {
+            this.documentsInserted = documentsInserted;
+            this.documentsFailed = documentsFailed;
+            this.documentsThisRun = documentsThisRun;
+            this.bytesDone = bytesDone;
+            this.totalBytes = totalBytes;
+            this.elapsedNanos = elapsedNanos;
+            this.failedChunks = failedChunks;
+            this.complete = complete;
+            this.failures = failures;
+        }
+
+        public long getDocumentsInserted() {
+            return documentsInserted;
+        }
+
+        /** Documents refusés (JSON/CSV invalide, refus du serveur). */
+        public long getDocumentsFailed() {
+            return documentsFailed;
+        }
+
+        /** Octets du fichier déjà traités (paquets envoyés). */
+        public long getBytesDone() {
+            return bytesDone;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /** Débit d'insertion de ce lancement, en documents par seconde. */
+        public double getDocumentsPerSecond() {
+            return elapsedNanos == 0 ? 0 : documentsThisRun / (elapsedNanos / 1e9);
+        }
+
+        /** Paquets non envoyés (erreur réseau) : ils seront renvoyés à la reprise. */
+        public int getFailedChunks() {
+            return failedChunks;
+        }
+
+        /** Fichier lu jusqu'au bout et tous les paquets envoyés. */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /** Échecs de ce lancement (au plus MAX_FAILURES). */
+        public List<Failure> getFailures() {
+            return failures;
+        }
+    }
+
+    /** Au-delà, les échecs sont comptés mais plus mémorisés (mémoire bornée). */
+    static final int MAX_FAILURES = 1000;
+
+    /** Après autant de paquets non envoyés d'affilée, le serveur est jugé injoignable : l'import s'arrête. */
+    private static final int MAX_CONSECUTIVE_CHUNK_FAILURES = 3;
+
+    /** Annulation : délai laissé aux envois en cours pour se terminer. */
+    private static final int IN_FLIGHT_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Taille maximale d'un paquet, en JSON estimé : sous la limite du corps JSON côté serveur
+     * (16 Mo), avec une marge pour les échappements. Un enregistrement plus grand n'est pas envoyé
+     * (échec de cet enregistrement seul) : même seul dans son paquet, le serveur le refuserait.
+     */
+    private static final int MAX_CHUNK_BYTES = 12 * 1024 * 1024;
+
+    private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9]\\d*)(\\.\\d+)?([eE][+-]?\\d+)?");
+
+    private final ApiClient client;
+    private final int chunkSize;
+    private final int parallelism;
+
+    /** Paquets de 500 documents, 4 envois simultanés. */
+    public DocumentImporter(ApiClient client) {
+        this(client, 500, 4);
+    }
+
+    public DocumentImporter(ApiClient client, int chunkSize, int parallelism) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be > 0");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be > 0");
+        }
+        this.client = client;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /** Fichier d'avancement d'un import : à côté du fichier importé, suffixe .import. */
+    public static Path stateFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".import");
+    }
+
+    /**
+     * Octets déjà traités par un import précédent de ce fichier vers cette collection,
+     * ou -1 s'il n'y a rien à reprendre (pas d'import interrompu, ou fichier modifié depuis).
+     */
+    public static long resumableBytes(Path file, String collectionName) throws IOException {
+        State state = State.load(stateFile(file), collectionName, file);
+        return state == null ? -1 : state.bytesDone();
+    }
+
+    /**
+     * Importe file dans la collection. Appel bloquant.
+     *
+     * @param resume reprendre un import précédent de ce fichier (voir resumableBytes), sinon tout le fichier
+     * @throws InterruptedException si le thread est interrompu (l'avancement est enregistré)
+     */
+    public Progress importFile(String collectionName, Path file, Format format, boolean resume,
+            ProgressListener listener) throws IOException, InterruptedException {
+        Path statePath = stateFile(file);
+        State state = resume ? State.load(statePath, collectionName, file) : null;
+        if (state == null) {
+            state = new State(collectionName, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+        }
+
+        Import run = new Import(collectionName, format, state, statePath, listener);
+        // File bornée : au plus 2 paquets en attente par thread d'envoi
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(2 * parallelism);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < parallelism; i++) {
+            workers.execute(() -> run.work(queue));
+        }
+
+        boolean endOfFile = false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            endOfFile = read(new RecordReader(channel), run, queue);
+            for (int i = 0; i < parallelism; i++) {
+                queue.put(Chunk.END);
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException | InterruptedIOException | ClosedByInterruptException e) {
+            // Les paquets en attente ne sont pas envoyés ; les envois en cours se terminent et sont
+            // enregistrés (interrompus, le serveur aurait pu les insérer sans qu'on le sache : doublons à la reprise)
+            run.stop();
+            queue.clear();
+            for (int i = 0; i < parallelism; i++) {
+                queue.offer(Chunk.END);
+            }
+            workers.shutdown();
+            awaitInFlight(workers);
+            run.saveState();
+            throw new InterruptedException("Import cancelled");
+        } finally {
+            workers.shutdownNow();
+        }
+
+        boolean complete = endOfFile && run.isSuccessful();
+        if (complete) {
+            Files.deleteIfExists(statePath);
+        } else {
+            run.saveState();
+        }
+        return run.progress(complete);
+    }
+
+    /**
+     * Découpe le fichier en paquets et les met dans la file (bloque quand elle est pleine).
+     * Les zones déjà envoyées lors d'un import précédent sont sautées.
+     *
+     * @return true si le fichier a été lu jusqu'au bout
+     */
+    private boolean read(RecordReader reader, Import run, BlockingQueue<Chunk> queue)
+            throws IOException, InterruptedException {
+        boolean csv = run.format == Format.CSV;
+        if (csv) {
+            String header = nextNonBlank(reader);
+            if (header == null) {
+                return true;
+            }
+            run.columns = parseCsvLine(header).toArray(new String[0]);
+            run.startAfterHeader(reader.position());
+        }
+        reader.seek(run.committedOffset());
+
+        // En CSV, chaque document envoyé répète les noms des colonnes : "nom":"valeur",
+        long recordOverhead = 0;
+        if (csv) {
+            for (String column : run.columns) {
+                recordOverhead += column.getBytes(StandardCharsets.UTF_8).length + 6;
+            }
+        }
+
+        List<String> records = new ArrayList<>(chunkSize);
+        List<Long> offsets = new ArrayList<>(chunkSize);
+        long chunkStart = reader.position();
+        long chunkBytes = 0;
+        while (!run.isStopped()) {
+            long position = reader.position();
+            long doneEnd = run.doneRangeEnd(position);
+            if (doneEnd >= 0) {
+                if (chunkStart < position) {
+                    queue.put(new Chunk(chunkStart, position, records, offsets));
+                    records = new ArrayList<>(chunkSize);
+                    offsets = new ArrayList<>(chunkSize);
+                    chunkBytes = 0;
+                }
+                reader.seek(doneEnd);
+                chunkStart = doneEnd;
+                continue;
+            }
+
+            String record = reader.next(csv);
+            if (record == null) {
+                if (chunkStart < reader.position()) {
+                    queue.put(new Chunk(chunkStart, reader.position(), records, offsets));
+                }
+                return true;
+            }
+            long recordBytes = reader.position() - position + recordOverhead;
+            if (record.isBlank() && !reader.isTooLarge()) {
+                continue;
+            }
+            if (reader.isTooLarge() || recordBytes > MAX_CHUNK_BYTES) {
+                // Refusé seul : le paquet en cours est envoyé, l'enregistrement compte comme un échec
+                if (chunkStart < position) {
+                    queue.put(new Chunk(chunkStart, position, records, offsets));
+                    records = new ArrayList<>(chunkSize);
+                    offsets = new ArrayList<>(chunkSize);
+                    chunkBytes = 0;
+                }
+                queue.put(Chunk.tooLarge(position, reader.position()));
+                chunkStart = reader.position();
+                continue;
+            }
+            if (!records.isEmpty() && chunkBytes + recordBytes > MAX_CHUNK_BYTES) {
+                queue.put(new Chunk(chunkStart, position, records, offsets));
+                records = new ArrayList<>(chunkSize);
+                offsets = new ArrayList<>(chunkSize);
+                chunkBytes = 0;
+                chunkStart = position;
+            }
+            records.add(record);
+            offsets.add(position);
+            chunkBytes += recordBytes;
+            if (records.size() == chunkSize) {
+                queue.put(new Chunk(chunkStart, reader.position(), records, offsets));
+                records = new ArrayList<>(chunkSize);
+                offsets = new ArrayList<>(chunkSize);
+                chunkBytes = 0;
+                chunkStart = reader.position();
+            }
+        }
+        return false;
+    }
+
+    private static String nextNonBlank(RecordReader reader) throws IOException {
+        String record;
+        do {
+            record = reader.next(true);
+        } while (record != null && record.isBlank());
+        return record;
+    }
+
+    /**
+     * Attend la fin des envois en cours (au plus IN_FLIGHT_TIMEOUT_SECONDS). L'interruption est effacée :
+     * l'appelant lève InterruptedException ensuite, et doit encore écrire le fichier d'avancement.
+     */
+    private static void awaitInFlight(ExecutorService workers) {
+        Thread.interrupted();
+        try {
+            workers.awaitTermination(IN_FLIGHT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            // deuxième interruption : on n'attend plus
+        }
+    }
+
+    /** Enregistrements consécutifs du fichier, de start (inclus) à end (exclu). */
+    private static final class Chunk {
+        static final Chunk END = new Chunk(-1, -1, Collections.emptyList(), Collections.emptyList());
+
+        final long start;
+        final long end;
+        final List<String> records;
+        final List<Long> offsets;
+        /** Un seul enregistrement, trop grand pour être envoyé (contenu non gardé). */
+        final boolean tooLarge;
+
+        Chunk(long start, long end, List<String> records, List<Long> offsets) {
+            this(start, end, records, offsets, false);
+        }
+
+        private Chunk(long start, long end, List<String> records, List<Long> offsets, boolean tooLarge) {
+            this.start = start;
+            this.end = end;
+            this.records = records;
+            this.offsets = offsets;
+            this.tooLarge = tooLarge;
+        }
+
+        static Chunk tooLarge(long start, long end) {
+            return new Chunk(start, end, Collections.emptyList(), Collections.emptyList(), true);
+        }
+    }
+
+    /** Import en cours : un objet par appel à importFile(), partagé par les threads d'envoi. */
+    private final class Import {
+        final String collectionName;
+        final Format format;
+        final State state;
+        final Path statePath;
+        final ProgressListener listener;
+        final long start = System.nanoTime();
+
+        volatile String[] columns;
+        volatile boolean stopped = false;
+
+        // Protégés par this
+        final List<Failure> failures = new ArrayList<>();
+        long documentsThisRun = 0;
+        int failedChunks = 0;
+        int consecutiveChunkFailures = 0;
+        IOException stateError;
+
+        Import(String collectionName, Format format, State state, Path statePath, ProgressListener listener) {
+            this.collectionName = collectionName;
+            this.format = format;
+            this.state = state;
+            this.statePath = statePath;
+            this.listener = listener;
+        }
+
+        void work(BlockingQueue<Chunk> queue) {
+            while (true) {
+                Chunk chunk;
+                try {
+                    chunk = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (chunk == Chunk.END) {
+                    return;
+                }
+                if (stopped) {
+                    continue; // import arrêté : les paquets restants seront envoyés à la reprise
+                }
+                try {
+                    send(chunk);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private void send(Chunk chunk) throws InterruptedException {
+            if (chunk.tooLarge) {
+                chunkDone(chunk, 0, List.of(new Failure(chunk.start, 1, "Enregistrement trop volumineux ("
+                        + (chunk.end - chunk.start) + " octets, " + MAX_CHUNK_BYTES + " au plus)")));
+                return;
+            }
+            JSONArray documents = new JSONArray();
+            List<Long> sentOffsets = new ArrayList<>(chunk.records.size());
+            List<Failure> rejected = new ArrayList<>();
+            for (int i = 0; i < chunk.records.size(); i++) {
+                long offset = chunk.offsets.get(i);
+                try {
+                    documents.put(format == Format.CSV
+                            ? parseCsvDocument(chunk.records.get(i), columns)
+                            : new JSONObject(chunk.records.get(i)));
+                    sentOffsets.add(offset);
+                } catch (JSONException | IllegalArgumentException e) {
+                    rejected.add(new Failure(offset, 1, "Enregistrement invalide : " + e.getMessage()));
+                }
+            }
+
+            int inserted = 0;
+            if (documents.length() > 0) {
+                BulkResult result;
+                try {
+                    result = client.insertJsonDocuments(collectionName, documents);
+                } catch (IOException | RuntimeException e) {
+                    chunkFailed(chunk, documents.length(), e);
+                    return;
+                }
+                for (ItemResult item : result.getItems()) {
+                    if (item.isSuccess()) {
+                        inserted++;
+                    } else {
+                        rejected.add(new Failure(sentOffsets.get(item.getIndex()), 1, item.getError()));
+                    }
+                }
+            }
+            chunkDone(chunk, inserted, rejected);
+        }
+
+        private synchronized void chunkDone(Chunk chunk, int inserted, List<Failure> rejected) {
+            consecutiveChunkFailures = 0;
+            documentsThisRun += inserted;
+            addFailures(rejected);
+            state.commit(chunk.start, chunk.end, inserted, rejected.size());
+            saveState();
+            report();
+        }
+
+        private synchronized void chunkFailed(Chunk chunk, int documents, Exception e) {
+            failedChunks++;
+            addFailures(List.of(new Failure(chunk.start, documents,
+                    "Paquet non envoyé : " + (e.getMessage() != null ? e.getMessage() : e.toString()))));
+            if (++consecutiveChunkFailures >= MAX_CONSECUTIVE_CHUNK_FAILURES) {
+                stopped = true;
+            }
+            report();
+        }
+
+        private void addFailures(List<Failure> more) {
+            for (Failure failure : more) {
+                if (failures.size() >= MAX_FAILURES) {
+                    break;
+                }
+                failures.add(failure);
+            }
+        }
+
+        private void report() {
+            if (listener != null) {
+                listener.onProgress(progress(false));
+            }
+        }
+
+        synchronized Progress progress(boolean complete) {
+            return new Progress(state.inserted, state.failed, documentsThisRun, state.bytesDone(), state.fileSize,
+                    System.nanoTime() - start, failedChunks, complete, new ArrayList<>(failures));
+        }
+
+        synchronized void saveState() {
+            try {
+                state.save(statePath);
+            } catch (IOException e) {
+                if (stateError == null) {
+                    stateError = e;
+                }
+            }
+        }
+
+        synchronized boolean isSuccessful() throws IOException {
+            if (stateError != null) {
+                throw stateError;
+            }
+            return failedChunks == 0 && !stopped;
+        }
+
+        synchronized void startAfterHeader(long headerEnd) {
+            if (state.committed < headerEnd) {
+                state.committed = headerEnd;
+            }
+        }
+
+        synchronized long committedOffset() {
+            return state.committed;
+        }
+
+        synchronized long doneRangeEnd(long position) {
+            Long end = state.done.get(position);
+            return end == null ? -1 : end;
+        }
+
+        void stop() {
+            stopped = true;
+        }
+
+        boolean isStopped() {
+            return stopped;
+        }
+    }
+
+    /**
+     * Avancement enregistré dans le fichier .import : tout est envoyé avant committed ;
+     * done contient les paquets envoyés au-delà (début → fin).
+     */
+    private static final class State {
+        final String collectionName;
+        final long fileSize;
+        final long lastModified;
+        long committed = 0;
+        final TreeMap<Long, Long> done = new TreeMap<>();
+        long inserted = 0;
+        long failed = 0;
+
+        State(String collectionName, long fileSize, long lastModified) {
+            this.collectionName = collectionName;
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+        }
+
+        void commit(long start, long end, int insertedCount, int failedCount) {
+            inserted += insertedCount;
+            failed += failedCount;
+            done.put(start, end);
+            Long next;
+            while ((next = done.remove(committed)) != null) {
+                committed = next;
+            }
+        }
+
+        long bytesDone() {
+            long bytes = committed;
+            for (Map.Entry<Long, Long> range : done.entrySet()) {
+                bytes += range.getValue() - range.getKey();
+            }
+            return bytes;
+        }
+
+        void save(Path path) throws IOException {
+            Properties properties = new Properties();
+            properties.setProperty("collection", collectionName);
+            properties.setProperty("fileSize", Long.toString(fileSize));
+            properties.setProperty("lastModified", Long.toString(lastModified));
+            properties.setProperty("committed", Long.toString(committed));
+            properties.setProperty("inserted", Long.toString(inserted));
+            properties.setProperty("failed", Long.toString(failed));
+            StringBuilder ranges = new StringBuilder();
+            for (Map.Entry<Long, Long> range : done.entrySet()) {
+                if (ranges.length() > 0) {
+                    ranges.append(',');
+                }
+                ranges.append(range.getKey()).append('-').append(range.getValue());
+            }
+            properties.setProperty("done", ranges.toString());
+
+            // Écrit à côté puis renommé : un arrêt brutal ne laisse pas un fichier à moitié écrit
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "Import en cours");
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        /** null si rien à reprendre : pas de fichier d'avancement, autre collection ou fichier modifié. */
+        static State load(Path path, String collectionName, Path file) throws IOException {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(path)) {
+                properties.load(in);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+            try {
+                State state = new State(properties.getProperty("collection"),
+                        Long.parseLong(properties.getProperty("fileSize")),
+                        Long.parseLong(properties.getProperty("lastModified")));
+                if (!collectionName.equals(state.collectionName)
+                        || state.fileSize != Files.size(file)
+                        || state.lastModified != Files.getLastModifiedTime(file).toMillis()) {
+                    return null;
+                }
+                state.committed = Long.parseLong(properties.getProperty("committed"));
+                state.inserted = Long.parseLong(properties.getProperty("inserted", "0"));
+                state.failed = Long.parseLong(properties.getProperty("failed", "0"));
+                for (String range : properties.getProperty("done", "").split(",")) {
+                    if (!range.isEmpty()) {
+                        String[] bounds = range.split("-");
+                        state.done.put(Long.parseLong(bounds[0]), Long.parseLong(bounds[1]));
+                    }
+                }
+                return state;
+            } catch (NumberFormatException | NullPointerException | ArrayIndexOutOfBoundsException e) {
+                return null; // fichier d'avancement illisible : import depuis le début
+            }
+        }
+    }
+
+    /**
+     * Lecture du fichier enregistrement par enregistrement, avec la position en octets de chacun.
+     * Tampon de lecture de taille fixe ; en CSV, un saut de ligne entre guillemets ne termine pas l'enregistrement.
+     */
+    private static final class RecordReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        private byte[] record = new byte[1024];
+        private long position;
+        private boolean tooLarge;
+
+        RecordReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            seek(0);
+        }
+
+        long position() {
+            return position;
+        }
+
+        void seek(long newPosition) throws IOException {
+            channel.position(newPosition);
+            buffer.clear().flip();
+            position = newPosition;
+        }
+
+        /** true si le dernier enregistrement lu dépassait MAX_CHUNK_BYTES : next() l'a sauté et rendu vide. */
+        boolean isTooLarge() {
+            return tooLarge;
+        }
+
+        /** Enregistrement suivant sans fin de ligne (\n ou \r\n), null à la fin du fichier. */
+        String next(boolean csv) throws IOException {
+            long recordStart = position;
+            int length = 0;
+            boolean inQuotes = false;
+            boolean any = false;
+            tooLarge = false;
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    buffer.clear();
+                    int read = channel.read(buffer);
+                    buffer.flip();
+                    if (read < 0) {
+                        if (!any) {
+                            return null;
+                        }
+                        break;
+                    }
+                    continue;
+                }
+                byte b = buffer.get();
+                position++;
+                any = true;
+                if (b == '\n' && !inQuotes) {
+                    break;
+                }
+                if (csv && b == '"') {
+                    inQuotes = !inQuotes;
+                }
+                if (tooLarge) {
+                    continue; // lu jusqu'à sa fin, sans être gardé
+                }
+                if (length == record.length) {
+                    if (length >= MAX_CHUNK_BYTES) {
+                        tooLarge = true;
+                        length = 0;
+                        continue;
+                    }
+                    record = Arrays.copyOf(record, Math.min(MAX_CHUNK_BYTES, length * 2));
+                }
+                record[length++] = b;
+            }
+            if (length > 0 && record[length - 1] == '\r') {
+                length--;
+            }
+            int from = 0;
+            // BOM UTF-8 en tête de fichier
+            if (recordStart == 0 && length >= 3
+                    && record[0] == (byte) 0xEF && record[1] == (byte) 0xBB && record[2] == (byte) 0xBF) {
+                from = 3;
+            }
+            return new String(record, from, length - from, StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Une ligne CSV (RFC 4180) → cellules ; "" entre guillemets donne ". */
+    static List<String> parseCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean inQuotes = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    inQuotes = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        if (inQuotes) {
+            throw new IllegalArgumentException("unterminated quoted cell");
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    /** Ligne CSV → document. Les cellules vides sont omises. */
+    static JSONObject parseCsvDocument(String line, String[] columns) {
+        List<String> cells = parseCsvLine(line);
+        if (cells.size() > columns.length) {
+            throw new IllegalArgumentException(cells.size() + " cells for " + columns.length + " columns");
+        }
+        JSONObject document = new JSONObject();
+        for (int i = 0; i < cells.size(); i++) {
+            String cell = cells.get(i);
+            if (!cell.isEmpty()) {
+                document.put(columns[i], csvValue(cell));
+            }
+        }
+        return document;
+    }
+
+    /**
+     * Inverse de l'export CSV : booléen, nombre (sans zéro de tête : "007" reste du texte),
+     * sous-document ou tableau en JSON, sinon texte.
+     */
+    static Object csvValue(String cell) {
+        if (cell.equals("true") || cell.equals("false")) {
+            return Boolean.valueOf(cell);
+        }
+        if (NUMBER.matcher(cell).matches()) {
+            if (cell.indexOf('.') < 0 && cell.indexOf('e') < 0 && cell.indexOf('E') < 0) {
+                try {
+                    return Long.valueOf(cell);
+                } catch (NumberFormatException e) {
+                    // au-delà de long : en double
+                }
+            }
+            return Double.valueOf(cell);
+        }
+        try {
+            if (cell.startsWith("{")) {
+                return new JSONObject(cell);
+            }
+            if (cell.startsWith("[")) {
+                return new JSONArray(cell);
+            }
+        } catch (JSONException e) {
+            // pas du JSON : texte
+        }
+        return cell;
+    }
+}
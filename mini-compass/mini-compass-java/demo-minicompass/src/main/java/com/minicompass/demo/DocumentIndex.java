@@ -0,0 +1,499 @@
+package com.minicompass.demo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.minicompass.demo.ApiClient.DocumentSet;
+
+/**
+ * Filtre et tri côté client sur un DocumentSet déjà en mémoire, sans requête.
+ *
+ * Les index sont construits à la première utilisation d'une colonne, puis réutilisés :
+ * - index de hachage (valeur -> lignes) pour l'égalité et $in ;
+ * - permutation triée des lignes (et rang de chaque ligne) pour les intervalles et le tri.
+ * Une fois construits, un filtre d'égalité coûte une recherche dans une table, un intervalle
+ * deux recherches dichotomiques, un tri par une colonne une copie de la permutation.
+ * Les lignes sont manipulées en int[] : ni Integer, ni Vector.
+ *
+ * Comparaison des valeurs comme MongoDB : null (ou champ absent) < nombres < textes < booléens ;
+ * 18 et 18.0 sont égaux. Un intervalle ne retient que les valeurs du type de sa borne
+ * (Filter.gt("age", 18) ne retient pas age = "20"). Les sous-documents, en JSON compact
+ * dans les DocumentSet, sont comparés comme des textes.
+ *
+ * Les lignes rendues sont des numéros de ligne du DocumentSet, en ordre croissant
+ * (sauf pour sort). Les index ne suivent pas les modifications du DocumentSet :
+ * en créer un nouveau après une modification. Pas thread-safe (à utiliser sur l'EDT).
+ */
+public class DocumentIndex {
+
+    /** Comparaison de deux lignes, sans boxing. */
+    @FunctionalInterface
+    interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    private final DocumentSet documents;
+    private final int rowCount;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final Map<Integer, Map<Object, int[]>> hashIndexes = new HashMap<>();
+    private final Map<Integer, SortedIndex> sortedIndexes = new HashMap<>();
+
+    /** Permutation des lignes triée par valeur (stable), et rang de chaque ligne (valeurs égales : même rang). */
+    private static final class SortedIndex {
+        final int[] rows;
+        final int[] ranks;
+
+        SortedIndex(int[] rows, int[] ranks) {
+            this.rows = rows;
+            this.ranks = ranks;
+        }
+    }
+
+    public DocumentIndex(DocumentSet documents) {
+        this.documents = documents;
+        this.rowCount = documents.getRowCount();
+        String[] names = documents.getFieldNames();
+        for (int c = 0; c < names.length; c++) {
+            columns.putIfAbsent(names[c], c);
+        }
+    }
+
+    public DocumentSet getDocuments() {
+        return documents;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    // ---------------------------------------------------------
+    // Filtres
+    // ---------------------------------------------------------
+
+    /** Lignes où field = value. */
+    public int[] equalTo(String field, Object value) {
+        Integer column = columns.get(field);
+        if (column == null) {
+            return normalize(value) == null ? all() : new int[0];
+        }
+        int[] rows = hashIndex(column).get(normalize(value));
+        return rows == null ? new int[0] : rows.clone();
+    }
+
+    /** Lignes où field != value (champ absent compris, comme $ne). */
+    public int[] notEqualTo(String field, Object value) {
+        return difference(all(), equalTo(field, value));
+    }
+
+    /** Lignes où field vaut l'une des valeurs. */
+    public int[] in(String field, Iterable<?> values) {
+        int[] result = new int[0];
+        for (Object value : values) {
+            result = union(result, equalTo(field, value));
+        }
+        return result;
+    }
+
+    /**
+     * Lignes où lower < field < upper (bornes incluses selon lowerInclusive / upperInclusive).
+     * Une borne null est ouverte ; les valeurs retenues sont du type des bornes.
+     */
+    public int[] range(String field, Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+        Object low = normalize(lower);
+        Object high = normalize(upper);
+        if (low == null && high == null) {
+            throw new IllegalArgumentException("range requires at least one bound");
+        }
+        if (low != null && high != null && typeRank(low) != typeRank(high)) {
+            return new int[0];
+        }
+        Integer column = columns.get(field);
+        if (column == null) {
+            return new int[0];
+        }
+        SortedIndex index = sortedIndex(column);
+        int type = typeRank(low != null ? low : high);
+
+        // Bloc des valeurs du type des bornes, puis bornes dans ce bloc
+        int from = firstAtLeast(index.rows, column, v -> Integer.compare(typeRank(v), type), false);
+        int to = firstAtLeast(index.rows, column, v -> Integer.compare(typeRank(v), type), true);
+        if (low != null) {
+            from = Math.max(from, firstAtLeast(index.rows, column, v -> compareValues(v, low), !lowerInclusive));
+        }
+        if (high != null) {
+            to = Math.min(to, firstAtLeast(index.rows, column, v -> compareValues(v, high), upperInclusive));
+        }
+        if (from >= to) {
+            return new int[0];
+        }
+        int[] rows = Arrays.copyOfRange(index.rows, from, to);
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    /**
+     * Lignes retenues par un filtre de DocumentQuery (eq, ne, gt, gte, lt, lte, in, between, and, or).
+     *
+     * @throws IllegalArgumentException pour un opérateur non géré
+     */
+    public int[] select(DocumentQuery.Filter filter) {
+        return select(filter.toJson());
+    }
+
+    private int[] select(JSONObject filter) {
+        int[] result = null;
+        for (Iterator<String> it = filter.keys(); it.hasNext();) {
+            String key = it.next();
+            int[] rows;
+            if ("$and".equals(key) || "$or".equals(key)) {
+                JSONArray parts = filter.getJSONArray(key);
+                rows = "$and".equals(key) ? all() : new int[0];
+                for (int i = 0; i < parts.length(); i++) {
+                    int[] part = select(parts.getJSONObject(i));
+                    rows = "$and".equals(key) ? intersection(rows, part) : union(rows, part);
+                }
+            } else if (key.startsWith("$")) {
+                throw new IllegalArgumentException("Unsupported filter operator: " + key);
+            } else {
+                rows = selectField(key, filter.get(key));
+            }
+            result = result == null ? rows : intersection(result, rows);
+        }
+        return result == null ? all() : result;
+    }
+
+    /** { "$gte": 18, "$lte": 30 }, { "$in": [...] }... ou une valeur (égalité). */
+    private int[] selectField(String field, Object condition) {
+        if (!(condition instanceof JSONObject) || !((JSONObject) condition).keys().hasNext()
+                || !((JSONObject) condition).keys().next().startsWith("$")) {
+            return equalTo(field, condition);
+        }
+        JSONObject operators = (JSONObject) condition;
+        Object lower = null;
+        boolean lowerInclusive = false;
+        Object upper = null;
+        boolean upperInclusive = false;
+        int[] result = all();
+        for (Iterator<String> it = operators.keys(); it.hasNext();) {
+            String op = it.next();
+            Object value = operators.get(op);
+            switch (op) {
+                case "$eq":
+                    result = intersection(result, equalTo(field, value));
+                    break;
+                case "$ne":
+                    result = intersection(result, notEqualTo(field, value));
+                    break;
+                case "$in":
+                    result = intersection(result, in(field, operators.getJSONArray(op)));
+                    break;
+                case "$gt":
+                case "$gte":
+                    lower = value;
+                    lowerInclusive = "$gte".equals(op);
+                    break;
+                case "$lt":
+                case "$lte":
+                    upper = value;
+                    upperInclusive = "$lte".equals(op);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported filter operator: " + op);
+            }
+        }
+        if (lower != null || upper != null) {
+            result = intersection(result, range(field, lower, lowerInclusive, upper, upperInclusive));
+        }
+        return result;
+    }
+
+    // ---------------------------------------------------------
+    // Tri
+    // ---------------------------------------------------------
+
+    /**
+     * Lignes rows (null : toutes) triées par les champs, dans l'ordre donné ;
+     * ascending[i] donne le sens du champ i. Tri stable : à égalité, l'ordre de rows est conservé.
+     */
+    public int[] sort(int[] rows, String[] fields, boolean[] ascending) {
+        if (fields.length != ascending.length) {
+            throw new IllegalArgumentException("fields and ascending must have the same length");
+        }
+        // Un seul champ croissant sur toutes les lignes : la permutation elle-même
+        if (rows == null && fields.length == 1 && ascending[0] && columns.containsKey(fields[0])) {
+            return sortedIndex(columns.get(fields[0])).rows.clone();
+        }
+
+        int[] result = rows == null ? all() : rows.clone();
+        int[][] ranks = new int[fields.length][];
+        for (int k = 0; k < fields.length; k++) {
+            Integer column = columns.get(fields[k]);
+            // Champ absent de tous les documents : toutes les lignes sont égales
+            ranks[k] = column == null ? new int[rowCount] : sortedIndex(column).ranks;
+        }
+        mergeSort(result, (a, b) -> {
+            for (int k = 0; k < ranks.length; k++) {
+                int c = Integer.compare(ranks[k][a], ranks[k][b]);
+                if (c != 0) {
+                    return ascending[k] ? c : -c;
+                }
+            }
+            return 0;
+        });
+        return result;
+    }
+
+    // ---------------------------------------------------------
+    // Construction des index
+    // ---------------------------------------------------------
+
+    private Map<Object, int[]> hashIndex(int column) {
+        Map<Object, int[]> index = hashIndexes.get(column);
+        if (index != null) {
+            return index;
+        }
+        // Deux passes : nombre de lignes par valeur, puis remplissage (pas de liste d'Integer)
+        Map<Object, int[]> counts = new HashMap<>();
+        Object[] keys = new Object[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            Object key = normalize(documents.getValueAt(row, column));
+            keys[row] = key;
+            int[] count = counts.get(key);
+            if (count == null) {
+                counts.put(key, new int[] { 1 });
+            } else {
+                count[0]++;
+            }
+        }
+        index = new HashMap<>(counts.size() * 2);
+        Map<Object, int[]> filled = new HashMap<>(counts.size() * 2);
+        for (Map.Entry<Object, int[]> entry : counts.entrySet()) {
+            index.put(entry.getKey(), new int[entry.getValue()[0]]);
+            filled.put(entry.getKey(), new int[1]);
+        }
+        for (int row = 0; row < rowCount; row++) {
+            index.get(keys[row])[filled.get(keys[row])[0]++] = row;
+        }
+        hashIndexes.put(column, index);
+        return index;
+    }
+
+    private SortedIndex sortedIndex(int column) {
+        SortedIndex index = sortedIndexes.get(column);
+        if (index != null) {
+            return index;
+        }
+        int[] rows = all();
+        RowComparator comparator = rowComparator(column);
+        mergeSort(rows, comparator);
+
+        int[] ranks = new int[rowCount];
+        int rank = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (i > 0 && comparator.compare(rows[i - 1], rows[i]) != 0) {
+                rank++;
+            }
+            ranks[rows[i]] = rank;
+        }
+        index = new SortedIndex(rows, ranks);
+        sortedIndexes.put(column, index);
+        return index;
+    }
+
+    /** Colonnes d'entiers ou de décimaux d'un ColumnarDocumentSet : comparées sans lire d'objets. */
+    private RowComparator rowComparator(int column) {
+        if (documents instanceof ColumnarDocumentSet) {
+            ColumnarDocumentSet set = (ColumnarDocumentSet) documents;
+            switch (set.getColumnType(column)) {
+                case LONG:
+                    return (a, b) -> set.isNull(a, column) || set.isNull(b, column)
+                            ? Boolean.compare(!set.isNull(a, column), !set.isNull(b, column))
+                            : Long.compare(set.getLong(a, column), set.getLong(b, column));
+                case DOUBLE:
+                    return (a, b) -> set.isNull(a, column) || set.isNull(b, column)
+                            ? Boolean.compare(!set.isNull(a, column), !set.isNull(b, column))
+                            : Double.compare(set.getDouble(a, column), set.getDouble(b, column));
+                default:
+                    break;
+            }
+        }
+        Object[] values = new Object[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            values[row] = normalize(documents.getValueAt(row, column));
+        }
+        return (a, b) -> compareValues(values[a], values[b]);
+    }
+
+    // ---------------------------------------------------------
+    // Valeurs
+    // ---------------------------------------------------------
+
+    /** Clé de comparaison : JSONObject.NULL -> null, entiers -> Long, décimaux entiers -> Long. */
+    static Object normalize(Object value) {
+        if (value == null || value == JSONObject.NULL) {
+            return null;
+        }
+        if (value instanceof Long) {
+            return value;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            if (d == Math.rint(d) && Math.abs(d) < 0x1p53) {
+                return (long) d;
+            }
+            return d;
+        }
+        return value instanceof Boolean ? value : value.toString();
+    }
+
+    /** Ordre de MongoDB entre types : null < nombres < textes < booléens. */
+    private static int typeRank(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return 1;
+        }
+        return value instanceof Boolean ? 3 : 2;
+    }
+
+    /** Compare deux valeurs normalisées. */
+    static int compareValues(Object a, Object b) {
+        int c = Integer.compare(typeRank(a), typeRank(b));
+        if (c != 0 || a == null) {
+            return c;
+        }
+        if (a instanceof Long && b instanceof Long) {
+            return Long.compare((Long) a, (Long) b);
+        }
+        if (a instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a instanceof Boolean) {
+            return Boolean.compare((Boolean) a, (Boolean) b);
+        }
+        return ((String) a).compareTo((String) b);
+    }
+
+    /** Comparaison d'une valeur à une borne (négatif : avant la borne). */
+    @FunctionalInterface
+    private interface Bound {
+        int compareTo(Object value);
+    }
+
+    /**
+     * Première position de rows dont la valeur est >= borne (> borne si strict) ;
+     * rows.length si aucune.
+     */
+    private int firstAtLeast(int[] rows, int column, Bound bound, boolean strict) {
+        int low = 0;
+        int high = rows.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int c = bound.compareTo(normalize(documents.getValueAt(rows[mid], column)));
+            if (c < 0 || (strict && c == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // ---------------------------------------------------------
+    // Ensembles de lignes (int[] triés)
+    // ---------------------------------------------------------
+
+    private int[] all() {
+        int[] rows = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = i;
+        }
+        return rows;
+    }
+
+    static int[] intersection(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[n++] = b[j++];
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    static int[] difference(int[] a, int[] b) {
+        int[] result = new int[a.length];
+        int j = 0;
+        int n = 0;
+        for (int value : a) {
+            while (j < b.length && b[j] < value) {
+                j++;
+            }
+            if (j == b.length || b[j] != value) {
+                result[n++] = value;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /** Tri fusion stable d'un int[] selon comparator. */
+    static void mergeSort(int[] rows, RowComparator comparator) {
+        int[] buffer = new int[rows.length];
+        for (int width = 1; width < rows.length; width *= 2) {
+            for (int from = 0; from < rows.length - width; from += 2 * width) {
+                int mid = from + width;
+                int to = Math.min(from + 2 * width, rows.length);
+                if (comparator.compare(rows[mid - 1], rows[mid]) <= 0) {
+                    continue; // déjà dans l'ordre
+                }
+                System.arraycopy(rows, from, buffer, from, to - from);
+                int i = from;
+                int j = mid;
+                for (int k = from; k < to; k++) {
+                    if (i < mid && (j >= to || comparator.compare(buffer[i], buffer[j]) <= 0)) {
+                        rows[k] = buffer[i++];
+                    } else {
+                        rows[k] = buffer[j++];
+                    }
+                }
+            }
+        }
+    }
+}
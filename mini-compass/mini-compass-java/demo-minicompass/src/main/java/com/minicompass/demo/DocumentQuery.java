@@ -0,0 +1,199 @@
+package com.minicompass.demo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Requête typée sur une collection : filtre (ET / OU de conditions), tri et index conseillé.
+ * Elle est exécutée par MongoDB (les index sont utilisés), pas par le client.
+ *
+ *   DocumentQuery query = DocumentQuery.where(Filter.and(
+ *                   Filter.eq("program", "Tech Info"),
+ *                   Filter.gte("age", 18)))
+ *           .sortDescending("age")
+ *           .hint("program_1_age_-1");
+ *
+ * Envoyée sous la forme ?q={"$and":[...]}&sort=-age&hint=program_1_age_-1
+ * (voir PathBuilder.documentQuery).
+ */
+public class DocumentQuery {
+
+    private final Filter filter;
+    private final Map<String, Integer> sort = new LinkedHashMap<>();
+    private String hint;
+
+    private DocumentQuery(Filter filter) {
+        this.filter = filter;
+    }
+
+    /** Tous les documents (tri et index éventuellement précisés ensuite). */
+    public static DocumentQuery all() {
+        return new DocumentQuery(null);
+    }
+
+    public static DocumentQuery where(Filter filter) {
+        return new DocumentQuery(filter);
+    }
+
+    public DocumentQuery sortAscending(String field) {
+        sort.put(requireField(field), 1);
+        return this;
+    }
+
+    public DocumentQuery sortDescending(String field) {
+        sort.put(requireField(field), -1);
+        return this;
+    }
+
+    /** Nom de l'index que MongoDB doit utiliser (hint). */
+    public DocumentQuery hint(String indexName) {
+        this.hint = indexName;
+        return this;
+    }
+
+    public Filter getFilter() {
+        return filter;
+    }
+
+    public Map<String, Integer> getSort() {
+        return Collections.unmodifiableMap(sort);
+    }
+
+    public String getHint() {
+        return hint;
+    }
+
+    /** Vrai si la requête est compatible avec la pagination par clé (aucun tri, ou tri croissant sur _id seul). */
+    boolean isIdOrdered() {
+        return sort.isEmpty() || (sort.size() == 1 && Integer.valueOf(1).equals(sort.get("_id")));
+    }
+
+    /** Ajoute q=..., sort=... et hint=... aux paramètres de la requête. */
+    void addTo(Map<String, String> params) {
+        if (filter != null) {
+            params.put("q", filter.toJson().toString());
+        }
+        if (!sort.isEmpty()) {
+            List<String> keys = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : sort.entrySet()) {
+                keys.add(entry.getValue() < 0 ? "-" + entry.getKey() : entry.getKey());
+            }
+            params.put("sort", String.join(",", keys));
+        }
+        if (hint != null && !hint.isBlank()) {
+            params.put("hint", hint);
+        }
+    }
+
+    @Override
+    public String toString() {
+        Map<String, String> params = new LinkedHashMap<>();
+        addTo(params);
+        return params.toString();
+    }
+
+    // ---------------------------------------------------------
+    // Conditions
+    // ---------------------------------------------------------
+
+    /**
+     * Condition sur les documents. Les valeurs sont envoyées avec leur type JSON :
+     * Filter.eq("age", 18) et Filter.eq("age", "18") ne trouvent pas les mêmes documents.
+     */
+    public static final class Filter {
+        private final JSONObject json;
+
+        private Filter(JSONObject json) {
+            this.json = json;
+        }
+
+        public static Filter eq(String field, Object value) {
+            return operator(field, "$eq", value);
+        }
+
+        public static Filter ne(String field, Object value) {
+            return operator(field, "$ne", value);
+        }
+
+        public static Filter gt(String field, Object value) {
+            return operator(field, "$gt", value);
+        }
+
+        public static Filter gte(String field, Object value) {
+            return operator(field, "$gte", value);
+        }
+
+        public static Filter lt(String field, Object value) {
+            return operator(field, "$lt", value);
+        }
+
+        public static Filter lte(String field, Object value) {
+            return operator(field, "$lte", value);
+        }
+
+        /** field vaut l'une des valeurs. */
+        public static Filter in(String field, Collection<?> values) {
+            return operator(field, "$in", new JSONArray(values));
+        }
+
+        /** min <= field <= max */
+        public static Filter between(String field, Object min, Object max) {
+            JSONObject range = new JSONObject().put("$gte", jsonValue(min)).put("$lte", jsonValue(max));
+            return new Filter(new JSONObject().put(requireField(field), range));
+        }
+
+        public static Filter and(Filter... filters) {
+            return combine("$and", filters);
+        }
+
+        public static Filter or(Filter... filters) {
+            return combine("$or", filters);
+        }
+
+        JSONObject toJson() {
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return json.toString();
+        }
+
+        private static Filter operator(String field, String op, Object value) {
+            JSONObject condition = new JSONObject().put(op, jsonValue(value));
+            return new Filter(new JSONObject().put(requireField(field), condition));
+        }
+
+        private static Filter combine(String op, Filter... filters) {
+            if (filters == null || filters.length == 0) {
+                throw new IllegalArgumentException(op + " requires at least one filter");
+            }
+            if (filters.length == 1) {
+                return filters[0];
+            }
+            JSONArray array = new JSONArray();
+            for (Filter f : filters) {
+                array.put(f.json);
+            }
+            return new Filter(new JSONObject().put(op, array));
+        }
+
+        private static Object jsonValue(Object value) {
+            return value == null ? JSONObject.NULL : value;
+        }
+    }
+
+    private static String requireField(String field) {
+        if (field == null || field.isBlank() || field.startsWith("$")) {
+            throw new IllegalArgumentException("Invalid field name: " + field);
+        }
+        return field;
+    }
+}
@@ -0,0 +1,273 @@
+package com.minicompass.demo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableModel;
+
+import com.minicompass.demo.ApiClient.DocumentSet;
+
+/**
+ * RowSorter de la table des documents : tri (clic sur les en-têtes) et filtre calculés
+ * par un DocumentIndex, sans requête ni copie des lignes.
+ *
+ * Contrairement à TableRowSorter, qui compare des objets Row à chaque tri, l'ordre des lignes
+ * est un int[] obtenu des index du DocumentIndex : trier de nouveau par une colonne déjà triée,
+ * ou changer de filtre sur une colonne déjà indexée, ne relit pas les valeurs.
+ *
+ * Tri et filtre ne sont possibles que si toutes les lignes du modèle sont en mémoire
+ * (source renvoie null sinon). Dans ce cas, un clic sur un en-tête est transmis
+ * à setUnavailableHandler (ex. : tri par le serveur) et le filtre est refusé.
+ * Si une modification du modèle rend les lignes incomplètes, tri et filtre sont abandonnés.
+ */
+public class DocumentRowSorter extends RowSorter<TableModel> {
+
+    private final TableModel model;
+    private final Supplier<DocumentSet> source;
+
+    private List<SortKey> sortKeys = Collections.emptyList();
+    private DocumentQuery.Filter filter;
+    private Consumer<List<SortKey>> unavailableHandler;
+
+    /** Index des lignes actuelles, construit au premier tri ou filtre. */
+    private DocumentIndex index;
+    /** null : ordre du modèle, toutes les lignes. */
+    private int[] viewToModel;
+    private int[] modelToView;
+
+    /**
+     * @param source toutes les lignes du modèle, dans son ordre (ou null si elles ne sont
+     *               pas toutes en mémoire), avec les noms de colonnes du modèle
+     */
+    public DocumentRowSorter(TableModel model, Supplier<DocumentSet> source) {
+        this.model = model;
+        this.source = source;
+    }
+
+    /** Appelé (sur l'EDT) à la place d'un tri impossible, avec les clés demandées. */
+    public void setUnavailableHandler(Consumer<List<SortKey>> unavailableHandler) {
+        this.unavailableHandler = unavailableHandler;
+    }
+
+    /**
+     * Ne montre que les lignes retenues par filter (null : toutes).
+     *
+     * @return false si les lignes ne sont pas toutes en mémoire (rien n'est changé)
+     * @throws IllegalArgumentException pour un opérateur non géré par DocumentIndex
+     */
+    public boolean setFilter(DocumentQuery.Filter filter) {
+        if (filter != null && currentIndex() == null) {
+            return false;
+        }
+        int[] oldViewToModel = viewToModelCopy();
+        DocumentQuery.Filter previous = this.filter;
+        this.filter = filter;
+        try {
+            sort();
+        } catch (IllegalArgumentException e) {
+            this.filter = previous;
+            throw e;
+        }
+        fireRowSorterChanged(oldViewToModel);
+        return true;
+    }
+
+    public DocumentQuery.Filter getFilter() {
+        return filter;
+    }
+
+    // ---------------------------------------------------------
+    // RowSorter
+    // ---------------------------------------------------------
+
+    @Override
+    public TableModel getModel() {
+        return model;
+    }
+
+    /** Croissant, puis décroissant, puis ordre du modèle ; la colonne devient la clé principale. */
+    @Override
+    public void toggleSortOrder(int column) {
+        List<SortKey> keys = new ArrayList<>(sortKeys);
+        SortOrder order = SortOrder.ASCENDING;
+        if (!keys.isEmpty() && keys.get(0).getColumn() == column) {
+            order = keys.get(0).getSortOrder() == SortOrder.ASCENDING ? SortOrder.DESCENDING : SortOrder.UNSORTED;
+        }
+        keys.removeIf(key -> key.getColumn() == column);
+        if (order == SortOrder.UNSORTED) {
+            keys.clear();
+        } else {
+            keys.add(0, new SortKey(column, order));
+        }
+        // Au plus 3 clés, comme TableRowSorter
+        setSortKeys(keys.size() > 3 ? keys.subList(0, 3) : keys);
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> newKeys = keys == null ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(keys));
+        if (newKeys.equals(sortKeys)) {
+            return;
+        }
+        if (!newKeys.isEmpty() && currentIndex() == null) {
+            if (unavailableHandler != null) {
+                unavailableHandler.accept(newKeys);
+            }
+            return;
+        }
+        sortKeys = newKeys;
+        fireSortOrderChanged();
+        int[] oldViewToModel = viewToModelCopy();
+        sort();
+        fireRowSorterChanged(oldViewToModel);
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (viewToModel == null) {
+            if (index < 0 || index >= model.getRowCount()) {
+                throw new IndexOutOfBoundsException("Invalid index");
+            }
+            return index;
+        }
+        return viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (modelToView == null) {
+            if (index < 0 || index >= model.getRowCount()) {
+                throw new IndexOutOfBoundsException("Invalid index");
+            }
+            return index;
+        }
+        return index < modelToView.length ? modelToView[index] : -1;
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return viewToModel == null ? model.getRowCount() : viewToModel.length;
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return model.getRowCount();
+    }
+
+    /** Nouvelles colonnes : les clés de tri (numéros de colonnes) sont abandonnées, le filtre (par nom) reste. */
+    @Override
+    public void modelStructureChanged() {
+        index = null;
+        if (!sortKeys.isEmpty()) {
+            sortKeys = Collections.emptyList();
+            fireSortOrderChanged();
+        }
+        modelChanged();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        modelChanged();
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        modelChanged();
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        modelChanged();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        modelChanged();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        modelChanged();
+    }
+
+    // ---------------------------------------------------------
+    // Tri
+    // ---------------------------------------------------------
+
+    /** Lignes modifiées : index reconstruit, tri et filtre recalculés (ou abandonnés). */
+    private void modelChanged() {
+        index = null;
+        if (sortKeys.isEmpty() && filter == null) {
+            viewToModel = null;
+            modelToView = null;
+            return;
+        }
+        int[] oldViewToModel = viewToModelCopy();
+        if (currentIndex() == null) {
+            sortKeys = Collections.emptyList();
+            filter = null;
+            fireSortOrderChanged();
+        }
+        sort();
+        fireRowSorterChanged(oldViewToModel);
+    }
+
+    private DocumentIndex currentIndex() {
+        if (index == null) {
+            DocumentSet documents = source.get();
+            if (documents != null && documents.getRowCount() == model.getRowCount()) {
+                index = new DocumentIndex(documents);
+            }
+        }
+        return index;
+    }
+
+    private void sort() {
+        if (sortKeys.isEmpty() && filter == null) {
+            viewToModel = null;
+            modelToView = null;
+            return;
+        }
+        DocumentIndex documents = currentIndex();
+        int[] rows = filter == null ? null : documents.select(filter);
+        if (!sortKeys.isEmpty()) {
+            String[] fields = new String[sortKeys.size()];
+            boolean[] ascending = new boolean[sortKeys.size()];
+            for (int k = 0; k < fields.length; k++) {
+                fields[k] = model.getColumnName(sortKeys.get(k).getColumn());
+                ascending[k] = sortKeys.get(k).getSortOrder() != SortOrder.DESCENDING;
+            }
+            rows = documents.sort(rows, fields, ascending);
+        }
+
+        viewToModel = rows;
+        modelToView = new int[model.getRowCount()];
+        Arrays.fill(modelToView, -1);
+        for (int view = 0; view < rows.length; view++) {
+            modelToView[rows[view]] = view;
+        }
+    }
+
+    private int[] viewToModelCopy() {
+        if (viewToModel != null) {
+            return viewToModel.clone();
+        }
+        int[] identity = new int[getModelRowCount()];
+        for (int i = 0; i < identity.length; i++) {
+            identity[i] = i;
+        }
+        return identity;
+    }
+}
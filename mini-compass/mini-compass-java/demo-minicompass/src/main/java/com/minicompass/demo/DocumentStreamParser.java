@@ -0,0 +1,111 @@
+package com.minicompass.demo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import com.minicompass.demo.ApiClient.DocumentSet;
+
+/**
+ * Construit un DocumentSet directement à partir du flux de la réponse
+ * { "documents": [ {...}, {...} ] }, jeton par jeton.
+ *
+ * Aucune String intermédiaire pour le corps complet, aucun arbre JSONObject :
+ * chaque valeur est copiée dans sa colonne (ColumnarDocumentSet) au fur et à mesure
+ * de la lecture. Les colonnes sont l'union des champs de tous les documents.
+ *
+ * parse(body, chunkSize, onChunk) rend les documents par paquets dès qu'ils sont lus,
+ * sans attendre la fin de la réponse (affichage progressif).
+ */
+public class DocumentStreamParser {
+
+    private DocumentStreamParser() {
+    }
+
+    public static DocumentSet parse(InputStream body) throws IOException {
+        return parse(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    public static DocumentSet parse(Reader body) throws IOException {
+        DocumentSet[] result = new DocumentSet[1];
+        parse(body, Integer.MAX_VALUE, set -> result[0] = set);
+        return result[0] != null ? result[0] : emptySet();
+    }
+
+    /**
+     * Lit la réponse et passe les documents à onChunk par paquets d'au plus chunkSize documents,
+     * au fur et à mesure de la lecture. Chaque paquet a ses propres colonnes (union des champs du paquet).
+     *
+     * @return nombre total de documents lus
+     */
+    public static int parse(InputStream body, int chunkSize, Consumer<DocumentSet> onChunk) throws IOException {
+        return parse(new InputStreamReader(body, StandardCharsets.UTF_8), chunkSize, onChunk);
+    }
+
+    public static int parse(Reader body, int chunkSize, Consumer<DocumentSet> onChunk) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be > 0");
+        }
+        try (JsonTokenReader reader = new JsonTokenReader(body)) {
+            if (reader.peek() != JsonTokenReader.Token.BEGIN_OBJECT) {
+                reader.skipValue();
+                return 0;
+            }
+
+            int total = 0;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("documents".equals(name) && reader.peek() == JsonTokenReader.Token.BEGIN_ARRAY) {
+                    total += readDocuments(reader, chunkSize, onChunk);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return total;
+        }
+    }
+
+    private static int readDocuments(JsonTokenReader reader, int chunkSize, Consumer<DocumentSet> onChunk) throws IOException {
+        ColumnarDocumentSet.Builder builder = new ColumnarDocumentSet.Builder();
+        int total = 0;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonTokenReader.Token.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            builder.startRow();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                int column = builder.column(reader.nextName());
+                builder.set(column, reader.nextValue());
+            }
+            reader.endObject();
+            builder.endRow();
+            total++;
+
+            if (builder.getRowCount() == chunkSize) {
+                onChunk.accept(builder.build());
+                builder = new ColumnarDocumentSet.Builder();
+            }
+        }
+        reader.endArray();
+
+        // Dernier paquet incomplet, ou tableau vide (un DocumentSet vide est tout de même rendu)
+        if (builder.getRowCount() > 0 || total == 0) {
+            onChunk.accept(builder.build());
+        }
+        return total;
+    }
+
+    private static DocumentSet emptySet() {
+        return new DocumentSet(new String[0], new Object[0][0]);
+    }
+}
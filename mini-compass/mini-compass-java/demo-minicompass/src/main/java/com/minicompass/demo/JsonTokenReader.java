@@ -0,0 +1,507 @@
+package com.minicompass.demo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.json.JSONObject;
+
+/**
+ * Lecteur JSON "pull" : lit les jetons un par un directement depuis un Reader,
+ * sans construire de String complète ni d'arbre JSONObject / JSONArray.
+ *
+ * Utilisation typique :
+ *   reader.beginObject();
+ *   while (reader.hasNext()) {
+ *       String name = reader.nextName();
+ *       ...
+ *   }
+ *   reader.endObject();
+ */
+public class JsonTokenReader implements Closeable {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY,
+        NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    // États de la pile de contexte
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos = 0;
+    private int limit = 0;
+
+    private int[] stack = new int[32];
+    private int stackSize = 0;
+
+    private Token peeked = null;
+    private final StringBuilder scratch = new StringBuilder();
+
+    public JsonTokenReader(Reader in) {
+        this.in = in;
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    // ---------------------------------------------------------
+    // API publique
+    // ---------------------------------------------------------
+
+    /** Retourne le type du prochain jeton sans le consommer. */
+    public Token peek() throws IOException {
+        if (peeked == null) {
+            peeked = doPeek();
+        }
+        return peeked;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        stackSize--;
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        stackSize--;
+    }
+
+    /** true s'il reste un élément dans l'objet ou le tableau courant. */
+    public boolean hasNext() throws IOException {
+        Token t = peek();
+        return t != Token.END_OBJECT && t != Token.END_ARRAY && t != Token.END_DOCUMENT;
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    public String nextString() throws IOException {
+        expect(Token.STRING);
+        return readString();
+    }
+
+    public Number nextNumber() throws IOException {
+        expect(Token.NUMBER);
+        return readNumber();
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        char c = read();
+        if (c == 't') {
+            readLiteral("rue");
+            return true;
+        }
+        readLiteral("alse");
+        return false;
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+        read();
+        readLiteral("ull");
+    }
+
+    /**
+     * Lit la prochaine valeur scalaire telle quelle :
+     * String, Number, Boolean ou JSONObject.NULL.
+     * Les objets et tableaux imbriqués sont retournés sous forme de JSON compact (String).
+     */
+    public Object nextValue() throws IOException {
+        switch (peek()) {
+            case STRING:
+                return nextString();
+            case NUMBER:
+                return nextNumber();
+            case BOOLEAN:
+                return nextBoolean();
+            case NULL:
+                nextNull();
+                return JSONObject.NULL;
+            case BEGIN_OBJECT:
+            case BEGIN_ARRAY:
+                return nextRawValue();
+            default:
+                throw syntaxError("Valeur attendue, trouvé " + peek());
+        }
+    }
+
+    /** Recopie la prochaine valeur (objet, tableau ou scalaire) en JSON compact. */
+    public String nextRawValue() throws IOException {
+        StringBuilder out = new StringBuilder();
+        writeRawValue(out);
+        return out.toString();
+    }
+
+    /** Ignore la prochaine valeur, quelle que soit sa profondeur. */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    depth++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    depth--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    depth--;
+                    break;
+                case NAME:
+                    nextName();
+                    break;
+                case STRING:
+                    nextString();
+                    break;
+                case NUMBER:
+                    nextNumber();
+                    break;
+                case BOOLEAN:
+                    nextBoolean();
+                    break;
+                case NULL:
+                    nextNull();
+                    break;
+                default:
+                    throw syntaxError("Fin de document inattendue");
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ---------------------------------------------------------
+    // Analyse des jetons
+    // ---------------------------------------------------------
+
+    private Token doPeek() throws IOException {
+        int top = stack[stackSize - 1];
+        int c;
+
+        switch (top) {
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return Token.END_ARRAY;
+                }
+                if (c == -1) {
+                    throw syntaxError("Fin de document inattendue");
+                }
+                pos--;
+                break;
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return Token.END_ARRAY;
+                }
+                if (c != ',') {
+                    throw syntaxError("',' ou ']' attendu");
+                }
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                stack[stackSize - 1] = DANGLING_NAME;
+                c = nextNonWhitespace();
+                if (top == NONEMPTY_OBJECT) {
+                    if (c == '}') {
+                        return Token.END_OBJECT;
+                    }
+                    if (c != ',') {
+                        throw syntaxError("',' ou '}' attendu");
+                    }
+                    c = nextNonWhitespace();
+                } else if (c == '}') {
+                    return Token.END_OBJECT;
+                }
+                if (c != '"') {
+                    throw syntaxError("Nom de champ attendu");
+                }
+                return Token.NAME;
+            case DANGLING_NAME:
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("':' attendu");
+                }
+                break;
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case NONEMPTY_DOCUMENT:
+                if (nextNonWhitespace() == -1) {
+                    return Token.END_DOCUMENT;
+                }
+                throw syntaxError("Contenu inattendu après la fin du document");
+            default:
+                throw new IllegalStateException("État inconnu : " + top);
+        }
+
+        c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                pos--;
+                return Token.BOOLEAN;
+            case 'n':
+                pos--;
+                return Token.NULL;
+            case -1:
+                throw syntaxError("Fin de document inattendue");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    return Token.NUMBER;
+                }
+                throw syntaxError("Caractère inattendu '" + (char) c + "'");
+        }
+    }
+
+    private void expect(Token expected) throws IOException {
+        Token actual = peek();
+        if (actual != expected) {
+            throw syntaxError(expected + " attendu, trouvé " + actual);
+        }
+        peeked = null;
+    }
+
+    private void push(int state) {
+        if (stackSize == stack.length) {
+            int[] bigger = new int[stack.length * 2];
+            System.arraycopy(stack, 0, bigger, 0, stack.length);
+            stack = bigger;
+        }
+        stack[stackSize++] = state;
+    }
+
+    /** Lit une chaîne dont le guillemet ouvrant a déjà été consommé. */
+    private String readString() throws IOException {
+        scratch.setLength(0);
+        while (true) {
+            // Copie directe des segments sans échappement
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '"') {
+                    scratch.append(buffer, start, pos - start);
+                    pos++;
+                    return scratch.toString();
+                }
+                if (c == '\\') {
+                    scratch.append(buffer, start, pos - start);
+                    pos++;
+                    scratch.append(readEscape());
+                    start = pos;
+                    continue;
+                }
+                pos++;
+            }
+            scratch.append(buffer, start, pos - start);
+            if (!fill()) {
+                throw syntaxError("Chaîne non terminée");
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        char c = read();
+        switch (c) {
+            case 'n':
+                return '\n';
+            case 't':
+                return '\t';
+            case 'r':
+                return '\r';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("Séquence \\u invalide");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            default:
+                throw syntaxError("Échappement invalide '\\" + c + "'");
+        }
+    }
+
+    private Number readNumber() throws IOException {
+        scratch.setLength(0);
+        boolean decimal = false;
+        while (true) {
+            if (pos == limit && !fill()) {
+                break;
+            }
+            char c = buffer[pos];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+') {
+                scratch.append(c);
+            } else if (c == '.' || c == 'e' || c == 'E') {
+                decimal = true;
+                scratch.append(c);
+            } else {
+                break;
+            }
+            pos++;
+        }
+
+        String text = scratch.toString();
+        try {
+            if (decimal) {
+                double d = Double.parseDouble(text);
+                return Double.isInfinite(d) ? new BigDecimal(text) : (Number) d;
+            }
+            if (text.length() < 19) {
+                long l = Long.parseLong(text);
+                if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+                    return (int) l;
+                }
+                return l;
+            }
+            BigInteger big = new BigInteger(text);
+            return big.bitLength() < 64 ? (Number) big.longValue() : big;
+        } catch (NumberFormatException e) {
+            throw syntaxError("Nombre invalide '" + text + "'");
+        }
+    }
+
+    private void readLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw syntaxError("Littéral invalide");
+            }
+        }
+    }
+
+    private void writeRawValue(StringBuilder out) throws IOException {
+        switch (peek()) {
+            case BEGIN_OBJECT:
+                beginObject();
+                out.append('{');
+                boolean firstField = true;
+                while (hasNext()) {
+                    if (!firstField) {
+                        out.append(',');
+                    }
+                    out.append(JSONObject.quote(nextName())).append(':');
+                    writeRawValue(out);
+                    firstField = false;
+                }
+                endObject();
+                out.append('}');
+                break;
+            case BEGIN_ARRAY:
+                beginArray();
+                out.append('[');
+                boolean firstItem = true;
+                while (hasNext()) {
+                    if (!firstItem) {
+                        out.append(',');
+                    }
+                    writeRawValue(out);
+                    firstItem = false;
+                }
+                endArray();
+                out.append(']');
+                break;
+            case STRING:
+                out.append(JSONObject.quote(nextString()));
+                break;
+            case NUMBER:
+                out.append(nextNumber());
+                break;
+            case BOOLEAN:
+                out.append(nextBoolean());
+                break;
+            case NULL:
+                nextNull();
+                out.append("null");
+                break;
+            default:
+                throw syntaxError("Valeur attendue, trouvé " + peek());
+        }
+    }
+
+    // ---------------------------------------------------------
+    // Lecture bas niveau
+    // ---------------------------------------------------------
+
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[pos++];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+    }
+
+    private char read() throws IOException {
+        if (pos == limit && !fill()) {
+            throw syntaxError("Fin de document inattendue");
+        }
+        return buffer[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            pos = 0;
+            limit = 0;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("JSON invalide : " + message);
+    }
+}
@@ -0,0 +1,814 @@
+package com.minicompass.demo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+
+import com.minicompass.demo.ApiClient.DocumentSet;
+
+/**
+ * Modèle de table "virtuel" pour les documents.
+ *
+ * Les lignes sont chargées par pages, uniquement quand la JTable les affiche
+ * (getValueAt sur une page absente déclenche son chargement asynchrone).
+ * Les pages chargées sont gardées dans un cache LRU de taille fixe :
+ * la mémoire reste constante, quelle que soit la taille de la collection.
+ *
+ * Avec un StreamingPageLoader, une page est affichée par paquets de lignes
+ * (SwingWorker.publish / process) pendant sa lecture : les premières lignes
+ * apparaissent avant la fin de la réponse.
+ *
+ * Les colonnes sont l'union des champs des pages reçues : une page qui apporte
+ * un nouveau champ ajoute une colonne.
+ *
+ * Tant que la fin de la collection n'est pas atteinte, le nombre de lignes
+ * annoncé inclut une page "à venir" : faire défiler jusqu'en bas charge la suite.
+ * Si le nombre total de documents est demandé au serveur (requestTotalRowCount),
+ * la table a d'emblée sa taille finale et toute page peut être atteinte directement.
+ *
+ * Les modifications suivies en direct (ChangeFeed) s'appliquent ligne par ligne
+ * aux pages en cache (applyChange), sans recharger la table.
+ *
+ * Toutes les méthodes doivent être appelées sur l'EDT (thread Swing).
+ */
+public class LazyDocumentTableModel extends AbstractTableModel {
+
+    /** Charge une page de documents : skip -> limit documents. */
+    @FunctionalInterface
+    public interface PageLoader {
+        CompletableFuture<DocumentSet> loadPage(int skip, int limit);
+    }
+
+    /**
+     * Charge une page de documents en la rendant par paquets.
+     * Appel bloquant, exécuté hors de l'EDT ; sink peut être appelé plusieurs fois.
+     */
+    @FunctionalInterface
+    public interface StreamingPageLoader {
+        /** @return nombre total de documents de la page */
+        int loadPage(int skip, int limit, Consumer<DocumentSet> sink) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Comme StreamingPageLoader, avec pagination par clé : afterId est le _id du dernier
+     * document de la page précédente quand elle est en cache (la page se lit alors comme
+     * la première, quelle que soit sa position), null sinon (lecture par skip, triée par _id).
+     */
+    @FunctionalInterface
+    public interface KeysetPageLoader {
+        /** @return nombre total de documents de la page */
+        int loadPage(int skip, Object afterId, int limit, Consumer<DocumentSet> sink)
+                throws IOException, InterruptedException;
+    }
+
+    /**
+     * Page en cache : un ou plusieurs paquets de lignes (un seul sans lecture par paquets),
+     * avec pour chacun la correspondance colonne du modèle -> colonne du paquet.
+     */
+    private static final class Page {
+        final List<DocumentSet> chunks = new ArrayList<>();
+        final List<int[]> columnMaps = new ArrayList<>();
+        int rowCount = 0;
+
+        void add(DocumentSet chunk) {
+            chunks.add(chunk);
+            columnMaps.add(new int[0]);
+            rowCount += chunk.getRowCount();
+        }
+
+        /** Retire la ligne row et la retourne (une ligne) ; le paquet qui la contient est découpé sans copie. */
+        DocumentSet remove(int row) {
+            int c = chunkOf(row);
+            DocumentSet chunk = chunks.get(c);
+            int i = row - rowsBefore(c);
+            int n = chunk.getRowCount();
+            List<DocumentSet> parts = new ArrayList<>(2);
+            if (i > 0) {
+                parts.add(RowSlice.of(chunk, 0, i));
+            }
+            if (i + 1 < n) {
+                parts.add(RowSlice.of(chunk, i + 1, n - i - 1));
+            }
+            replaceChunk(c, parts);
+            rowCount--;
+            return RowSlice.of(chunk, i, 1);
+        }
+
+        /** Insère les lignes de inserted avant la ligne row (à la fin si row == rowCount). */
+        void insert(int row, DocumentSet inserted) {
+            if (row == rowCount) {
+                add(inserted);
+                return;
+            }
+            int c = chunkOf(row);
+            DocumentSet chunk = chunks.get(c);
+            int i = row - rowsBefore(c);
+            List<DocumentSet> parts = new ArrayList<>(3);
+            if (i > 0) {
+                parts.add(RowSlice.of(chunk, 0, i));
+            }
+            parts.add(inserted);
+            parts.add(RowSlice.of(chunk, i, chunk.getRowCount() - i));
+            replaceChunk(c, parts);
+            rowCount += inserted.getRowCount();
+        }
+
+        private int chunkOf(int row) {
+            int start = 0;
+            for (int c = 0; c < chunks.size(); c++) {
+                start += chunks.get(c).getRowCount();
+                if (row < start) {
+                    return c;
+                }
+            }
+            throw new IndexOutOfBoundsException("row " + row + " of " + rowCount);
+        }
+
+        private int rowsBefore(int chunkIndex) {
+            int rows = 0;
+            for (int c = 0; c < chunkIndex; c++) {
+                rows += chunks.get(c).getRowCount();
+            }
+            return rows;
+        }
+
+        private void replaceChunk(int chunkIndex, List<DocumentSet> parts) {
+            chunks.remove(chunkIndex);
+            columnMaps.remove(chunkIndex);
+            for (int k = 0; k < parts.size(); k++) {
+                chunks.add(chunkIndex + k, parts.get(k));
+                columnMaps.add(chunkIndex + k, new int[0]);
+            }
+        }
+    }
+
+    /** Lignes from .. from + count - 1 d'un DocumentSet, sans copie. */
+    private static final class RowSlice extends DocumentSet {
+        private final DocumentSet base;
+        private final int from;
+        private final int count;
+
+        private RowSlice(DocumentSet base, int from, int count) {
+            super(base.getFieldNames());
+            this.base = base;
+            this.from = from;
+            this.count = count;
+        }
+
+        static DocumentSet of(DocumentSet set, int from, int count) {
+            if (from == 0 && count == set.getRowCount()) {
+                return set;
+            }
+            if (set instanceof RowSlice) {
+                RowSlice slice = (RowSlice) set;
+                return new RowSlice(slice.base, slice.from + from, count);
+            }
+            return new RowSlice(set, from, count);
+        }
+
+        @Override
+        public int getRowCount() {
+            return count;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return base.getValueAt(from + row, column);
+        }
+
+        @Override
+        public Object[][] getDocuments() {
+            Object[][] rows = new Object[count][];
+            int columns = getFieldNames().length;
+            for (int r = 0; r < count; r++) {
+                rows[r] = new Object[columns];
+                for (int c = 0; c < columns; c++) {
+                    rows[r][c] = getValueAt(r, c);
+                }
+            }
+            return rows;
+        }
+    }
+
+    private final int pageSize;
+    private final Map<Integer, Page> pages;
+    private final Map<Integer, Future<?>> inFlight = new HashMap<>();
+    /** Pages en cours de lecture, gardées même si le cache LRU les évince avant la fin. */
+    private final Map<Integer, Page> partialPages = new HashMap<>();
+    private final Set<Integer> failedPages = new HashSet<>();
+
+    private PageLoader loader;
+    private KeysetPageLoader streamingLoader;
+    private int generation = 0;
+    private final List<String> columnNames = new ArrayList<>();
+    private int rowCount = 0;
+    private boolean endReached = false;
+    /** Lignes effectivement reçues (sans la page "à venir"). */
+    private int loadedRows = 0;
+    /** Nombre total annoncé par le serveur, -1 s'il n'est pas connu. */
+    private long totalRowCount = -1;
+    private CompletableFuture<Long> pendingCount;
+    private Consumer<Throwable> errorHandler = e -> e.printStackTrace();
+
+    public LazyDocumentTableModel(int pageSize, int maxCachedPages) {
+        if (pageSize <= 0 || maxCachedPages <= 0) {
+            throw new IllegalArgumentException("pageSize and maxCachedPages must be > 0");
+        }
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+                return size() > maxCachedPages;
+            }
+        };
+    }
+
+    /** Appelé (sur l'EDT) quand le chargement d'une page échoue. */
+    public void setErrorHandler(Consumer<Throwable> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Vide le modèle et commence à afficher les documents fournis par loader.
+     * Les chargements encore en cours pour l'ancien loader sont annulés et ignorés.
+     */
+    public void reset(PageLoader loader) {
+        start(loader, null);
+    }
+
+    /**
+     * Comme reset(PageLoader), chaque page étant affichée par paquets pendant sa lecture.
+     */
+    public void reset(StreamingPageLoader loader) {
+        start(null, (skip, afterId, limit, sink) -> loader.loadPage(skip, limit, sink));
+    }
+
+    /**
+     * Comme reset(StreamingPageLoader), en pagination par clé : faire défiler page après
+     * page ne coûte pas plus cher en fin de collection qu'au début.
+     */
+    public void reset(KeysetPageLoader loader) {
+        start(null, loader);
+    }
+
+    /** Vide le modèle sans rien charger. */
+    public void clear() {
+        start(null, null);
+    }
+
+    private void start(PageLoader loader, KeysetPageLoader streamingLoader) {
+        for (Future<?> future : inFlight.values()) {
+            future.cancel(true);
+        }
+        inFlight.clear();
+        if (pendingCount != null) {
+            pendingCount.cancel(true);
+            pendingCount = null;
+        }
+        partialPages.clear();
+        failedPages.clear();
+        pages.clear();
+
+        this.loader = loader;
+        this.streamingLoader = streamingLoader;
+        this.generation++;
+        this.columnNames.clear();
+        this.rowCount = 0;
+        this.endReached = false;
+        this.loadedRows = 0;
+        this.totalRowCount = -1;
+        fireTableStructureChanged();
+
+        if (loader != null || streamingLoader != null) {
+            requestPage(0);
+        }
+    }
+
+    /**
+     * Demande le nombre total de documents du loader courant (à appeler après reset).
+     * Dès qu'il est connu, la table prend sa taille finale : la barre de défilement
+     * est à l'échelle et les pages lointaines sont chargées directement (skip).
+     * Ignoré si un reset() a eu lieu entre-temps ; un échec est simplement ignoré
+     * (le défilement page par page reste possible).
+     */
+    public void requestTotalRowCount(Supplier<CompletableFuture<Long>> counter) {
+        if (pendingCount != null) {
+            pendingCount.cancel(true);
+        }
+        int gen = generation;
+        CompletableFuture<Long> future = counter.get();
+        pendingCount = future;
+
+        future.whenComplete((count, error) -> SwingUtilities.invokeLater(() -> {
+            if (gen != generation || error != null) {
+                return;
+            }
+            pendingCount = null;
+            onTotalLoaded(count);
+        }));
+    }
+
+    /**
+     * Toutes les lignes de la table, avec ses colonnes, si elles sont toutes en mémoire
+     * (dernière page lue, aucune page retirée du cache ni en lecture) ; null sinon.
+     * Vue sur les pages actuelles, sans copie : à redemander après une modification du modèle.
+     */
+    public DocumentSet getLoadedDocuments() {
+        if (!endReached || !partialPages.isEmpty()) {
+            return null;
+        }
+        int pageCount = (rowCount + pageSize - 1) / pageSize;
+        Page[] loaded = new Page[pageCount];
+        for (int p = 0; p < pageCount; p++) {
+            loaded[p] = pages.get(p);
+            if (loaded[p] == null) {
+                return null;
+            }
+        }
+        int rows = rowCount;
+        return new DocumentSet(columnNames.toArray(new String[0])) {
+            @Override
+            public int getRowCount() {
+                return rows;
+            }
+
+            @Override
+            public Object getValueAt(int row, int column) {
+                return valueAt(loaded[row / pageSize], row % pageSize, column);
+            }
+
+            @Override
+            public Object[][] getDocuments() {
+                Object[][] documents = new Object[rows][getFieldNames().length];
+                for (int row = 0; row < rows; row++) {
+                    for (int column = 0; column < documents[row].length; column++) {
+                        documents[row][column] = getValueAt(row, column);
+                    }
+                }
+                return documents;
+            }
+        };
+    }
+
+    /** Nombre total de documents annoncé par le serveur, -1 s'il n'est pas (encore) connu. */
+    public long getTotalRowCount() {
+        return totalRowCount;
+    }
+
+    // ---------------------------------------------------------
+    // AbstractTableModel
+    // ---------------------------------------------------------
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames.get(column);
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int pageIndex = rowIndex / pageSize;
+        Page page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return null;
+        }
+        return valueAt(page, rowIndex % pageSize, columnIndex);
+    }
+
+    /** Valeur de la ligne i de la page (null si la page, en lecture, n'a pas encore cette ligne). */
+    private Object valueAt(Page page, int i, int columnIndex) {
+        // Paquet qui contient la ligne
+        for (int c = 0; c < page.chunks.size(); c++) {
+            DocumentSet chunk = page.chunks.get(c);
+            if (i < chunk.getRowCount()) {
+                int[] map = columnMap(page, c);
+                int column = columnIndex < map.length ? map[columnIndex] : -1;
+                return column < 0 ? null : chunk.getValueAt(i, column);
+            }
+            i -= chunk.getRowCount();
+        }
+        return null;
+    }
+
+    // ---------------------------------------------------------
+    // Chargement des pages
+    // ---------------------------------------------------------
+
+    private void requestPage(int page) {
+        if (inFlight.containsKey(page) || failedPages.contains(page)) {
+            return;
+        }
+
+        int gen = generation;
+        if (streamingLoader != null) {
+            PageWorker worker = new PageWorker(streamingLoader, gen, page, previousLastId(page));
+            inFlight.put(page, worker);
+            worker.execute();
+        } else if (loader != null) {
+            CompletableFuture<DocumentSet> future = loader.loadPage(page * pageSize, pageSize);
+            inFlight.put(page, future);
+
+            future.whenComplete((set, error) -> SwingUtilities.invokeLater(() -> {
+                if (inFlight.get(page) != future) {
+                    return; // annulée (reset, ou page retirée par applyChange)
+                }
+                if (error == null) {
+                    onChunkLoaded(gen, page, set);
+                    onPageLoaded(gen, page, set.getRowCount(), null);
+                } else {
+                    onPageLoaded(gen, page, 0, error);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Lecture d'une page par paquets : chaque paquet est publié dès qu'il est analysé,
+     * puis ajouté au modèle sur l'EDT par process().
+     */
+    private final class PageWorker extends SwingWorker<Integer, DocumentSet> {
+        private final KeysetPageLoader streamingLoader;
+        private final int gen;
+        private final int page;
+        private final Object afterId;
+
+        PageWorker(KeysetPageLoader streamingLoader, int gen, int page, Object afterId) {
+            this.streamingLoader = streamingLoader;
+            this.gen = gen;
+            this.page = page;
+            this.afterId = afterId;
+        }
+
+        @Override
+        protected Integer doInBackground() throws Exception {
+            return streamingLoader.loadPage(page * pageSize, afterId, pageSize, chunk -> {
+                if (isCancelled()) {
+                    throw new CancellationException(); // arrête la lecture du flux
+                }
+                publish(chunk);
+            });
+        }
+
+        @Override
+        protected void process(List<DocumentSet> chunks) {
+            if (isCancelled()) {
+                return;
+            }
+            for (DocumentSet chunk : chunks) {
+                onChunkLoaded(gen, page, chunk);
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                onPageLoaded(gen, page, get(), null);
+            } catch (ExecutionException e) {
+                onPageLoaded(gen, page, 0, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Ajoute un paquet de lignes à la page (la page entière, sans lecture par paquets). */
+    private void onChunkLoaded(int gen, int pageIndex, DocumentSet chunk) {
+        if (gen != generation) {
+            return; // résultat d'un ancien reset(), ignoré
+        }
+
+        boolean structureChanged = addColumns(chunk);
+
+        Page page = partialPages.computeIfAbsent(pageIndex, k -> new Page());
+        pages.put(pageIndex, page);
+        int chunkStart = pageIndex * pageSize + page.rowCount;
+        page.add(chunk);
+        int chunkEnd = chunkStart + chunk.getRowCount();
+
+        int oldCount = rowCount;
+        rowCount = Math.max(rowCount, chunkEnd);
+        loadedRows = Math.max(loadedRows, chunkEnd);
+
+        if (structureChanged) {
+            fireTableStructureChanged();
+            return;
+        }
+        if (rowCount > oldCount) {
+            fireTableRowsInserted(oldCount, rowCount - 1);
+        }
+        if (chunkEnd > chunkStart && chunkStart < oldCount) {
+            fireTableRowsUpdated(chunkStart, Math.min(chunkEnd, oldCount) - 1);
+        }
+    }
+
+    /** Fin du chargement d'une page : rowsInPage documents au total. */
+    private void onPageLoaded(int gen, int page, int rowsInPage, Throwable error) {
+        if (gen != generation) {
+            return; // résultat d'un ancien reset(), ignoré
+        }
+        inFlight.remove(page);
+        Page loaded = partialPages.remove(page);
+
+        if (error != null) {
+            pages.remove(page);
+            failedPages.add(page);
+            errorHandler.accept(error);
+            return;
+        }
+        pages.put(page, loaded != null ? loaded : new Page());
+
+        int pageStart = page * pageSize;
+        int pageEnd = pageStart + rowsInPage;
+        int oldCount = rowCount;
+
+        if (rowsInPage < pageSize) {
+            // Dernière page : le nombre exact de lignes est connu
+            endReached = true;
+            rowCount = pageEnd;
+        } else if (!endReached) {
+            // Une page "à venir" de plus, pour permettre le défilement,
+            // sauf si le total annoncé par le serveur va déjà au-delà
+            rowCount = Math.max(rowCount, totalRowCount > pageEnd ? pageEnd : pageEnd + pageSize);
+        }
+
+        if (rowCount > oldCount) {
+            fireTableRowsInserted(oldCount, rowCount - 1);
+        } else if (rowCount < oldCount) {
+            fireTableRowsDeleted(rowCount, oldCount - 1);
+        }
+    }
+
+    /** Total reçu du serveur : la table prend sa taille finale (estimation comprise). */
+    private void onTotalLoaded(long total) {
+        totalRowCount = total;
+        if (endReached) {
+            return; // le nombre exact de lignes est déjà connu
+        }
+
+        if (total <= loadedRows) {
+            return; // estimation dépassée : on garde les lignes reçues et la page "à venir"
+        }
+        int oldCount = rowCount;
+        rowCount = (int) Math.min(Integer.MAX_VALUE, total);
+
+        if (rowCount > oldCount) {
+            fireTableRowsInserted(oldCount, rowCount - 1);
+        } else if (rowCount < oldCount) {
+            fireTableRowsDeleted(rowCount, oldCount - 1);
+        }
+    }
+
+    /** Union des colonnes : les nouveaux champs sont ajoutés à la fin. true si des colonnes ont été ajoutées. */
+    private boolean addColumns(DocumentSet set) {
+        boolean added = false;
+        for (String field : set.getFieldNames()) {
+            if (!columnNames.contains(field)) {
+                columnNames.add(field);
+                added = true;
+            }
+        }
+        return added;
+    }
+
+    // ---------------------------------------------------------
+    // Modifications en direct
+    // ---------------------------------------------------------
+
+    /**
+     * Applique une modification reçue en direct, ligne par ligne, sans recharger la table.
+     *
+     * UPDATE : la ligne de ce _id est remplacée si sa page est en cache (sinon elle sera lue à jour).
+     * DELETE : la ligne est retirée et les suivantes remontent d'un rang ; une page en cache qui
+     * ne peut pas être complétée (page suivante absente) est relue quand elle est affichée.
+     * Une suppression hors des pages en cache n'est pas décomptée : la vue peut être filtrée.
+     * INSERT : avec idOrdered (vue triée par _id, où un nouveau document vient en dernier),
+     * la ligne est ajoutée en fin de table si la fin est chargée, sinon elle sera lue avec
+     * la dernière page. Avec un autre tri, sa position est inconnue : les pages en cache
+     * sont relues quand elles sont affichées.
+     * RESET : rien, c'est à l'appelant de recharger la vue.
+     */
+    public void applyChange(ChangeEvent change, boolean idOrdered) {
+        switch (change.getType()) {
+            case UPDATE:
+                applyUpdate(change.getId(), change.getDocument());
+                break;
+            case DELETE:
+                applyDelete(change.getId());
+                break;
+            case INSERT:
+                applyInsert(change.getId(), change.getDocument(), idOrdered);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void applyUpdate(String id, DocumentSet row) {
+        int[] position = findRow(id);
+        if (position == null) {
+            return;
+        }
+        Page page = pages.get(position[0]);
+        page.remove(position[1]);
+        page.insert(position[1], row);
+
+        int rowIndex = position[0] * pageSize + position[1];
+        if (addColumns(row)) {
+            fireTableStructureChanged();
+        } else {
+            fireTableRowsUpdated(rowIndex, rowIndex);
+        }
+    }
+
+    private void applyDelete(String id) {
+        int[] position = findRow(id);
+        if (position == null) {
+            return;
+        }
+        int rowIndex = position[0] * pageSize + position[1];
+        pages.get(position[0]).remove(position[1]);
+
+        // Chaque page suivante en cache cède sa première ligne à la précédente
+        int last = position[0];
+        Page next;
+        while ((next = pages.get(last + 1)) != null && !partialPages.containsKey(last + 1) && next.rowCount > 0) {
+            pages.get(last).add(next.remove(0));
+            last++;
+        }
+        boolean lastPageOfTable = endReached && last == (rowCount - 1) / pageSize;
+        if (!lastPageOfTable) {
+            // La page "last" n'est plus entière et les suivantes sont décalées d'un rang
+            evictFrom(last);
+        }
+
+        rowCount--;
+        loadedRows = Math.max(0, loadedRows - 1);
+        if (totalRowCount > 0) {
+            totalRowCount--;
+        }
+        fireTableRowsDeleted(rowIndex, rowIndex);
+    }
+
+    private void applyInsert(String id, DocumentSet row, boolean idOrdered) {
+        if (findRow(id) != null) {
+            return; // inséré pendant la lecture de sa page : déjà affiché et compté
+        }
+        boolean sizedByTotal = totalRowCount >= 0 && rowCount == totalRowCount;
+        if (totalRowCount >= 0) {
+            totalRowCount++;
+        }
+
+        if (!idOrdered) {
+            if (endReached || sizedByTotal) {
+                rowCount++;
+                fireTableRowsInserted(rowCount - 1, rowCount - 1);
+            }
+            evictFrom(0);
+            if (rowCount > 0) {
+                fireTableRowsUpdated(0, rowCount - 1);
+            }
+            return;
+        }
+
+        if (!endReached) {
+            // Lu avec la dernière page ; seule la taille annoncée change
+            if (sizedByTotal) {
+                rowCount++;
+                fireTableRowsInserted(rowCount - 1, rowCount - 1);
+            }
+            return;
+        }
+
+        int pageIndex = rowCount / pageSize;
+        if (partialPages.containsKey(pageIndex)) {
+            return; // dernière page en cours de lecture : elle le contiendra
+        }
+        Page page = pages.get(pageIndex);
+        if (page == null && rowCount % pageSize == 0) {
+            page = new Page();
+            pages.put(pageIndex, page);
+        }
+        if (page != null) {
+            page.add(row);
+        }
+        rowCount++;
+        loadedRows++;
+        if (addColumns(row)) {
+            fireTableStructureChanged();
+        } else {
+            fireTableRowsInserted(rowCount - 1, rowCount - 1);
+        }
+    }
+
+    /** { page, ligne dans la page } du document de ce _id parmi les pages entières en cache, null s'il n'y est pas. */
+    private int[] findRow(String id) {
+        for (Map.Entry<Integer, Page> entry : pages.entrySet()) {
+            if (partialPages.containsKey(entry.getKey())) {
+                continue;
+            }
+            int start = 0;
+            for (DocumentSet chunk : entry.getValue().chunks) {
+                String[] fields = chunk.getFieldNames();
+                for (int c = 0; c < fields.length; c++) {
+                    if (!"_id".equals(fields[c])) {
+                        continue;
+                    }
+                    for (int r = 0; r < chunk.getRowCount(); r++) {
+                        Object value = chunk.getValueAt(r, c);
+                        if (value != null && id.equals(value.toString())) {
+                            return new int[] { entry.getKey(), start + r };
+                        }
+                    }
+                }
+                start += chunk.getRowCount();
+            }
+        }
+        return null;
+    }
+
+    /** Retire du cache les pages à partir de first (relues quand elles sont affichées) et annule leur lecture. */
+    private void evictFrom(int first) {
+        pages.keySet().removeIf(page -> page >= first);
+        partialPages.keySet().removeIf(page -> page >= first);
+        failedPages.removeIf(page -> page >= first);
+        for (Iterator<Map.Entry<Integer, Future<?>>> it = inFlight.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Integer, Future<?>> entry = it.next();
+            if (entry.getKey() >= first) {
+                entry.getValue().cancel(true);
+                it.remove();
+            }
+        }
+    }
+
+    /** _id du dernier document de la page précédente si elle est entière et en cache, sinon null. */
+    private Object previousLastId(int pageIndex) {
+        if (pageIndex == 0 || partialPages.containsKey(pageIndex - 1)) {
+            return null;
+        }
+        Page previous = pages.get(pageIndex - 1);
+        if (previous == null || previous.rowCount != pageSize) {
+            return null;
+        }
+        // Le dernier paquet d'une lecture en flux peut être vide
+        for (int c = previous.chunks.size() - 1; c >= 0; c--) {
+            DocumentSet chunk = previous.chunks.get(c);
+            if (chunk.getRowCount() > 0) {
+                return chunk.getLastId();
+            }
+        }
+        return null;
+    }
+
+    /** Correspondance colonne du modèle -> colonne du paquet, recalculée si des colonnes ont été ajoutées. */
+    private int[] columnMap(Page page, int chunkIndex) {
+        int[] current = page.columnMaps.get(chunkIndex);
+        if (current.length != columnNames.size()) {
+            String[] fields = page.chunks.get(chunkIndex).getFieldNames();
+            Map<String, Integer> indexInChunk = new HashMap<>();
+            for (int j = 0; j < fields.length; j++) {
+                indexInChunk.put(fields[j], j);
+            }
+            int[] map = new int[columnNames.size()];
+            for (int c = 0; c < map.length; c++) {
+                Integer j = indexInChunk.get(columnNames.get(c));
+                map[c] = j == null ? -1 : j;
+            }
+            page.columnMaps.set(chunkIndex, map);
+            current = map;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,68 @@
+package com.minicompass.demo;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Chargements successifs d'une même vue : seul le dernier compte.
+ *
+ * Chaque submit() annule le chargement précédent encore en cours
+ * (CompletableFuture.cancel, qui interrompt aussi l'échange HTTP)
+ * et seul le résultat du dernier chargement est transmis, sur l'EDT.
+ *
+ * submit() et cancel() doivent être appelées sur l'EDT.
+ */
+public class LoadScheduler<T> {
+
+    private CompletableFuture<T> current;
+    private int generation = 0;
+
+    /**
+     * @param load      lance le chargement
+     * @param onSuccess appelé sur l'EDT avec le résultat, si aucun chargement plus récent n'a été demandé
+     * @param onError   appelé sur l'EDT en cas d'échec (jamais pour une annulation)
+     */
+    public void submit(Supplier<CompletableFuture<T>> load, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        cancel();
+
+        int gen = generation;
+        CompletableFuture<T> future = load.get();
+        current = future;
+
+        future.whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+            if (gen != generation) {
+                return; // remplacé par un chargement plus récent
+            }
+            current = null;
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error;
+            if (cause instanceof CancellationException) {
+                return;
+            }
+            if (cause != null) {
+                onError.accept(cause);
+            } else {
+                onSuccess.accept(value);
+            }
+        }));
+    }
+
+    /** Annule le chargement en cours ; son résultat ne sera pas transmis. */
+    public void cancel() {
+        generation++;
+        if (current != null) {
+            current.cancel(true);
+            current = null;
+        }
+    }
+
+    public boolean isLoading() {
+        return current != null;
+    }
+}
@@ -0,0 +1,146 @@
+package com.minicompass.demo;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.minicompass.demo.ClientMetrics.EndpointStats;
+
+/**
+ * Petit panneau de statistiques réseau : une ligne par endpoint de ApiClient.
+ * Rafraîchi chaque seconde tant qu'il est affiché.
+ */
+public class MetricsPanel extends JPanel {
+
+    private static final String[] COLUMNS = {
+            "Endpoint", "Route (PathBuilder)", "Requêtes", "Erreurs", "Relances", "Doublées", "Req/s",
+            "p50 (ms)", "p95 (ms)", "p99 (ms)", "max (ms)",
+            "Analyse p50 (ms)", "Analyse p95 (ms)", "Ko reçus"
+    };
+
+    private final ClientMetrics metrics;
+    private final StatsTableModel tableModel = new StatsTableModel();
+    private final JLabel summaryLabel = new JLabel();
+    private final Timer refreshTimer;
+
+    public MetricsPanel(ClientMetrics metrics) {
+        super(new BorderLayout(5, 5));
+        this.metrics = metrics;
+
+        setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+        JTable table = new JTable(tableModel);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JButton refreshButton = new JButton("Actualiser");
+        JButton resetButton = new JButton("Réinitialiser");
+        refreshButton.addActionListener(e -> refresh());
+        resetButton.addActionListener(e -> {
+            metrics.reset();
+            refresh();
+        });
+
+        JPanel south = new JPanel(new BorderLayout());
+        south.add(summaryLabel, BorderLayout.WEST);
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(refreshButton);
+        buttons.add(resetButton);
+        south.add(buttons, BorderLayout.EAST);
+        add(south, BorderLayout.SOUTH);
+
+        refreshTimer = new Timer(1000, e -> refresh());
+        refresh();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refreshTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        refreshTimer.stop();
+        super.removeNotify();
+    }
+
+    private void refresh() {
+        ClientMetrics.Snapshot snapshot = metrics.snapshot();
+        List<EndpointStats> rows = new ArrayList<>();
+        for (EndpointStats stats : snapshot.getEndpoints()) {
+            if (stats.getRequests() > 0 || stats.getErrors() > 0) {
+                rows.add(stats);
+            }
+        }
+        tableModel.setRows(rows);
+        summaryLabel.setText(String.format("Mesures sur %.0f s", snapshot.getElapsedNanos() / 1e9));
+    }
+
+    private static class StatsTableModel extends AbstractTableModel {
+        private List<EndpointStats> rows = new ArrayList<>();
+
+        void setRows(List<EndpointStats> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            EndpointStats s = rows.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return s.getEndpoint().name();
+                case 1:
+                    return s.getEndpoint().getRoute();
+                case 2:
+                    return s.getRequests();
+                case 3:
+                    return s.getErrors();
+                case 4:
+                    return s.getRetries();
+                case 5:
+                    return s.getHedges();
+                case 6:
+                    return format(s.getRequestsPerSecond());
+                case 7:
+                    return format(s.getRoundTrip().getP50Millis());
+                case 8:
+                    return format(s.getRoundTrip().getP95Millis());
+                case 9:
+                    return format(s.getRoundTrip().getP99Millis());
+                case 10:
+                    return format(s.getRoundTrip().getMaxMillis());
+                case 11:
+                    return format(s.getParse().getP50Millis());
+                case 12:
+                    return format(s.getParse().getP95Millis());
+                case 13:
+                    return s.getBytes() / 1024;
+                default:
+                    return null;
+            }
+        }
+
+        private static String format(double value) {
+            return String.format("%.2f", value);
+        }
+    }
+}
@@ -11,9 +11,14 @@ public class PathBuilder {
         return "/collections";
     }
 
+    /** /collections/{collection} */
+    public static String collectionPath(String collectionName) {
+        return "/collections/" + encode(require(collectionName));
+    }
+
     /** /collections/{collection}/documents */
     public static String documentsPath(String collectionName) {
-        return "/collections/" + encode(require(collectionName)) + "/documents";
+        return collectionPath(collectionName) + "/documents";
     }
 
     /** /collections/{collection}/documents/{id} */
@@ -21,6 +26,26 @@ public class PathBuilder {
         return documentsPath(collectionName) + "/" + encode(require(id));
     }
 
+    /** /collections/{collection}/documents/bulk (POST insertion, PATCH mise à jour) */
+    public static String bulkDocumentsPath(String collectionName) {
+        return documentsPath(collectionName) + "/bulk";
+    }
+
+    /** /collections/{collection}/documents/bulk-delete */
+    public static String bulkDeletePath(String collectionName) {
+        return documentsPath(collectionName) + "/bulk-delete";
+    }
+
+    /** /collections/{collection}/count */
+    public static String countPath(String collectionName) {
+        return collectionPath(collectionName) + "/count";
+    }
+
+    /** /collections/{collection}/changes (Server-Sent Events) */
+    public static String changesPath(String collectionName) {
+        return collectionPath(collectionName) + "/changes";
+    }
+
     public static String existsDocumentPath(String collectionName) {
         return documentsPath(collectionName) + "/exists";
     }
@@ -71,6 +96,30 @@ public class PathBuilder {
         return buildQuery(withDatabase(params, databaseName));
     }
 
+    /** Génère ?limit=50&skip=100&field=name&value=Alice + éventuellement db=... */
+    public static String searchQuery(int limit, int skip, String field, String value, String databaseName) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("limit", String.valueOf(limit));
+        params.put("skip", String.valueOf(skip));
+        params.put("field", field);
+        params.put("value", value);
+        return buildQuery(withDatabase(params, databaseName));
+    }
+
+    /** Génère ?limit=50&skip=100&field=name&value=Alice&fields=name,age + éventuellement db=... */
+    public static String searchQuery(int limit, int skip, String field, String value, Projection projection,
+            String databaseName) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("limit", String.valueOf(limit));
+        params.put("skip", String.valueOf(skip));
+        params.put("field", field);
+        params.put("value", value);
+        if (projection != null) {
+            projection.addTo(params);
+        }
+        return buildQuery(withDatabase(params, databaseName));
+    }
+
     /** Génère ?limit=50&field=name&value=Alice */
     public static String fieldQuery(String field, String value) {
         Map<String, String> params = new LinkedHashMap<>();
@@ -103,6 +152,91 @@ public class PathBuilder {
         return buildQuery(withDatabase(params, databaseName));
     }
 
+    /** Génère ?limit=50&skip=20&fields=name,age (ou &exclude=photo) + éventuellement db=... */
+    public static String paginationQuery(int limit, int skip, Projection projection, String databaseName) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("limit", String.valueOf(limit));
+        params.put("skip", String.valueOf(skip));
+        if (projection != null) {
+            projection.addTo(params);
+        }
+        return buildQuery(withDatabase(params, databaseName));
+    }
+
+    /** Génère ?limit=50&skip=0&q={...}&sort=-age&hint=age_1&fields=... + éventuellement db=... */
+    public static String documentQuery(int limit, int skip, DocumentQuery query, Projection projection,
+            String databaseName) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("limit", String.valueOf(limit));
+        params.put("skip", String.valueOf(skip));
+        if (query != null) {
+            query.addTo(params);
+        }
+        if (projection != null) {
+            projection.addTo(params);
+        }
+        return buildQuery(withDatabase(params, databaseName));
+    }
+
+    /**
+     * Génère ?limit=50&afterId=...&q={...}&fields=... + éventuellement db=... (pagination par clé).
+     * afterId : documents suivant ce _id ; beforeId : documents le précédant (un seul des deux, ou
+     * aucun pour la première page). Le tri de query doit être vide ou _id ; sort=_id est toujours
+     * envoyé, sinon la première page suivrait l'ordre naturel de la collection.
+     * Un _id numérique (Number) est envoyé avec idType=number : MongoDB ne compare pas un texte
+     * à un nombre, "5" en texte ne retiendrait aucun document.
+     */
+    public static String keysetQuery(int limit, Object afterId, Object beforeId, DocumentQuery query,
+            Projection projection, String databaseName) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("limit", String.valueOf(limit));
+        params.put("afterId", afterId == null ? null : afterId.toString());
+        params.put("beforeId", beforeId == null ? null : beforeId.toString());
+        if (afterId instanceof Number || beforeId instanceof Number) {
+            params.put("idType", "number");
+        }
+        if (query != null) {
+            query.addTo(params);
+        }
+        params.putIfAbsent("sort", "_id");
+        if (projection != null) {
+            projection.addTo(params);
+        }
+        return buildQuery(withDatabase(params, databaseName));
+    }
+
+    /**
+     * Génère ?field=name&value=Alice&q={...} + éventuellement db=... (paramètres null omis).
+     * Seul le filtre de query est utilisé : le tri et l'index ne changent pas le nombre de documents.
+     */
+    public static String countQuery(String field, String value, DocumentQuery query, String databaseName) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("field", field);
+        params.put("value", value);
+        if (query != null && query.getFilter() != null) {
+            params.put("q", query.getFilter().toString());
+        }
+        return buildQuery(withDatabase(params, databaseName));
+    }
+
+    /**
+     * Génère ?field=name&value=Alice&q={...}&fields=... + éventuellement db=... (suivi en direct).
+     * Seul le filtre de query est utilisé : les modifications arrivent dans l'ordre où elles ont lieu.
+     */
+    public static String changesQuery(String field, String value, DocumentQuery query, Projection projection,
+            String databaseName) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("field", field);
+        params.put("value", value);
+        if (query != null && query.getFilter() != null) {
+            params.put("q", query.getFilter().toString());
+        }
+        if (projection != null) {
+            projection.addTo(params);
+        }
+        return buildQuery(withDatabase(params, databaseName));
+    }
+
     // ------------------------------------------------------------
     // Helpers
     // ------------------------------------------------------------
@@ -0,0 +1,105 @@
+package com.minicompass.demo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Champs à renvoyer par le serveur pour chaque document (projection MongoDB).
+ *
+ * - include("name", "age") : seulement ces champs (+ _id, renvoyé par défaut) → ?fields=name,age
+ * - exclude("photo")       : tous les champs sauf ceux-ci                    → ?exclude=photo
+ *
+ * null (ou ALL) : documents complets.
+ */
+public class Projection {
+
+    /** Documents complets (aucun paramètre ajouté). */
+    public static final Projection ALL = new Projection(false, Collections.emptyList());
+
+    private final boolean exclude;
+    private final List<String> fields;
+
+    private Projection(boolean exclude, List<String> fields) {
+        this.exclude = exclude;
+        this.fields = Collections.unmodifiableList(fields);
+    }
+
+    public static Projection include(String... fields) {
+        return include(Arrays.asList(fields));
+    }
+
+    public static Projection include(List<String> fields) {
+        return new Projection(false, clean(fields));
+    }
+
+    public static Projection exclude(String... fields) {
+        return exclude(Arrays.asList(fields));
+    }
+
+    public static Projection exclude(List<String> fields) {
+        return new Projection(true, clean(fields));
+    }
+
+    /**
+     * Lit une liste saisie par l'utilisateur : "name, age" (inclusion) ou "-photo, -cv" (exclusion).
+     * Chaîne vide : ALL. Les deux formes ne peuvent pas être mélangées (comme dans MongoDB).
+     */
+    public static Projection parse(String text) {
+        if (text == null || text.isBlank()) {
+            return ALL;
+        }
+        List<String> included = new ArrayList<>();
+        List<String> excluded = new ArrayList<>();
+        for (String part : text.split(",")) {
+            String name = part.trim();
+            if (name.startsWith("-")) {
+                excluded.add(name.substring(1).trim());
+            } else if (!name.isEmpty()) {
+                included.add(name);
+            }
+        }
+        if (!included.isEmpty() && !excluded.isEmpty()) {
+            throw new IllegalArgumentException("Cannot mix included and excluded fields");
+        }
+        return excluded.isEmpty() ? include(included) : exclude(excluded);
+    }
+
+    public boolean isExclude() {
+        return exclude;
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public boolean isAll() {
+        return fields.isEmpty();
+    }
+
+    /** Ajoute fields=... ou exclude=... aux paramètres de la requête. */
+    void addTo(Map<String, String> params) {
+        if (!isAll()) {
+            params.put(exclude ? "exclude" : "fields", String.join(",", fields));
+        }
+    }
+
+    private static List<String> clean(List<String> fields) {
+        List<String> result = new ArrayList<>();
+        for (String field : fields) {
+            if (field == null || field.isBlank()) {
+                continue;
+            }
+            String name = field.trim();
+            if (name.startsWith("$") || name.contains(",")) {
+                throw new IllegalArgumentException("Invalid field name: " + name);
+            }
+            if (!result.contains(name)) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+package com.minicompass.demo;
+
+import java.net.URI;
+
+/**
+ * Point d'extension pour journaliser les échanges HTTP de ApiClient.
+ *
+ * ApiClient appelle d'abord isEnabled(...) : si le niveau est désactivé,
+ * aucun formatage, aucune mesure de temps et aucune allocation n'a lieu.
+ */
+public interface RequestLogger {
+
+    enum Level {
+        /** Rien n'est journalisé. */
+        OFF,
+        /** Méthode, URI, statut et durée. */
+        BASIC,
+        /** BASIC + corps de la réponse (s'il a été lu sous forme de String). */
+        BODY
+    }
+
+    /** Logger qui ne fait rien (valeur par défaut). */
+    RequestLogger NONE = new RequestLogger() {
+        @Override
+        public boolean isEnabled(Level level) {
+            return false;
+        }
+
+        @Override
+        public void logExchange(String method, URI uri, int statusCode, long elapsedNanos, String body) {
+        }
+    };
+
+    boolean isEnabled(Level level);
+
+    /**
+     * Appelé après chaque échange, seulement si isEnabled(BASIC).
+     *
+     * @param body corps de la réponse si isEnabled(BODY) et disponible, sinon null
+     */
+    void logExchange(String method, URI uri, int statusCode, long elapsedNanos, String body);
+}
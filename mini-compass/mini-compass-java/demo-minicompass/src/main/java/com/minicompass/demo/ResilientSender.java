@@ -0,0 +1,252 @@
+package com.minicompass.demo;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import com.minicompass.demo.ClientMetrics.Endpoint;
+
+/**
+ * Envoi des requêtes de ApiClient et AsyncApiClient avec :
+ * - CircuitBreaker : refus immédiat tant que l'API est considérée hors service ;
+ * - RetryPolicy : nouvelles tentatives des GET après une erreur réseau ou un 502 / 503 / 504 ;
+ * - requête doublée ("hedged") pour les GET : si la réponse tarde au-delà du percentile
+ *   configuré des durées déjà mesurées pour cet endpoint, une 2e requête identique
+ *   est envoyée et la première réponse reçue l'emporte.
+ *
+ * Les requêtes qui modifient des données (POST, PUT, PATCH, DELETE) ne sont
+ * ni relancées ni doublées.
+ */
+final class ResilientSender {
+
+    /** Nombre minimal de mesures avant de se fier au percentile. */
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
+    private final HttpClient httpClient;
+    private final ClientMetrics metrics;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final double hedgePercentile;
+
+    /**
+     * @param circuitBreaker  null : pas de disjoncteur
+     * @param hedgePercentile entre 0 et 1 (0.95 : doubler au-delà du p95), 0 : jamais
+     */
+    ResilientSender(HttpClient httpClient, ClientMetrics metrics, RetryPolicy retryPolicy,
+            CircuitBreaker circuitBreaker, double hedgePercentile) {
+        this.httpClient = httpClient;
+        this.metrics = metrics;
+        this.retryPolicy = retryPolicy == null ? RetryPolicy.NONE : retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    <T> CompletableFuture<HttpResponse<T>> sendAsync(Endpoint endpoint, HttpRequest request,
+            HttpResponse.BodyHandler<T> handler) {
+        Exchange<T> exchange = new Exchange<>(endpoint, request, handler);
+        exchange.start();
+        return exchange.result;
+    }
+
+    /** Version bloquante de sendAsync : relance les IOException telles quelles. */
+    <T> HttpResponse<T> send(Endpoint endpoint, HttpRequest request,
+            HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException {
+        CompletableFuture<HttpResponse<T>> future = sendAsync(endpoint, request, handler);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /** Une requête logique : une ou plusieurs tentatives, chacune éventuellement doublée. */
+    private final class Exchange<T> {
+        final Endpoint endpoint;
+        final HttpRequest request;
+        final HttpResponse.BodyHandler<T> handler;
+        final boolean idempotent;
+        final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+
+        private volatile CompletableFuture<HttpResponse<T>> current;
+        private int attempt = 0;
+
+        Exchange(Endpoint endpoint, HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+            this.endpoint = endpoint;
+            this.request = request;
+            this.handler = handler;
+            this.idempotent = "GET".equals(request.method());
+
+            // Annulation par l'appelant : la tentative en cours est abandonnée
+            result.whenComplete((response, error) -> {
+                CompletableFuture<HttpResponse<T>> inFlight = current;
+                if (result.isCancelled() && inFlight != null) {
+                    inFlight.cancel(true);
+                }
+            });
+        }
+
+        void start() {
+            if (result.isDone()) {
+                return;
+            }
+            attempt++;
+
+            if (circuitBreaker != null) {
+                try {
+                    circuitBreaker.acquire();
+                } catch (CircuitOpenException e) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+            }
+
+            CompletableFuture<HttpResponse<T>> future = idempotent && hedgePercentile > 0
+                    ? sendHedged()
+                    : httpClient.sendAsync(request, handler);
+            current = future;
+            future.whenComplete(this::onAttemptDone);
+        }
+
+        private void onAttemptDone(HttpResponse<T> response, Throwable error) {
+            Throwable cause = unwrap(error);
+
+            if (result.isDone()) {
+                // Annulé entre-temps
+                discard(response);
+                releaseBreaker();
+                return;
+            }
+            if (cause != null && !(cause instanceof IOException)) {
+                // Annulation ou erreur de programmation : pas une panne de l'API
+                releaseBreaker();
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            boolean failed = cause != null || RetryPolicy.isRetryableStatus(response.statusCode());
+            if (!failed) {
+                if (circuitBreaker != null) {
+                    circuitBreaker.onSuccess();
+                }
+                result.complete(response);
+                return;
+            }
+
+            if (circuitBreaker != null) {
+                circuitBreaker.onFailure();
+            }
+            if (idempotent && attempt < retryPolicy.getMaxAttempts()) {
+                metrics.recordRetry(endpoint);
+                discard(response);
+                CompletableFuture.delayedExecutor(retryPolicy.delayNanos(attempt), TimeUnit.NANOSECONDS)
+                        .execute(this::start);
+                return;
+            }
+
+            // Plus de tentative : l'erreur (ou la réponse 5xx) est rendue à l'appelant
+            if (cause != null) {
+                result.completeExceptionally(cause);
+            } else {
+                result.complete(response);
+            }
+        }
+
+        /**
+         * Envoie la requête ; si aucune réponse n'est arrivée après le seuil (percentile
+         * des durées mesurées), en envoie une copie. La première réponse valide est gardée,
+         * l'autre est abandonnée.
+         */
+        private CompletableFuture<HttpResponse<T>> sendHedged() {
+            CompletableFuture<HttpResponse<T>> primary = httpClient.sendAsync(request, handler);
+            long thresholdNanos = hedgeThresholdNanos(endpoint);
+            if (thresholdNanos <= 0) {
+                return primary;
+            }
+
+            CompletableFuture<HttpResponse<T>> winner = new CompletableFuture<>();
+            AtomicInteger pending = new AtomicInteger(1);
+
+            BiConsumer<HttpResponse<T>, Throwable> onResponse = (response, error) -> {
+                if (error == null && !RetryPolicy.isRetryableStatus(response.statusCode())) {
+                    if (!winner.complete(response)) {
+                        discard(response);
+                    }
+                    return;
+                }
+                // Échec : on attend l'autre requête si elle est encore en cours
+                if (pending.decrementAndGet() == 0) {
+                    boolean kept = error != null ? winner.completeExceptionally(error) : winner.complete(response);
+                    if (!kept) {
+                        discard(response);
+                    }
+                } else {
+                    discard(response);
+                }
+            };
+            primary.whenComplete(onResponse);
+
+            CompletableFuture.delayedExecutor(thresholdNanos, TimeUnit.NANOSECONDS).execute(() -> {
+                if (winner.isDone()) {
+                    return;
+                }
+                pending.incrementAndGet();
+                metrics.recordHedge(endpoint);
+                CompletableFuture<HttpResponse<T>> hedge = httpClient.sendAsync(request, handler);
+                hedge.whenComplete(onResponse);
+                winner.whenComplete((response, error) -> hedge.cancel(true));
+            });
+            winner.whenComplete((response, error) -> primary.cancel(true));
+
+            return winner;
+        }
+
+        private void releaseBreaker() {
+            if (circuitBreaker != null) {
+                circuitBreaker.onCancelled();
+            }
+        }
+    }
+
+    private long hedgeThresholdNanos(Endpoint endpoint) {
+        if (metrics.roundTripCount(endpoint) < MIN_HEDGE_SAMPLES) {
+            return 0;
+        }
+        return metrics.roundTripPercentileNanos(endpoint, hedgePercentile);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    /** Réponse abandonnée : un corps lu en flux doit être fermé pour libérer la connexion. */
+    private static void discard(HttpResponse<?> response) {
+        if (response != null && response.body() instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) response.body()).close();
+            } catch (Exception ignored) {
+                // corps abandonné
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.minicompass.demo;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache mémoire des lectures (collections, pages de documents).
+ *
+ * - clé : nom de la base + path complet produit par PathBuilder (query string incluse) ;
+ * - borné en nombre d'entrées ET en octets (taille de la réponse reçue) ;
+ * - chaque entrée expire après un TTL ;
+ * - éviction LRU quand une des deux bornes est dépassée.
+ *
+ * Les écritures sur une collection appellent invalidateCollection(...).
+ * Une lecture partie avant l'écriture peut se terminer après : elle relève generation(...)
+ * avant d'envoyer sa requête, et put(...) refuse sa réponse si la collection a été invalidée entre-temps.
+ * Toutes les méthodes sont thread-safe.
+ */
+public class ResponseCache {
+
+    private static final class Key {
+        private final String database;
+        private final String path;
+
+        Key(String database, String path) {
+            this.database = database == null ? "" : database;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return database.equals(other.database) && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(database, path);
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long bytes;
+        private final long expiresAt;
+
+        Entry(Object value, long bytes, long expiresAt) {
+            this.value = value;
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+
+    /** Nombre d'invalidations par collection (et pour la liste des collections), par base. */
+    private final Map<Key, Long> generations = new HashMap<>();
+
+    public ResponseCache(int maxEntries, long maxBytes, Duration ttl) {
+        if (maxEntries <= 0 || maxBytes <= 0 || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Cache bounds and TTL must be > 0");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /** Retourne la valeur en cache, ou null si absente ou expirée. */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(String database, String path) {
+        Key key = new Key(database, path);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            remove(key);
+            return null;
+        }
+        return (T) entry.value;
+    }
+
+    /**
+     * Génération courante de la collection visée par path (ou de la liste des collections).
+     * À relever avant d'envoyer la requête, puis à passer à put(...).
+     */
+    public synchronized long generation(String database, String path) {
+        return generations.getOrDefault(new Key(database, scopeOf(path)), 0L);
+    }
+
+    /**
+     * Ajoute (ou remplace) une valeur.
+     * bytes : taille de la réponse, utilisée pour la borne en octets.
+     * generation : valeur de generation(database, path) relevée avant la requête ;
+     * si la collection a été invalidée depuis, la réponse est périmée et n'est pas ajoutée.
+     */
+    public synchronized void put(String database, String path, Object value, long bytes, long generation) {
+        if (value == null || bytes > maxBytes || generation != generation(database, path)) {
+            return;
+        }
+        Key key = new Key(database, path);
+        remove(key);
+
+        entries.put(key, new Entry(value, bytes, System.nanoTime() + ttlNanos));
+        totalBytes += bytes;
+
+        // Éviction LRU (les plus anciens accès en premier)
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && it.hasNext()) {
+            totalBytes -= it.next().getValue().bytes;
+            it.remove();
+        }
+    }
+
+    /**
+     * Supprime tout ce qui concerne une collection (pages, recherches, ...)
+     * ainsi que la liste des collections de la base (une insertion peut créer la collection).
+     */
+    public synchronized void invalidateCollection(String database, String collectionName) {
+        String db = database == null ? "" : database;
+        String prefix = PathBuilder.collectionPath(collectionName) + "/";
+        String collectionsPath = PathBuilder.collectionsPath();
+        generations.merge(new Key(db, PathBuilder.collectionPath(collectionName)), 1L, Long::sum);
+        generations.merge(new Key(db, collectionsPath), 1L, Long::sum);
+
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            Key key = e.getKey();
+            if (!key.database.equals(db)) {
+                continue;
+            }
+            if (key.path.startsWith(prefix) || isPath(key.path, collectionsPath)) {
+                totalBytes -= e.getValue().bytes;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long sizeInBytes() {
+        return totalBytes;
+    }
+
+    private void remove(Key key) {
+        Entry old = entries.remove(key);
+        if (old != null) {
+            totalBytes -= old.bytes;
+        }
+    }
+
+    /**
+     * Portée d'invalidation d'un path : /collections/{collection} pour tout ce qui concerne
+     * une collection, /collections pour le reste (liste des collections).
+     */
+    private static String scopeOf(String path) {
+        String base = PathBuilder.collectionsPath() + "/";
+        if (!path.startsWith(base)) {
+            return PathBuilder.collectionsPath();
+        }
+        int end = path.length();
+        for (int i = base.length(); i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '/' || c == '?') {
+                end = i;
+                break;
+            }
+        }
+        return path.substring(0, end);
+    }
+
+    /** path == base ou base suivi d'une query string. */
+    private static boolean isPath(String path, String base) {
+        return path.equals(base) || path.startsWith(base + "?");
+    }
+}
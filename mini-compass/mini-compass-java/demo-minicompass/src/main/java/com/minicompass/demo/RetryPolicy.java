@@ -0,0 +1,60 @@
+package com.minicompass.demo;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Nouvelles tentatives des requêtes idempotentes (GET) après une erreur réseau
+ * ou une réponse 502 / 503 / 504.
+ *
+ * Attente avant la tentative n+1 : valeur aléatoire entre 0 et
+ * min(maxDelay, baseDelay * 2^(n-1)) ("full jitter"), pour que plusieurs clients
+ * ne relancent pas tous au même instant.
+ */
+public class RetryPolicy {
+
+    /** Une seule tentative. */
+    public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO);
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+
+    /**
+     * @param maxAttempts nombre total de tentatives (1 : pas de nouvelle tentative)
+     * @param baseDelay   attente de référence avant la 2e tentative
+     * @param maxDelay    attente maximale entre deux tentatives
+     */
+    public RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be >= 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayNanos = baseDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    /** 3 tentatives, 100 ms puis 200 ms d'attente maximale (2 s au plus). */
+    public static RetryPolicy defaults() {
+        return new RetryPolicy(3, Duration.ofMillis(100), Duration.ofSeconds(2));
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /** Attente avant la tentative attempt + 1 (attempt commence à 1). */
+    long delayNanos(int attempt) {
+        int shift = Math.min(attempt - 1, 30);
+        long ceiling = Math.min(maxDelayNanos, baseDelayNanos << shift);
+        if (ceiling <= 0) {
+            return 0;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /** Réponses du serveur (ou d'un proxy) qui signalent une indisponibilité passagère. */
+    static boolean isRetryableStatus(int statusCode) {
+        return statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+}
@@ -0,0 +1,170 @@
+package com.minicompass.demo;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Regroupement des lectures identiques simultanées ("single-flight").
+ *
+ * Tant qu'une lecture (base + path complet) est en cours, les demandes identiques
+ * n'envoient pas de nouvelle requête : elles attendent le même résultat
+ * (le même DocumentSet, déjà analysé). L'entrée disparaît dès que la lecture se termine ;
+ * pour garder le résultat plus longtemps, c'est le rôle de ResponseCache.
+ *
+ * Une demande asynchrone annulée ne gêne pas les autres : la requête n'est annulée
+ * que lorsque toutes les demandes qui l'attendent ont été annulées.
+ */
+class SingleFlight {
+
+    private static final class Key {
+        private final String database;
+        private final String path;
+
+        Key(String database, String path) {
+            this.database = database == null ? "" : database;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return database.equals(other.database) && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(database, path);
+        }
+    }
+
+    /** Lecture en cours et nombre de demandes qui l'attendent. */
+    private static final class Flight {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        final AtomicInteger waiters = new AtomicInteger(1);
+        volatile CompletableFuture<?> source;
+    }
+
+    /** Chargement synchrone (exécuté sur le thread de l'appelant). */
+    interface Loader<T> {
+        T load() throws IOException, InterruptedException;
+    }
+
+    private final Map<Key, Flight> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Version bloquante : le premier appelant exécute loader sur son thread,
+     * les suivants attendent son résultat.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T call(String database, String path, Loader<T> loader) throws IOException, InterruptedException {
+        Key key = new Key(database, path);
+        Flight flight = new Flight();
+        Flight existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            existing.waiters.incrementAndGet();
+            return (T) await(existing.result);
+        }
+
+        try {
+            T value = loader.load();
+            flight.result.complete(value);
+            return value;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Version asynchrone : loader n'est appelé que si aucune lecture identique n'est en cours.
+     * Chaque appelant reçoit son propre CompletableFuture.
+     */
+    @SuppressWarnings("unchecked")
+    <T> CompletableFuture<T> callAsync(String database, String path, Supplier<CompletableFuture<T>> loader) {
+        Key key = new Key(database, path);
+        Flight flight = new Flight();
+        Flight existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            existing.waiters.incrementAndGet();
+            return (CompletableFuture<T>) share(existing);
+        }
+
+        CompletableFuture<T> source;
+        try {
+            source = loader.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.result.completeExceptionally(e);
+            return CompletableFuture.failedFuture(e);
+        }
+        flight.source = source;
+        source.whenComplete((value, error) -> {
+            inFlight.remove(key, flight);
+            if (error != null) {
+                flight.result.completeExceptionally(error);
+            } else {
+                flight.result.complete(value);
+            }
+        });
+        return (CompletableFuture<T>) share(flight);
+    }
+
+    /**
+     * Les lectures en cours dont le path commence par prefix ne sont plus partagées :
+     * après une écriture, une nouvelle lecture doit repartir du serveur.
+     */
+    void forget(String database, String prefix) {
+        String db = database == null ? "" : database;
+        inFlight.keySet().removeIf(key -> key.database.equals(db) && key.path.startsWith(prefix));
+    }
+
+    /** Copie propre à un appelant ; l'annuler ne fait que retirer cet appelant. */
+    private static CompletableFuture<Object> share(Flight flight) {
+        CompletableFuture<Object> copy = flight.result.copy();
+        copy.whenComplete((value, error) -> {
+            if (copy.isCancelled() && flight.waiters.decrementAndGet() == 0) {
+                CompletableFuture<?> source = flight.source;
+                if (source != null) {
+                    source.cancel(true);
+                }
+            }
+        });
+        return copy;
+    }
+
+    private static Object await(CompletableFuture<Object> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw new IOException("Lecture partagée interrompue", cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (CancellationException e) {
+            throw new IOException("Lecture partagée annulée", e);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.minicompass.demo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.minicompass.demo.ApiClient.DocumentSet;
+
+/**
+ * Instantané local d'une collection (voir SnapshotStore), lu directement dans le fichier
+ * projeté en mémoire (MappedByteBuffer) : l'ouverture ne lit que l'en-tête et la liste
+ * des champs, quelle que soit la taille du fichier. Une ligne n'est décodée que
+ * lorsqu'une de ses valeurs est demandée ; les pages non affichées ne coûtent rien.
+ *
+ * Format (big-endian) :
+ *
+ *   en-tête (64 octets) : "MCSNAP" 0 1, date de l'instantané (ms), nombre de documents,
+ *                         position de la liste des champs, position de l'index
+ *   documents           : nombre de champs (varint), puis pour chaque champ :
+ *                         numéro du champ (varint), type (1 octet), valeur
+ *                         (texte : longueur varint + UTF-8 ; entier et décimal : 8 octets)
+ *   champs              : nombre (int), puis longueur (int) + nom en UTF-8
+ *   index               : position de chaque document (long)
+ *
+ * Les valeurs sont celles de DocumentStreamParser : String (sous-documents et tableaux
+ * en JSON compact), Long, Double, Boolean, null.
+ *
+ * Un MappedByteBuffer ne dépasse pas 2 Go : le fichier est projeté par segments de 1 Go
+ * qui se chevauchent de MAX_DOCUMENT_BYTES, de sorte qu'un document est toujours
+ * entier dans le segment où il commence.
+ *
+ * Lecture seule, utilisable depuis plusieurs threads.
+ */
+public final class SnapshotDocumentSet extends DocumentSet implements Closeable {
+
+    static final byte[] MAGIC = { 'M', 'C', 'S', 'N', 'A', 'P', 0, 1 };
+    static final int HEADER_BYTES = 64;
+    /** Taille maximale d'un document encodé (comme la limite BSON de MongoDB). */
+    static final int MAX_DOCUMENT_BYTES = 16 * 1024 * 1024;
+
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte LONG = 2;
+    static final byte DOUBLE = 3;
+    static final byte TRUE = 4;
+    static final byte FALSE = 5;
+
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long createdMillis;
+    private final int rowCount;
+    private final long indexPosition;
+
+    private SnapshotDocumentSet(Path file, FileChannel channel, MappedByteBuffer[] segments, String[] fieldNames,
+            long createdMillis, int rowCount, long indexPosition) {
+        super(fieldNames);
+        this.file = file;
+        this.channel = channel;
+        this.segments = segments;
+        this.createdMillis = createdMillis;
+        this.rowCount = rowCount;
+        this.indexPosition = indexPosition;
+    }
+
+    /** Ouvre un fichier écrit par SnapshotStore. */
+    public static SnapshotDocumentSet open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            int count = (int) ((size + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+            MappedByteBuffer[] segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = i * SEGMENT_BYTES;
+                long length = Math.min(size - start, SEGMENT_BYTES + MAX_DOCUMENT_BYTES);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+
+            ByteBuffer header = segments[0];
+            byte[] magic = new byte[MAGIC.length];
+            header.get(0, magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            long createdMillis = header.getLong(8);
+            long rows = header.getLong(16);
+            long fieldsPosition = header.getLong(24);
+            long indexPosition = header.getLong(32);
+            if (rows < 0 || rows > Integer.MAX_VALUE || fieldsPosition < HEADER_BYTES
+                    || indexPosition < fieldsPosition || indexPosition + rows * Long.BYTES != size) {
+                throw new IOException("Corrupted snapshot file: " + file);
+            }
+
+            ByteBuffer fields = segment(segments, fieldsPosition);
+            int at = offset(fieldsPosition);
+            String[] fieldNames = new String[fields.getInt(at)];
+            at += Integer.BYTES;
+            for (int i = 0; i < fieldNames.length; i++) {
+                int length = fields.getInt(at);
+                byte[] name = new byte[length];
+                fields.get(at + Integer.BYTES, name);
+                fieldNames[i] = new String(name, StandardCharsets.UTF_8);
+                at += Integer.BYTES + length;
+            }
+            return new SnapshotDocumentSet(file, channel, segments, fieldNames, createdMillis, (int) rows,
+                    indexPosition);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("Corrupted snapshot file: " + file, e);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /** Date de l'instantané (ms depuis l'epoch). */
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        long position = rowPosition(row);
+        ByteBuffer buffer = segment(segments, position);
+        int[] at = { offset(position) };
+        int fields = readVarint(buffer, at);
+        for (int i = 0; i < fields; i++) {
+            int field = readVarint(buffer, at);
+            if (field == column) {
+                return readValue(buffer, at);
+            }
+            skipValue(buffer, at);
+        }
+        return null;
+    }
+
+    /** Document complet, dans l'ordre des colonnes (champs absents : null). */
+    public Object[] getRow(int row) {
+        Object[] values = new Object[getFieldNames().length];
+        long position = rowPosition(row);
+        ByteBuffer buffer = segment(segments, position);
+        int[] at = { offset(position) };
+        int fields = readVarint(buffer, at);
+        for (int i = 0; i < fields; i++) {
+            int field = readVarint(buffer, at);
+            values[field] = readValue(buffer, at);
+        }
+        return values;
+    }
+
+    /** Reconstruit tous les documents en mémoire : préférer getValueAt ou rows(). */
+    @Override
+    public Object[][] getDocuments() {
+        Object[][] documents = new Object[rowCount][];
+        for (int row = 0; row < rowCount; row++) {
+            documents[row] = getRow(row);
+        }
+        return documents;
+    }
+
+    /** Les documents from .. from + count - 1, sans copie (une page de la table). */
+    public DocumentSet rows(int from, int count) {
+        if (from < 0 || count < 0 || from + count > rowCount) {
+            throw new IndexOutOfBoundsException("rows " + from + ".." + (from + count) + " of " + rowCount);
+        }
+        SnapshotDocumentSet snapshot = this;
+        return new DocumentSet(getFieldNames()) {
+            @Override
+            public int getRowCount() {
+                return count;
+            }
+
+            @Override
+            public Object getValueAt(int row, int column) {
+                return snapshot.getValueAt(from + row, column);
+            }
+
+            @Override
+            public Object[][] getDocuments() {
+                Object[][] documents = new Object[count][];
+                for (int row = 0; row < count; row++) {
+                    documents[row] = snapshot.getRow(from + row);
+                }
+                return documents;
+            }
+        };
+    }
+
+    /**
+     * Ferme le fichier. Les projections restent valides jusqu'à ce que le ramasse-miettes
+     * les libère (Java ne permet pas de les libérer explicitement).
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long rowPosition(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("row " + row + " of " + rowCount);
+        }
+        long entry = indexPosition + (long) row * Long.BYTES;
+        return segment(segments, entry).getLong(offset(entry));
+    }
+
+    private static ByteBuffer segment(MappedByteBuffer[] segments, long position) {
+        return segments[(int) (position / SEGMENT_BYTES)];
+    }
+
+    private static int offset(long position) {
+        return (int) (position % SEGMENT_BYTES);
+    }
+
+    private static Object readValue(ByteBuffer buffer, int[] at) {
+        byte type = buffer.get(at[0]++);
+        switch (type) {
+            case STRING: {
+                int length = readVarint(buffer, at);
+                byte[] bytes = new byte[length];
+                buffer.get(at[0], bytes);
+                at[0] += length;
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            case LONG: {
+                long value = buffer.getLong(at[0]);
+                at[0] += Long.BYTES;
+                return value;
+            }
+            case DOUBLE: {
+                double value = buffer.getDouble(at[0]);
+                at[0] += Double.BYTES;
+                return value;
+            }
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+
+    private static void skipValue(ByteBuffer buffer, int[] at) {
+        byte type = buffer.get(at[0]++);
+        if (type == STRING) {
+            int length = readVarint(buffer, at);
+            at[0] += length;
+        } else if (type == LONG || type == DOUBLE) {
+            at[0] += 8;
+        }
+    }
+
+    /** Entier positif sur 1 à 5 octets (7 bits par octet, bit de poids fort : octet suivant). */
+    private static int readVarint(ByteBuffer buffer, int[] at) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(at[0]++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
@@ -0,0 +1,438 @@
+package com.minicompass.demo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.json.JSONObject;
+
+/**
+ * Instantanés locaux des collections, pour les rouvrir sans attendre le serveur (ou sans serveur).
+ *
+ * Un instantané est écrit à partir d'une lecture complète de la collection (pages par clé,
+ * comme DocumentExporter) : chaque document est encodé dès qu'il est lu, la mémoire utilisée
+ * ne dépend pas de la taille de la collection. Il est relu par SnapshotDocumentSet,
+ * projeté en mémoire.
+ *
+ * Fichiers : {répertoire}/{base}/{collection}@{date}.snap (noms encodés).
+ * Chaque écriture crée un nouveau fichier puis supprime les anciens : un instantané
+ * ouvert (projeté en mémoire) n'est jamais réécrit.
+ */
+public class SnapshotStore {
+
+    /** Appelé après chaque page lue, sur le thread de l'écriture. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long documents);
+    }
+
+    private static final String EXTENSION = ".snap";
+
+    private final Path directory;
+    private final int pageSize;
+
+    /** Répertoire par défaut : ~/.minicompass/snapshots, pages de 5 000 documents. */
+    public SnapshotStore() {
+        this(Paths.get(System.getProperty("user.home"), ".minicompass", "snapshots"), 5000);
+    }
+
+    public SnapshotStore(Path directory, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be > 0");
+        }
+        this.directory = directory;
+        this.pageSize = pageSize;
+    }
+
+    /** Dernier instantané de la collection, ou null s'il n'y en a pas. */
+    public SnapshotDocumentSet open(String databaseName, String collectionName) throws IOException {
+        Path latest = null;
+        long latestMillis = -1;
+        for (Path file : files(databaseName, collectionName)) {
+            long millis = createdMillis(file);
+            if (millis > latestMillis) {
+                latest = file;
+                latestMillis = millis;
+            }
+        }
+        return latest == null ? null : SnapshotDocumentSet.open(latest);
+    }
+
+    /** Collections de la base qui ont un instantané (triées par nom). */
+    public List<String> collections(String databaseName) throws IOException {
+        Path dir = databaseDirectory(databaseName);
+        TreeSet<String> names = new TreeSet<>();
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*@*" + EXTENSION)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    names.add(decode(name.substring(0, name.lastIndexOf('@'))));
+                }
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Lit toute la collection et en écrit un nouvel instantané (les précédents sont supprimés).
+     * Appel bloquant.
+     *
+     * @return nombre de documents de l'instantané
+     * @throws InterruptedException si le thread est interrompu (écriture annulée, fichier supprimé)
+     */
+    public long write(ApiClient client, String collectionName, ProgressListener listener)
+            throws IOException, InterruptedException {
+        String databaseName = client.getDatabaseName();
+        Path dir = databaseDirectory(databaseName);
+        Files.createDirectories(dir);
+
+        long createdMillis = System.currentTimeMillis();
+        String name = encode(collectionName) + "@" + createdMillis;
+        Path target = dir.resolve(name + EXTENSION);
+        Path partial = dir.resolve(name + EXTENSION + ".part");
+        Path index = dir.resolve(name + ".idx.part");
+
+        long documents;
+        boolean done = false;
+        try (FileChannel data = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                FileChannel offsets = FileChannel.open(index, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(data, offsets);
+            Object afterId = null;
+            int count;
+            do {
+                writer.pageCount = 0;
+                writer.lastId = null;
+                client.readDocumentsAfter(collectionName, null, afterId, pageSize, writer::readPage);
+                count = writer.pageCount;
+                afterId = writer.lastId;
+                if (listener != null) {
+                    listener.onProgress(writer.documents);
+                }
+                // Page pleine sans _id utilisable pour la suivante : un instantané partiel passerait pour complet
+                if (count == pageSize && afterId == null) {
+                    throw new IOException("Snapshot stopped after " + writer.documents
+                            + " documents: the last _id is neither a string, an ObjectId nor a number");
+                }
+            } while (count == pageSize);
+            writer.finish(createdMillis);
+            documents = writer.documents;
+            done = true;
+        } catch (InterruptedIOException | ClosedByInterruptException e) {
+            throw new InterruptedException("Snapshot cancelled");
+        } finally {
+            Files.deleteIfExists(index);
+            if (!done) {
+                Files.deleteIfExists(partial);
+            }
+        }
+        try {
+            Files.move(partial, target);
+        } catch (IOException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+
+        // Anciens instantanés : ceux encore ouverts (Windows) seront supprimés à la prochaine écriture
+        for (Path file : files(databaseName, collectionName)) {
+            if (!file.equals(target)) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // encore projeté en mémoire
+                }
+            }
+        }
+        return documents;
+    }
+
+    private List<Path> files(String databaseName, String collectionName) throws IOException {
+        Path dir = databaseDirectory(databaseName);
+        List<Path> result = new ArrayList<>();
+        if (Files.isDirectory(dir)) {
+            String prefix = encode(collectionName) + "@";
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.startsWith(prefix) && createdMillis(file) >= 0) {
+                        result.add(file);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private Path databaseDirectory(String databaseName) {
+        // Base par défaut du serveur : "%default" (jamais produit par encode)
+        return directory.resolve(databaseName == null || databaseName.isBlank() ? "%default" : encode(databaseName));
+    }
+
+    /** Date contenue dans le nom du fichier, -1 si le nom n'est pas celui d'un instantané. */
+    private static long createdMillis(Path file) {
+        String name = file.getFileName().toString();
+        int at = name.lastIndexOf('@');
+        try {
+            return at < 0 ? -1 : Long.parseLong(name.substring(at + 1, name.length() - EXTENSION.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    /** Nom de collection utilisable comme nom de fichier sur tous les systèmes ("@" compris). */
+    private static String encode(String name) {
+        return URLEncoder.encode(name, StandardCharsets.UTF_8).replace("*", "%2A");
+    }
+
+    private static String decode(String name) {
+        return URLDecoder.decode(name, StandardCharsets.UTF_8);
+    }
+
+    // ---------------------------------------------------------
+    // Écriture
+    // ---------------------------------------------------------
+
+    /** Encode les documents au fil de la lecture des pages (format : voir SnapshotDocumentSet). */
+    private static final class Writer {
+        private final FileChannel data;
+        private final FileChannel offsets;
+        private final ByteBuffer dataBuffer = ByteBuffer.allocateDirect(256 * 1024);
+        private final ByteBuffer offsetBuffer = ByteBuffer.allocateDirect(64 * 1024);
+        private final Map<String, Integer> fieldIndex = new HashMap<>();
+        private final List<String> fieldNames = new ArrayList<>();
+
+        /** Document en cours d'encodage (taille bornée par MAX_DOCUMENT_BYTES). */
+        private byte[] row = new byte[4096];
+        private int rowLength;
+        private long position = SnapshotDocumentSet.HEADER_BYTES;
+
+        long documents = 0;
+        int pageCount;
+        /** _id du dernier document lu (String ou Number), null s'il n'en a pas d'utilisable. */
+        Object lastId;
+
+        Writer(FileChannel data, FileChannel offsets) throws IOException {
+            this.data = data;
+            this.offsets = offsets;
+            // En-tête écrit à la fin, quand les positions sont connues
+            data.position(SnapshotDocumentSet.HEADER_BYTES);
+        }
+
+        /** Lit une réponse { "documents": [...] } et encode chaque document au fil de la lecture. */
+        Void readPage(InputStream body) throws IOException {
+            try (JsonTokenReader reader = new JsonTokenReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                if (reader.peek() != JsonTokenReader.Token.BEGIN_OBJECT) {
+                    throw new IOException("Unexpected response");
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if ("documents".equals(name) && reader.peek() == JsonTokenReader.Token.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            if (Thread.interrupted()) {
+                                throw new InterruptedIOException("Snapshot cancelled");
+                            }
+                            if (reader.peek() != JsonTokenReader.Token.BEGIN_OBJECT) {
+                                reader.skipValue();
+                                continue;
+                            }
+                            writeDocument(reader);
+                            pageCount++;
+                            documents++;
+                        }
+                        reader.endArray();
+                    } else if ("error".equals(name) && reader.peek() == JsonTokenReader.Token.STRING) {
+                        throw new IOException("Server error: " + reader.nextString());
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            return null;
+        }
+
+        private void writeDocument(JsonTokenReader reader) throws IOException {
+            // Nombre de champs inconnu avant la fin : encodé après coup devant les champs
+            List<Object> values = new ArrayList<>();
+            List<Integer> fields = new ArrayList<>();
+            lastId = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                // Un sous-document est aussi rendu en String (JSON compact) : type lu avant la valeur
+                JsonTokenReader.Token token = reader.peek();
+                Object value = reader.nextValue();
+                if ("_id".equals(name)
+                        && (token == JsonTokenReader.Token.STRING || token == JsonTokenReader.Token.NUMBER)) {
+                    lastId = value;
+                }
+                fields.add(field(name));
+                values.add(value);
+            }
+            reader.endObject();
+
+            rowLength = 0;
+            putVarint(fields.size());
+            for (int i = 0; i < fields.size(); i++) {
+                putVarint(fields.get(i));
+                putValue(values.get(i));
+            }
+            if (rowLength > SnapshotDocumentSet.MAX_DOCUMENT_BYTES) {
+                throw new IOException("Document too large for a snapshot: " + rowLength + " bytes");
+            }
+
+            if (offsetBuffer.remaining() < Long.BYTES) {
+                flush(offsetBuffer, offsets);
+            }
+            offsetBuffer.putLong(position);
+            write(row, rowLength);
+            position += rowLength;
+        }
+
+        private int field(String name) {
+            Integer index = fieldIndex.get(name);
+            if (index == null) {
+                index = fieldNames.size();
+                fieldIndex.put(name, index);
+                fieldNames.add(name);
+            }
+            return index;
+        }
+
+        private void putValue(Object value) {
+            if (value == null || value == JSONObject.NULL) {
+                put(SnapshotDocumentSet.NULL);
+            } else if (value instanceof Boolean) {
+                put((Boolean) value ? SnapshotDocumentSet.TRUE : SnapshotDocumentSet.FALSE);
+            } else if (value instanceof Long || value instanceof Integer) {
+                put(SnapshotDocumentSet.LONG);
+                putLong(((Number) value).longValue());
+            } else if (value instanceof Number) {
+                put(SnapshotDocumentSet.DOUBLE);
+                putLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+            } else {
+                byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+                put(SnapshotDocumentSet.STRING);
+                putVarint(bytes.length);
+                ensureRow(bytes.length);
+                System.arraycopy(bytes, 0, row, rowLength, bytes.length);
+                rowLength += bytes.length;
+            }
+        }
+
+        private void put(byte b) {
+            ensureRow(1);
+            row[rowLength++] = b;
+        }
+
+        private void putLong(long value) {
+            ensureRow(Long.BYTES);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                row[rowLength++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void putVarint(int value) {
+            ensureRow(5);
+            while ((value & ~0x7F) != 0) {
+                row[rowLength++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            row[rowLength++] = (byte) value;
+        }
+
+        private void ensureRow(int bytes) {
+            if (rowLength + bytes > row.length) {
+                row = Arrays.copyOf(row, Math.max(row.length * 2, rowLength + bytes));
+            }
+        }
+
+        private void write(byte[] bytes, int length) throws IOException {
+            int offset = 0;
+            while (offset < length) {
+                if (!dataBuffer.hasRemaining()) {
+                    flush(dataBuffer, data);
+                }
+                int n = Math.min(dataBuffer.remaining(), length - offset);
+                dataBuffer.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        /** Liste des champs, index et en-tête. */
+        void finish(long createdMillis) throws IOException {
+            long fieldsPosition = position;
+            rowLength = 0;
+            ensureRow(Integer.BYTES);
+            putInt(fieldNames.size());
+            for (String name : fieldNames) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                putInt(bytes.length);
+                ensureRow(bytes.length);
+                System.arraycopy(bytes, 0, row, rowLength, bytes.length);
+                rowLength += bytes.length;
+            }
+            if (rowLength > SnapshotDocumentSet.MAX_DOCUMENT_BYTES) {
+                throw new IOException("Too many fields for a snapshot: " + fieldNames.size());
+            }
+            write(row, rowLength);
+            position += rowLength;
+            flush(dataBuffer, data);
+
+            long indexPosition = position;
+            flush(offsetBuffer, offsets);
+            long size = offsets.size();
+            for (long copied = 0; copied < size;) {
+                copied += offsets.transferTo(copied, size - copied, data);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(SnapshotDocumentSet.HEADER_BYTES);
+            header.put(SnapshotDocumentSet.MAGIC)
+                    .putLong(createdMillis)
+                    .putLong(documents)
+                    .putLong(fieldsPosition)
+                    .putLong(indexPosition)
+                    .rewind();
+            while (header.hasRemaining()) {
+                data.write(header, header.position());
+            }
+            data.force(false);
+        }
+
+        private void putInt(int value) {
+            ensureRow(Integer.BYTES);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                row[rowLength++] = (byte) (value >>> shift);
+            }
+        }
+
+        private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
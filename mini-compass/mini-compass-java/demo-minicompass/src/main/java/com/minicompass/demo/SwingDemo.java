@@ -1,11 +1,19 @@
 package com.minicompass.demo;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.io.File;
 import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class SwingDemo extends JFrame {
 
@@ -15,20 +23,32 @@ public class SwingDemo extends JFrame {
     // UI – choix de la base de données
     private final JTextField dbNameField = new JTextField();
     private final JButton applyDbButton = new JButton("Utiliser cette base");
+    private final JButton statsButton = new JButton("Statistiques réseau");
 
     // UI – liste des collections
     private final DefaultListModel<String> collectionsModel = new DefaultListModel<>();
     private final JList<String> collectionsList = new JList<>(collectionsModel);
 
     // UI – tableau des documents
-    private final DefaultTableModel documentsTableModel = new DefaultTableModel();
+    // Pages de 200 lignes, 50 pages max en mémoire
+    private final LazyDocumentTableModel documentsTableModel = new LazyDocumentTableModel(200, 50);
+    // Lignes publiées à la fois pendant la lecture d'une page
+    private static final int STREAM_CHUNK_ROWS = 50;
     private final JTable documentsTable = new JTable(documentsTableModel);
+    // Tri (en-têtes) et filtre sans requête quand toutes les lignes sont en mémoire
+    private final DocumentRowSorter documentsRowSorter = new DocumentRowSorter(documentsTableModel, this::loadedDocuments);
+    private final JLabel documentsLabel = new JLabel("Documents de la collection sélectionnée");
+    private final LoadScheduler<String[]> collectionsLoader = new LoadScheduler<>();
 
     // UI – filtre champ = valeur
     private final JTextField fieldFilterText = new JTextField();
     private final JTextField valueFilterText = new JTextField();
+    private final JTextField sortText = new JTextField();
+    private final JTextField columnsText = new JTextField();
     private final JButton filterButton = new JButton("Filtrer");
     private final JButton clearFilterButton = new JButton("Effacer le filtre");
+    private final JCheckBox liveCheckBox = new JCheckBox("Suivi en direct");
+    private final JCheckBox snapshotCheckBox = new JCheckBox("Instantané local");
 
     // UI – boutons CRUD
     private final JButton refreshCollectionsButton = new JButton("Recharger les collections");
@@ -36,13 +56,39 @@ public class SwingDemo extends JFrame {
     private final JButton addButton = new JButton("Ajouter");
     private final JButton editButton = new JButton("Modifier");
     private final JButton deleteButton = new JButton("Supprimer");
+    private final JButton exportButton = new JButton("Exporter…");
+    private final JButton importButton = new JButton("Importer…");
 
     private boolean databaseSelected = false;
+    // Champs demandés au serveur pour la table affichée
+    private Projection shownProjection = Projection.ALL;
+    // Table affichée avec le filtre champ = valeur (pour la recharger à l'identique)
+    private boolean shownFiltered = false;
+    // Suivi en direct de la table affichée (null : pas de suivi)
+    private ChangeFeed changeFeed;
+    private int changeFeedGeneration = 0;
+    // Instantané local affiché (null : documents lus sur le serveur)
+    private SnapshotDocumentSet shownSnapshot;
+    private boolean shownSnapshotOutdated = false;
+    // Collections dont l'instantané est en cours d'écriture
+    private final Set<String> snapshotsInProgress = new HashSet<>();
+
+    private static final DateTimeFormatter SNAPSHOT_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")
+            .withZone(ZoneId.systemDefault());
 
     public SwingDemo() {
         this.apiClient = new ApiClient("http://localhost:3000");
         this.actionHandler = new ActionHandler(apiClient);
 
+        documentsTableModel.setErrorHandler(e -> {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(
+                    this,
+                    "Erreur lors de la récupération des documents.",
+                    "Erreur",
+                    JOptionPane.ERROR_MESSAGE);
+        });
+
         initUI();
         setMainUiEnabled(false);
     }
@@ -76,7 +122,12 @@ public class SwingDemo extends JFrame {
         gbcDb.weightx = 0;
         dbPanel.add(applyDbButton, gbcDb);
 
+        gbcDb.gridx = 3;
+        gbcDb.gridy = 0;
+        dbPanel.add(statsButton, gbcDb);
+
         applyDbButton.addActionListener(e -> onApplyDatabase());
+        statsButton.addActionListener(e -> onShowStats());
 
         // ----------------- Panneau gauche (collections) -----------------
         JPanel leftPanel = new JPanel(new BorderLayout(5, 5));
@@ -95,7 +146,7 @@ public class SwingDemo extends JFrame {
             if (!e.getValueIsAdjusting() && databaseSelected) {
                 String selected = collectionsList.getSelectedValue();
                 if (selected != null) {
-                    loadDocuments(selected, false);
+                    openCollection(selected);
                 }
             }
         });
@@ -133,9 +184,40 @@ public class SwingDemo extends JFrame {
         row++;
         gbc.weightx = 0;
 
+        gbc.gridx = 0;
+        gbc.gridy = row;
+        filterPanel.add(new JLabel("Tri :"), gbc);
+
+        gbc.gridx = 1;
+        gbc.gridy = row;
+        gbc.weightx = 1.0;
+        sortText.setToolTipText("age, -name (- : ordre décroissant) ; vide : ordre naturel");
+        filterPanel.add(sortText, gbc);
+
+        row++;
+        gbc.weightx = 0;
+
+        gbc.gridx = 0;
+        gbc.gridy = row;
+        filterPanel.add(new JLabel("Colonnes :"), gbc);
+
+        gbc.gridx = 1;
+        gbc.gridy = row;
+        gbc.weightx = 1.0;
+        columnsText.setToolTipText("name, age (ou -photo pour exclure) ; vide : tous les champs");
+        filterPanel.add(columnsText, gbc);
+
+        row++;
+        gbc.weightx = 0;
+
         JPanel filterButtonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         filterButtonsPanel.add(filterButton);
         filterButtonsPanel.add(clearFilterButton);
+        liveCheckBox.setToolTipText("Applique les modifications de la collection dès qu'elles ont lieu (replica set MongoDB requis)");
+        filterButtonsPanel.add(liveCheckBox);
+        snapshotCheckBox.setToolTipText("Affiche aussitôt la dernière copie locale de la collection, puis la met à jour"
+                + " en arrière-plan ; consultation possible sans serveur");
+        filterButtonsPanel.add(snapshotCheckBox);
 
         gbc.gridx = 0;
         gbc.gridy = row;
@@ -144,15 +226,19 @@ public class SwingDemo extends JFrame {
 
         filterButton.addActionListener(e -> onFilter());
         clearFilterButton.addActionListener(e -> onClearFilter());
+        liveCheckBox.addActionListener(e -> onToggleLive());
 
         // ----------------- Panneau documents + CRUD -----------------
         JPanel documentsPanel = new JPanel(new BorderLayout(5, 5));
         documentsPanel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
 
-        JLabel documentsLabel = new JLabel("Documents de la collection sélectionnée");
         documentsPanel.add(documentsLabel, BorderLayout.NORTH);
+        documentsTableModel.addTableModelListener(e -> updateDocumentsLabel());
 
         documentsTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        documentsTable.setRowSorter(documentsRowSorter);
+        documentsRowSorter.setUnavailableHandler(this::sortOnServer);
+        documentsRowSorter.addRowSorterListener(e -> updateDocumentsLabel());
         documentsPanel.add(new JScrollPane(documentsTable), BorderLayout.CENTER);
 
         JPanel docsButtonsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -160,12 +246,16 @@ public class SwingDemo extends JFrame {
         docsButtonsPanel.add(addButton);
         docsButtonsPanel.add(editButton);
         docsButtonsPanel.add(deleteButton);
+        docsButtonsPanel.add(exportButton);
+        docsButtonsPanel.add(importButton);
         documentsPanel.add(docsButtonsPanel, BorderLayout.SOUTH);
 
         refreshDocumentsButton.addActionListener(e -> onRefreshDocuments());
         addButton.addActionListener(e -> onAddDocument());
         editButton.addActionListener(e -> onEditDocument(true));
         deleteButton.addActionListener(e -> onDeleteDocument());
+        exportButton.addActionListener(e -> onExport());
+        importButton.addActionListener(e -> onImport());
 
         // ----------------- Panneau droit -----------------
         JPanel rightPanel = new JPanel(new BorderLayout(5, 5));
@@ -208,20 +298,35 @@ public class SwingDemo extends JFrame {
         loadCollections();
     }
 
+    private void onShowStats() {
+        JDialog dialog = new JDialog(this, "Statistiques réseau (ApiClient)", false);
+        dialog.setContentPane(new MetricsPanel(apiClient.getMetrics()));
+        dialog.setSize(900, 300);
+        dialog.setLocationRelativeTo(this);
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dialog.setVisible(true);
+    }
+
     private void setMainUiEnabled(boolean enabled) {
         collectionsList.setEnabled(enabled);
         refreshCollectionsButton.setEnabled(enabled);
 
         fieldFilterText.setEnabled(enabled);
         valueFilterText.setEnabled(enabled);
+        sortText.setEnabled(enabled);
+        columnsText.setEnabled(enabled);
         filterButton.setEnabled(enabled);
         clearFilterButton.setEnabled(enabled);
+        liveCheckBox.setEnabled(enabled);
+        snapshotCheckBox.setEnabled(enabled);
 
         documentsTable.setEnabled(enabled);
         refreshDocumentsButton.setEnabled(enabled);
         addButton.setEnabled(enabled);
         editButton.setEnabled(enabled);
         deleteButton.setEnabled(enabled);
+        exportButton.setEnabled(enabled);
+        importButton.setEnabled(enabled);
     }
 
     // ---------------------------------------------------------------------
@@ -239,90 +344,441 @@ public class SwingDemo extends JFrame {
         }
 
         collectionsModel.clear();
-        documentsTableModel.setRowCount(0);
-
-        SwingWorker<Void, Void> worker = new SwingWorker<>() {
-            private String[] collections;
-
-            @Override
-            protected Void doInBackground() {
-                try {
-                    collections = actionHandler.handleFetchCollections();
-                } catch (IOException | InterruptedException e) {
-                    e.printStackTrace();
-                    collections = null;
-                }
-                return null;
+        stopWatching();
+        closeShownSnapshot();
+        documentsTableModel.clear();
+
+        // Instantanés locaux : les collections s'affichent sans attendre le serveur
+        List<String> local = new ArrayList<>();
+        if (snapshotCheckBox.isSelected()) {
+            try {
+                local.addAll(actionHandler.handleSnapshotCollections());
+            } catch (IOException e) {
+                e.printStackTrace();
             }
+            for (String name : local) {
+                collectionsModel.addElement(name);
+            }
+        }
 
-            @Override
-            protected void done() {
-                if (collections == null) {
+        // Un rechargement remplace le précédent s'il n'est pas terminé
+        collectionsLoader.submit(
+                actionHandler::handleFetchCollectionsAsync,
+                collections -> {
+                    // Liste du serveur, sans perdre la collection déjà ouverte depuis son instantané
+                    String selected = collectionsList.getSelectedValue();
+                    for (int i = collectionsModel.size() - 1; i >= 0; i--) {
+                        String name = collectionsModel.get(i);
+                        if (!name.equals(selected) && !List.of(collections).contains(name)) {
+                            collectionsModel.remove(i);
+                        }
+                    }
+                    for (String name : collections) {
+                        if (!collectionsModel.contains(name)) {
+                            collectionsModel.addElement(name);
+                        }
+                    }
+                },
+                error -> {
+                    error.printStackTrace();
+                    if (!local.isEmpty()) {
+                        documentsLabel.setText("Serveur injoignable : collections des instantanés locaux");
+                        return;
+                    }
                     JOptionPane.showMessageDialog(
                             SwingDemo.this,
                             "Erreur lors de la récupération des collections.\nVérifiez la base ou le serveur.",
                             "Erreur",
                             JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-
-                for (String name : collections) {
-                    collectionsModel.addElement(name);
-                }
-            }
-        };
-
-        worker.execute();
+                });
     }
 
     // ---------------------------------------------------------------------
     // Chargement des documents
     // ---------------------------------------------------------------------
 
+    /**
+     * Les documents sont chargés page par page par le modèle de table,
+     * au fur et à mesure du défilement. Chaque page s'affiche par paquets
+     * de STREAM_CHUNK_ROWS lignes pendant sa lecture.
+     * reset() annule les pages encore en cours de chargement (requêtes HTTP comprises) :
+     * seul le dernier chargement demandé s'affiche.
+     */
     private void loadDocuments(String collectionName, boolean useFilter) {
-        documentsTableModel.setRowCount(0);
-
+        closeShownSnapshot();
         final String field = fieldFilterText.getText().trim();
         final String value = valueFilterText.getText().trim();
 
-        SwingWorker<Void, Void> worker = new SwingWorker<>() {
-            private ApiClient.DocumentSet documentSet;
+        final Projection projection;
+        try {
+            projection = Projection.parse(columnsText.getText());
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(
+                    this,
+                    "Colonnes invalides : utiliser soit \"a, b\", soit \"-a, -b\".",
+                    "Erreur",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        final DocumentQuery query;
+        try {
+            query = buildQuery(useFilter ? field : "", value, sortText.getText());
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(
+                    this,
+                    "Tri invalide : utiliser \"age, -name\".",
+                    "Erreur",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        shownProjection = projection;
+        shownFiltered = useFilter;
+
+        stopWatching();
+        Runnable load = () -> startLoading(collectionName, useFilter, field, value, query, projection);
+        if (liveCheckBox.isSelected()) {
+            boolean byField = query == null && useFilter && !field.isEmpty() && !value.isEmpty();
+            // Sans tri, un nouveau document vient en dernier (pages lues par _id) ;
+            // le filtre champ = valeur est lu dans l'ordre naturel, sans garantie.
+            boolean idOrdered = query != null ? query.isIdOrdered() : !byField;
+            // Lecture une fois le flux ouvert : aucune modification ne tombe entre les deux
+            watchDocuments(collectionName, byField ? field : "", byField ? value : "", query, projection,
+                    idOrdered, load);
+        } else {
+            load.run();
+        }
+    }
 
-            @Override
-            protected Void doInBackground() {
-                try {
-                    if (useFilter && !field.isEmpty() && !value.isEmpty()) {
-                        documentSet = actionHandler.handleFilter(collectionName, field, value);
-                    } else {
-                        documentSet = actionHandler.handleFetch(collectionName);
+    private void startLoading(String collectionName, boolean useFilter, String field, String value,
+            DocumentQuery query, Projection projection) {
+        // Le nombre total (demandé en parallèle de la première page) dimensionne la table.
+        // Sans tri demandé, les pages sont lues par clé (_id) plutôt que par skip.
+        if (query != null && query.isIdOrdered()) {
+            documentsTableModel.reset((skip, afterId, limit, sink) -> actionHandler.handleStreamKeysetPage(
+                    collectionName, query, projection, skip, afterId, limit, STREAM_CHUNK_ROWS, sink));
+            documentsTableModel.requestTotalRowCount(() -> actionHandler.handleCountAsync(collectionName, query));
+        } else if (query != null) {
+            documentsTableModel.reset((skip, limit, sink) -> actionHandler.handleStreamQueryPage(
+                    collectionName, query, projection, skip, limit, STREAM_CHUNK_ROWS, sink));
+            documentsTableModel.requestTotalRowCount(() -> actionHandler.handleCountAsync(collectionName, query));
+        } else if (useFilter && !field.isEmpty() && !value.isEmpty()) {
+            documentsTableModel.reset((skip, limit, sink) -> actionHandler.handleStreamFilterPage(
+                    collectionName, field, value, projection, skip, limit, STREAM_CHUNK_ROWS, sink));
+            documentsTableModel.requestTotalRowCount(
+                    () -> actionHandler.handleCountByFieldAsync(collectionName, field, value));
+        } else {
+            documentsTableModel.reset((skip, afterId, limit, sink) -> actionHandler.handleStreamKeysetPage(
+                    collectionName, null, projection, skip, afterId, limit, STREAM_CHUNK_ROWS, sink));
+            documentsTableModel.requestTotalRowCount(() -> actionHandler.handleCountAsync(collectionName, null));
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Suivi en direct
+    // ---------------------------------------------------------------------
+
+    private void onToggleLive() {
+        if (!liveCheckBox.isSelected()) {
+            stopWatching();
+            return;
+        }
+        // Rechargement : la table repart d'un état connu, puis les modifications suivent
+        String selected = collectionsList.getSelectedValue();
+        if (selected != null && databaseSelected) {
+            loadDocuments(selected, shownFiltered);
+        }
+    }
+
+    /**
+     * Suit les modifications de la table affichée : chaque insertion, modification ou suppression
+     * est appliquée à la ligne concernée (LazyDocumentTableModel.applyChange), sans rechargement.
+     * load lit les documents dès l'ouverture du flux (ou sans suivi s'il ne peut pas s'ouvrir).
+     */
+    private void watchDocuments(String collectionName, String field, String value, DocumentQuery query,
+            Projection projection, boolean idOrdered, Runnable load) {
+        final int generation = ++changeFeedGeneration;
+        changeFeed = actionHandler.handleWatch(collectionName, field, value, query, projection,
+                new ChangeFeed.Listener() {
+                    /** Lecture pas encore lancée (EDT uniquement). */
+                    private Runnable pendingLoad = load;
+
+                    private void loadOnce() {
+                        Runnable toRun = pendingLoad;
+                        pendingLoad = null;
+                        if (toRun != null) {
+                            toRun.run();
+                        }
                     }
-                } catch (IOException | InterruptedException e) {
-                    e.printStackTrace();
-                    documentSet = null;
-                }
-                return null;
+
+                    @Override
+                    public void onReady() {
+                        SwingUtilities.invokeLater(() -> {
+                            if (generation == changeFeedGeneration) {
+                                loadOnce();
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onChange(ChangeEvent event) {
+                        SwingUtilities.invokeLater(() -> {
+                            if (generation != changeFeedGeneration) {
+                                return; // table rechargée entre-temps
+                            }
+                            if (event.getType() == ChangeEvent.Type.RESET) {
+                                loadDocuments(collectionName, shownFiltered);
+                            } else {
+                                documentsTableModel.applyChange(event, idOrdered);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onError(Throwable error, boolean reconnect) {
+                        error.printStackTrace();
+                        if (reconnect) {
+                            return;
+                        }
+                        SwingUtilities.invokeLater(() -> {
+                            if (generation != changeFeedGeneration) {
+                                return;
+                            }
+                            stopWatching();
+                            liveCheckBox.setSelected(false);
+                            loadOnce(); // sans suivi en direct
+                            JOptionPane.showMessageDialog(
+                                    SwingDemo.this,
+                                    "Suivi en direct interrompu :\n" + error.getMessage(),
+                                    "Erreur",
+                                    JOptionPane.ERROR_MESSAGE);
+                        });
+                    }
+                });
+    }
+
+    private void stopWatching() {
+        changeFeedGeneration++;
+        if (changeFeed != null) {
+            changeFeed.close();
+            changeFeed = null;
+        }
+    }
+
+    /** Titre du panneau documents : nombre total de documents, dès qu'il est connu. */
+    private void updateDocumentsLabel() {
+        long total = documentsTableModel.getTotalRowCount();
+        String text = total < 0
+                ? "Documents de la collection sélectionnée"
+                : "Documents de la collection sélectionnée (" + total + " document" + (total > 1 ? "s" : "") + ")";
+        if (documentsRowSorter.getFilter() != null) {
+            int shown = documentsRowSorter.getViewRowCount();
+            text += " — filtre local : " + shown + " affiché" + (shown > 1 ? "s" : "");
+        }
+        if (shownSnapshot != null) {
+            text += " — instantané du " + SNAPSHOT_DATE.format(Instant.ofEpochMilli(shownSnapshot.getCreatedMillis()))
+                    + (shownSnapshotOutdated ? ", serveur injoignable" : ", mise à jour en cours…");
+        }
+        documentsLabel.setText(text);
+    }
+
+    // ---------------------------------------------------------------------
+    // Instantanés locaux
+    // ---------------------------------------------------------------------
+
+    /**
+     * Sélection d'une collection. Avec "Instantané local" (et sans tri ni choix de colonnes),
+     * la collection s'affiche aussitôt depuis son dernier instantané, puis l'instantané est
+     * réécrit en arrière-plan et remplace la table quand il est prêt.
+     */
+    private void openCollection(String collectionName) {
+        boolean useSnapshot = snapshotCheckBox.isSelected()
+                && sortText.getText().isBlank() && columnsText.getText().isBlank();
+        if (!useSnapshot || !showSnapshot(collectionName)) {
+            loadDocuments(collectionName, false);
+        }
+        if (snapshotCheckBox.isSelected()) {
+            refreshSnapshot(collectionName);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Tri et filtre locaux
+    // ---------------------------------------------------------------------
+
+    /** Toutes les lignes de la table si elles sont en mémoire (ou dans l'instantané affiché), sinon null. */
+    private ApiClient.DocumentSet loadedDocuments() {
+        return shownSnapshot != null ? shownSnapshot : documentsTableModel.getLoadedDocuments();
+    }
+
+    /** Clic sur un en-tête alors que les lignes ne sont pas toutes en mémoire : tri par le serveur. */
+    private void sortOnServer(List<? extends RowSorter.SortKey> keys) {
+        String selected = collectionsList.getSelectedValue();
+        if (selected == null || !databaseSelected) {
+            return;
+        }
+        List<String> sort = new ArrayList<>();
+        for (RowSorter.SortKey key : keys) {
+            String field = documentsTableModel.getColumnName(key.getColumn());
+            sort.add(key.getSortOrder() == SortOrder.DESCENDING ? "-" + field : field);
+        }
+        sortText.setText(String.join(", ", sort));
+        loadDocuments(selected, shownFiltered);
+    }
+
+    /** Affiche l'instantané de la collection ; false s'il n'y en a pas. */
+    private boolean showSnapshot(String collectionName) {
+        SnapshotDocumentSet snapshot;
+        try {
+            snapshot = actionHandler.handleOpenSnapshot(collectionName);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        if (snapshot == null) {
+            return false;
+        }
+
+        stopWatching();
+        closeShownSnapshot();
+        shownSnapshot = snapshot;
+        shownSnapshotOutdated = false;
+        shownProjection = Projection.ALL;
+        shownFiltered = false;
+
+        // Pages lues dans le fichier projeté en mémoire : aucune requête
+        int rows = snapshot.getRowCount();
+        documentsTableModel.reset((skip, limit) -> CompletableFuture.completedFuture(
+                snapshot.rows(Math.min(skip, rows), Math.max(0, Math.min(limit, rows - skip)))));
+        documentsTableModel.requestTotalRowCount(() -> CompletableFuture.completedFuture((long) rows));
+        return true;
+    }
+
+    private void closeShownSnapshot() {
+        if (shownSnapshot != null) {
+            try {
+                // Les pages déjà affichées restent lisibles (projection libérée par le ramasse-miettes)
+                shownSnapshot.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            shownSnapshot = null;
+        }
+    }
+
+    /** Réécrit l'instantané en arrière-plan ; la table passe au nouvel instantané si elle affiche encore l'ancien. */
+    private void refreshSnapshot(String collectionName) {
+        if (!snapshotsInProgress.add(collectionName)) {
+            return;
+        }
+        SwingWorker<Long, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                return actionHandler.handleWriteSnapshot(collectionName, null);
             }
 
             @Override
             protected void done() {
-                if (documentSet == null) {
-                    JOptionPane.showMessageDialog(
-                            SwingDemo.this,
-                            "Erreur lors de la récupération des documents.",
-                            "Erreur",
-                            JOptionPane.ERROR_MESSAGE);
+                snapshotsInProgress.remove(collectionName);
+                boolean shown = shownSnapshot != null && collectionName.equals(collectionsList.getSelectedValue());
+                try {
+                    get();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    if (shown) {
+                        shownSnapshotOutdated = true;
+                        updateDocumentsLabel();
+                    }
                     return;
                 }
-
-                String[] fieldNames = documentSet.getFieldNames();
-                Object[][] docs = documentSet.getDocuments();
-                documentsTableModel.setDataVector(docs, fieldNames);
+                if (shown) {
+                    showSnapshot(collectionName);
+                }
             }
         };
-
         worker.execute();
     }
 
+    /**
+     * Requête exécutée par le serveur quand le filtre utilise un opérateur
+     * ("> 18", ">= 18", "< 18", "<= 18", "!= Alice", "in Alice|Bob") ou qu'un tri est demandé.
+     * Retourne null pour un simple filtre champ = valeur sans tri (ou aucun filtre).
+     */
+    private static DocumentQuery buildQuery(String field, String value, String sort) {
+        boolean filtered = !field.isEmpty() && !value.isEmpty();
+        DocumentQuery.Filter filter = filtered ? parseCondition(field, value) : null;
+
+        List<String> sortKeys = new ArrayList<>();
+        for (String part : sort.split(",")) {
+            if (!part.isBlank()) {
+                sortKeys.add(part.trim());
+            }
+        }
+        if (filter == null && sortKeys.isEmpty()) {
+            return null;
+        }
+        if (filter == null && filtered) {
+            filter = DocumentQuery.Filter.eq(field, typedValue(value));
+        }
+
+        DocumentQuery query = filter != null ? DocumentQuery.where(filter) : DocumentQuery.all();
+        for (String key : sortKeys) {
+            if (key.startsWith("-")) {
+                query.sortDescending(key.substring(1).trim());
+            } else {
+                query.sortAscending(key);
+            }
+        }
+        return query;
+    }
+
+    /** null : simple égalité, laissée au filtre champ = valeur. */
+    private static DocumentQuery.Filter parseCondition(String field, String value) {
+        if (value.startsWith(">=")) {
+            return DocumentQuery.Filter.gte(field, typedValue(value.substring(2)));
+        } else if (value.startsWith("<=")) {
+            return DocumentQuery.Filter.lte(field, typedValue(value.substring(2)));
+        } else if (value.startsWith("!=")) {
+            return DocumentQuery.Filter.ne(field, typedValue(value.substring(2)));
+        } else if (value.startsWith(">")) {
+            return DocumentQuery.Filter.gt(field, typedValue(value.substring(1)));
+        } else if (value.startsWith("<")) {
+            return DocumentQuery.Filter.lt(field, typedValue(value.substring(1)));
+        } else if (value.startsWith("in ")) {
+            List<Object> values = new ArrayList<>();
+            for (String part : value.substring(3).split("\\|")) {
+                values.add(typedValue(part));
+            }
+            return DocumentQuery.Filter.in(field, values);
+        }
+        return null;
+    }
+
+    /** Même conversion que le filtre champ = valeur du serveur : nombre, booléen, sinon texte. */
+    private static Object typedValue(String text) {
+        String value = text.trim();
+        if (value.equals("true") || value.equals("false")) {
+            return Boolean.valueOf(value);
+        }
+        try {
+            return value.contains(".") ? (Object) Double.valueOf(value) : (Object) Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    /**
+     * Après une écriture : recharge la collection seulement si elle est toujours affichée
+     * (l'utilisateur a pu en sélectionner une autre entre-temps).
+     */
+    private void reloadIfStillSelected(String collectionName) {
+        if (changeFeed != null) {
+            return; // suivi en direct : la modification arrive par le flux
+        }
+        if (collectionName.equals(collectionsList.getSelectedValue())) {
+            loadDocuments(collectionName, false);
+        }
+    }
+
     // ---------------------------------------------------------------------
     // Boutons de filtre / refresh
     // ---------------------------------------------------------------------
@@ -346,13 +802,42 @@ public class SwingDemo extends JFrame {
                     JOptionPane.INFORMATION_MESSAGE);
             return;
         }
-        loadDocuments(selected, true);
+        if (!filterLocally()) {
+            loadDocuments(selected, true);
+        }
+    }
+
+    /**
+     * Filtre appliqué sans requête (DocumentRowSorter) si la table affiche toute la collection,
+     * avec tous ses champs, et que toutes ses lignes sont en mémoire. false sinon.
+     */
+    private boolean filterLocally() {
+        String field = fieldFilterText.getText().trim();
+        String value = valueFilterText.getText().trim();
+        if (shownFiltered || !shownProjection.isAll() || field.isEmpty() || value.isEmpty()) {
+            return false;
+        }
+        DocumentQuery.Filter filter;
+        try {
+            filter = parseCondition(field, value);
+            if (filter == null) {
+                filter = DocumentQuery.Filter.eq(field, typedValue(value));
+            }
+        } catch (IllegalArgumentException e) {
+            return false; // nom de champ refusé : le serveur répondra
+        }
+        return documentsRowSorter.setFilter(filter);
     }
 
     private void onClearFilter() {
         fieldFilterText.setText("");
         valueFilterText.setText("");
 
+        if (documentsRowSorter.getFilter() != null) {
+            documentsRowSorter.setFilter(null);
+            return; // la table contient déjà toute la collection
+        }
+
         String selected = collectionsList.getSelectedValue();
         if (selected != null && databaseSelected) {
             loadDocuments(selected, false);
@@ -402,7 +887,7 @@ public class SwingDemo extends JFrame {
                             "Document ajouté avec succès.",
                             "Succès",
                             JOptionPane.INFORMATION_MESSAGE);
-                    loadDocuments(collectionName, false);
+                    reloadIfStillSelected(collectionName);
                 } else {
                     JOptionPane.showMessageDialog(
                             SwingDemo.this,
@@ -445,6 +930,8 @@ public class SwingDemo extends JFrame {
         if (editedDoc == null || editedDoc.isEmpty()) {
             return;
         }
+        // Table limitée à certaines colonnes : remplacer le document effacerait les champs masqués
+        final boolean partial = !shownProjection.isAll();
 
         SwingWorker<Void, Void> worker = new SwingWorker<>() {
             private boolean success = false;
@@ -452,7 +939,9 @@ public class SwingDemo extends JFrame {
             @Override
             protected Void doInBackground() {
                 try {
-                    success = actionHandler.handleUpdate(collectionName, id, editedDoc);
+                    success = partial
+                            ? actionHandler.handlePartialUpdate(collectionName, id, editedDoc)
+                            : actionHandler.handleUpdate(collectionName, id, editedDoc);
                 } catch (IOException | InterruptedException e) {
                     e.printStackTrace();
                     success = false;
@@ -468,7 +957,7 @@ public class SwingDemo extends JFrame {
                             "Document modifié avec succès.",
                             "Succès",
                             JOptionPane.INFORMATION_MESSAGE);
-                    loadDocuments(collectionName, false);
+                    reloadIfStillSelected(collectionName);
                 } else {
                     JOptionPane.showMessageDialog(
                             SwingDemo.this,
@@ -485,6 +974,10 @@ public class SwingDemo extends JFrame {
     private void onDeleteDocument() {
         if (!ensureCollectionSelected())
             return;
+        if (documentsTable.getSelectedRowCount() > 1) {
+            onDeleteSelectedDocuments();
+            return;
+        }
         int row = documentsTable.getSelectedRow();
         if (row < 0) {
             JOptionPane.showMessageDialog(
@@ -536,7 +1029,7 @@ public class SwingDemo extends JFrame {
                             "Document supprimé avec succès.",
                             "Succès",
                             JOptionPane.INFORMATION_MESSAGE);
-                    loadDocuments(collectionName, false);
+                    reloadIfStillSelected(collectionName);
                 } else {
                     JOptionPane.showMessageDialog(
                             SwingDemo.this,
@@ -550,10 +1043,319 @@ public class SwingDemo extends JFrame {
         worker.execute();
     }
 
+    /** Suppression de plusieurs lignes sélectionnées, en requêtes groupées. */
+    private void onDeleteSelectedDocuments() {
+        String collectionName = collectionsList.getSelectedValue();
+        java.util.List<String> ids = new java.util.ArrayList<>();
+        for (int row : documentsTable.getSelectedRows()) {
+            String id = getSelectedDocumentId(row);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            JOptionPane.showMessageDialog(
+                    this,
+                    "Impossible de trouver le champ _id des documents sélectionnés.",
+                    "Erreur",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        int choice = JOptionPane.showConfirmDialog(
+                this,
+                "Supprimer les " + ids.size() + " documents sélectionnés ?",
+                "Confirmer la suppression",
+                JOptionPane.YES_NO_OPTION);
+        if (choice != JOptionPane.YES_OPTION)
+            return;
+
+        SwingWorker<Void, Void> worker = new SwingWorker<>() {
+            private ApiClient.BulkResult result;
+
+            @Override
+            protected Void doInBackground() {
+                try {
+                    result = actionHandler.handleDeleteMany(collectionName, ids);
+                } catch (BulkException e) {
+                    // Paquets supprimés avant l'échec : suppression partielle
+                    e.printStackTrace();
+                    result = e.getPartialResult();
+                } catch (IOException | InterruptedException e) {
+                    e.printStackTrace();
+                    result = null;
+                }
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                if (result == null) {
+                    JOptionPane.showMessageDialog(
+                            SwingDemo.this,
+                            "Erreur lors de la suppression des documents.",
+                            "Erreur",
+                            JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
+                // Éléments en échec, ou non envoyés après l'échec d'un paquet
+                int failed = ids.size() - result.getSuccessCount();
+                JOptionPane.showMessageDialog(
+                        SwingDemo.this,
+                        result.getSuccessCount() + " document(s) supprimé(s)"
+                                + (failed > 0 ? ", " + failed + " échec(s)." : "."),
+                        failed > 0 ? "Suppression partielle" : "Succès",
+                        failed > 0 ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+                reloadIfStillSelected(collectionName);
+            }
+        };
+
+        worker.execute();
+    }
+
     // ---------------------------------------------------------------------
     // Helpers
     // ---------------------------------------------------------------------
 
+    // ---------------------------------------------------------------------
+    // Export / import
+    // ---------------------------------------------------------------------
+
+    /**
+     * Exporte la collection sélectionnée (avec le filtre saisi, sans le tri) en NDJSON,
+     * ou en CSV si le nom du fichier se termine par .csv.
+     * Les documents sont écrits au fil de la lecture : la mémoire utilisée ne dépend pas
+     * de la taille de la collection.
+     */
+    private void onExport() {
+        if (!ensureCollectionSelected())
+            return;
+        String collectionName = collectionsList.getSelectedValue();
+
+        final DocumentQuery query;
+        try {
+            query = buildExportQuery(fieldFilterText.getText().trim(), valueFilterText.getText().trim());
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(
+                    this,
+                    "Filtre invalide.",
+                    "Erreur",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Exporter " + collectionName + " (.ndjson ou .csv)");
+        chooser.setSelectedFile(new File(collectionName + ".ndjson"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
+            return;
+        File file = chooser.getSelectedFile();
+        DocumentExporter.Format format = file.getName().toLowerCase().endsWith(".csv")
+                ? DocumentExporter.Format.CSV
+                : DocumentExporter.Format.NDJSON;
+
+        JProgressBar progressBar = new JProgressBar(0, 1000);
+        progressBar.setIndeterminate(true);
+        JLabel progressLabel = new JLabel("Export en cours…");
+        JButton cancelButton = new JButton("Annuler");
+        JDialog dialog = progressDialog("Export de " + collectionName, progressLabel, progressBar, cancelButton);
+
+        SwingWorker<DocumentExporter.Progress, DocumentExporter.Progress> worker = new SwingWorker<>() {
+            @Override
+            protected DocumentExporter.Progress doInBackground() throws Exception {
+                return actionHandler.handleExport(collectionName, query, format, file.toPath(), this::publish);
+            }
+
+            @Override
+            protected void process(List<DocumentExporter.Progress> chunks) {
+                DocumentExporter.Progress progress = chunks.get(chunks.size() - 1);
+                long total = progress.getTotalDocuments();
+                if (total > 0) {
+                    progressBar.setIndeterminate(false);
+                    progressBar.setValue((int) Math.min(1000, progress.getDocuments() * 1000 / total));
+                }
+                progressLabel.setText(progress.getDocuments()
+                        + (total >= 0 ? " / " + total : "") + " documents — "
+                        + String.format("%.1f Mo/s", progress.getMegabytesPerSecond()));
+            }
+
+            @Override
+            protected void done() {
+                dialog.dispose();
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    DocumentExporter.Progress result = get();
+                    String message = result.getDocuments() + " document(s) exporté(s) dans " + file.getName()
+                            + String.format(" (%.1f Mo).", result.getBytesWritten() / 1e6);
+                    if (!result.getIgnoredFields().isEmpty()) {
+                        message += "\nChamps absents du premier document, non exportés : "
+                                + String.join(", ", result.getIgnoredFields());
+                    }
+                    JOptionPane.showMessageDialog(
+                            SwingDemo.this,
+                            message,
+                            "Succès",
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(
+                            SwingDemo.this,
+                            "Erreur lors de l'export des documents.",
+                            "Erreur",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+
+        cancelButton.addActionListener(e -> worker.cancel(true));
+        worker.execute();
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Importe un fichier NDJSON, ou CSV si son nom se termine par .csv, dans la collection sélectionnée.
+     * Un import interrompu (annulé, erreur réseau) peut être repris là où il s'est arrêté.
+     */
+    private void onImport() {
+        if (!ensureCollectionSelected())
+            return;
+        String collectionName = collectionsList.getSelectedValue();
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Importer dans " + collectionName + " (.ndjson ou .csv)");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION)
+            return;
+        File file = chooser.getSelectedFile();
+        DocumentExporter.Format format = file.getName().toLowerCase().endsWith(".csv")
+                ? DocumentExporter.Format.CSV
+                : DocumentExporter.Format.NDJSON;
+
+        boolean resume = false;
+        try {
+            long done = DocumentImporter.resumableBytes(file.toPath(), collectionName);
+            if (done >= 0) {
+                int choice = JOptionPane.showConfirmDialog(
+                        this,
+                        "Un import précédent de ce fichier s'est arrêté à "
+                                + (file.length() == 0 ? 100 : done * 100 / file.length()) + " %.\n"
+                                + "Reprendre là (Oui) ou tout réimporter (Non) ?",
+                        "Reprendre l'import",
+                        JOptionPane.YES_NO_CANCEL_OPTION);
+                if (choice != JOptionPane.YES_OPTION && choice != JOptionPane.NO_OPTION)
+                    return;
+                resume = choice == JOptionPane.YES_OPTION;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        final boolean resumeImport = resume;
+
+        JProgressBar progressBar = new JProgressBar(0, 1000);
+        JLabel progressLabel = new JLabel("Import en cours…");
+        JButton cancelButton = new JButton("Annuler");
+        JDialog dialog = progressDialog("Import dans " + collectionName, progressLabel, progressBar, cancelButton);
+
+        SwingWorker<DocumentImporter.Progress, DocumentImporter.Progress> worker = new SwingWorker<>() {
+            @Override
+            protected DocumentImporter.Progress doInBackground() throws Exception {
+                return actionHandler.handleImport(collectionName, file.toPath(), format, resumeImport, this::publish);
+            }
+
+            @Override
+            protected void process(List<DocumentImporter.Progress> chunks) {
+                DocumentImporter.Progress progress = chunks.get(chunks.size() - 1);
+                if (progress.getTotalBytes() > 0) {
+                    progressBar.setValue((int) (progress.getBytesDone() * 1000 / progress.getTotalBytes()));
+                }
+                progressLabel.setText(progress.getDocumentsInserted() + " documents insérés — "
+                        + String.format("%.0f docs/s", progress.getDocumentsPerSecond())
+                        + (progress.getDocumentsFailed() > 0 ? " — " + progress.getDocumentsFailed() + " échec(s)" : ""));
+            }
+
+            @Override
+            protected void done() {
+                dialog.dispose();
+                reloadIfStillSelected(collectionName);
+                if (isCancelled()) {
+                    JOptionPane.showMessageDialog(
+                            SwingDemo.this,
+                            "Import annulé. Relancer l'import du même fichier pour le reprendre.",
+                            "Information",
+                            JOptionPane.INFORMATION_MESSAGE);
+                    return;
+                }
+                try {
+                    DocumentImporter.Progress result = get();
+                    StringBuilder message = new StringBuilder()
+                            .append(result.getDocumentsInserted()).append(" document(s) inséré(s)")
+                            .append(String.format(" (%.0f docs/s)", result.getDocumentsPerSecond()));
+                    if (result.getDocumentsFailed() > 0) {
+                        message.append(", ").append(result.getDocumentsFailed()).append(" refusé(s)");
+                    }
+                    message.append('.');
+                    List<DocumentImporter.Failure> failures = result.getFailures();
+                    for (int i = 0; i < Math.min(5, failures.size()); i++) {
+                        DocumentImporter.Failure failure = failures.get(i);
+                        message.append("\n  octet ").append(failure.getOffset()).append(" : ").append(failure.getMessage());
+                    }
+                    if (failures.size() > 5) {
+                        message.append("\n  …");
+                    }
+                    if (!result.isComplete()) {
+                        message.append("\nImport incomplet : relancer l'import du même fichier pour le reprendre.");
+                    }
+                    boolean ok = result.isComplete() && result.getDocumentsFailed() == 0;
+                    JOptionPane.showMessageDialog(
+                            SwingDemo.this,
+                            message.toString(),
+                            ok ? "Succès" : "Import partiel",
+                            ok ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(
+                            SwingDemo.this,
+                            "Erreur lors de l'import des documents.",
+                            "Erreur",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+
+        cancelButton.addActionListener(e -> worker.cancel(true));
+        worker.execute();
+        dialog.setVisible(true);
+    }
+
+    /** Fenêtre de progression (non modale) : texte, barre et bouton d'annulation. */
+    private JDialog progressDialog(String title, JLabel label, JProgressBar progressBar, JButton cancelButton) {
+        JDialog dialog = new JDialog(this, title, false);
+        JPanel content = new JPanel(new BorderLayout(5, 5));
+        content.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        content.add(label, BorderLayout.NORTH);
+        content.add(progressBar, BorderLayout.CENTER);
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(cancelButton);
+        content.add(buttons, BorderLayout.SOUTH);
+        dialog.setContentPane(content);
+        dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        dialog.pack();
+        dialog.setSize(Math.max(dialog.getWidth(), 420), dialog.getHeight());
+        dialog.setLocationRelativeTo(this);
+        return dialog;
+    }
+
+    /** Filtre saisi, sous forme de requête typée (null : aucun filtre). Le tri est ignoré. */
+    private static DocumentQuery buildExportQuery(String field, String value) {
+        if (field.isEmpty() || value.isEmpty()) {
+            return null;
+        }
+        DocumentQuery.Filter filter = parseCondition(field, value);
+        return DocumentQuery.where(filter != null ? filter : DocumentQuery.Filter.eq(field, typedValue(value)));
+    }
+
     private boolean ensureCollectionSelected() {
         if (!databaseSelected) {
             JOptionPane.showMessageDialog(
@@ -578,16 +1380,17 @@ public class SwingDemo extends JFrame {
         int idCol = documentsTableModel.findColumn("_id");
         if (idCol < 0)
             return null;
-        Object value = documentsTableModel.getValueAt(row, idCol);
+        Object value = documentsTableModel.getValueAt(documentsTable.convertRowIndexToModel(row), idCol);
         return value != null ? value.toString() : null;
     }
 
     private Map<String, Object> getRowAsMap(int row) {
         Map<String, Object> map = new LinkedHashMap<>();
+        int modelRow = documentsTable.convertRowIndexToModel(row);
         int colCount = documentsTableModel.getColumnCount();
         for (int col = 0; col < colCount; col++) {
             String fieldName = documentsTableModel.getColumnName(col);
-            Object value = documentsTableModel.getValueAt(row, col);
+            Object value = documentsTableModel.getValueAt(modelRow, col);
             map.put(fieldName, value);
         }
         return map;
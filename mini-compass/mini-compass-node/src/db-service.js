@@ -6,7 +6,7 @@
 //   - le pilote officiel MongoDB (ObjectId, find, insertOne, etc.)
 // ----------------------------------------------------------------------------
 
-const { ObjectId } = require("mongodb");
+const { ObjectId, Long } = require("mongodb");
 const { getDb } = require("./db");
 
 /**
@@ -22,6 +22,194 @@ async function listCollections(dbName = null) {
   return collections.map((c) => c.name);
 }
 
+/**
+ * Construit une projection MongoDB à partir des listes reçues dans la query string.
+ *
+ *  - fields  : champs à inclure (["name", "age"] → { name: 1, age: 1 }, _id inclus par défaut)
+ *  - exclude : champs à exclure (["photo"] → { photo: 0 })
+ *
+ * Retourne null si aucune liste n'est fournie.
+ * Lève une erreur si les deux listes sont fournies ou si un nom de champ est invalide.
+ */
+function buildProjection(fields = [], exclude = []) {
+  if (fields.length > 0 && exclude.length > 0) {
+    throw new Error("Utiliser 'fields' ou 'exclude', pas les deux");
+  }
+  const names = fields.length > 0 ? fields : exclude;
+  if (names.length === 0) {
+    return null;
+  }
+
+  const projection = {};
+  for (const name of names) {
+    if (name.startsWith("$")) {
+      throw new Error(`Nom de champ invalide : ${name}`);
+    }
+    projection[name] = fields.length > 0 ? 1 : 0;
+  }
+  return projection;
+}
+
+// Opérateurs acceptés dans un filtre reçu du client (?q=...)
+const FIELD_OPERATORS = new Set(["$eq", "$ne", "$gt", "$gte", "$lt", "$lte", "$in"]);
+const LOGICAL_OPERATORS = new Set(["$and", "$or"]);
+
+/**
+ * Construit un filtre MongoDB à partir du JSON reçu dans ?q=... (voir DocumentQuery côté Java).
+ *
+ * Exemple : {"$and":[{"program":{"$eq":"Tech Info"}},{"age":{"$gte":18}}]}
+ *
+ * Seuls $and / $or et les opérateurs de FIELD_OPERATORS sont acceptés (pas de $where,
+ * $expr, $regex...). Les chaînes au format ObjectId comparées à _id sont converties.
+ *
+ * Retourne null si q est absent. Lève une erreur si le filtre est invalide.
+ */
+function buildFilter(q) {
+  if (q === null || q === undefined || q === "") {
+    return null;
+  }
+  let parsed;
+  try {
+    parsed = JSON.parse(q);
+  } catch (err) {
+    throw new Error("Paramètre 'q' : JSON invalide");
+  }
+  return translateFilter(parsed);
+}
+
+function translateFilter(node) {
+  if (node === null || typeof node !== "object" || Array.isArray(node)) {
+    throw new Error("Paramètre 'q' : objet attendu");
+  }
+
+  const filter = {};
+  for (const [key, value] of Object.entries(node)) {
+    if (LOGICAL_OPERATORS.has(key)) {
+      if (!Array.isArray(value) || value.length === 0) {
+        throw new Error(`Paramètre 'q' : ${key} attend une liste non vide`);
+      }
+      filter[key] = value.map(translateFilter);
+    } else if (key.startsWith("$")) {
+      throw new Error(`Paramètre 'q' : opérateur non autorisé ${key}`);
+    } else {
+      filter[key] = translateCondition(key, value);
+    }
+  }
+  return filter;
+}
+
+function translateCondition(field, condition) {
+  // Valeur simple : égalité
+  if (condition === null || typeof condition !== "object" || Array.isArray(condition)) {
+    return translateValue(field, condition);
+  }
+
+  const result = {};
+  for (const [op, value] of Object.entries(condition)) {
+    if (!FIELD_OPERATORS.has(op)) {
+      throw new Error(`Paramètre 'q' : opérateur non autorisé ${op}`);
+    }
+    if (op === "$in") {
+      if (!Array.isArray(value)) {
+        throw new Error("Paramètre 'q' : $in attend une liste");
+      }
+      result[op] = value.map((v) => translateValue(field, v));
+    } else {
+      result[op] = translateValue(field, value);
+    }
+  }
+  return result;
+}
+
+function translateValue(field, value) {
+  if (value !== null && typeof value === "object") {
+    throw new Error(`Paramètre 'q' : valeur invalide pour ${field}`);
+  }
+  if (field === "_id" && typeof value === "string" && ObjectId.isValid(value)) {
+    return new ObjectId(value);
+  }
+  return value;
+}
+
+/**
+ * Construit un tri MongoDB à partir de la liste reçue dans ?sort=... :
+ * ["-age", "name"] → { age: -1, name: 1 }.
+ *
+ * Retourne null si la liste est vide.
+ */
+function buildSort(keys = []) {
+  if (keys.length === 0) {
+    return null;
+  }
+  const sort = {};
+  for (const key of keys) {
+    const descending = key.startsWith("-");
+    const name = descending ? key.substring(1) : key;
+    if (name === "" || name.startsWith("$")) {
+      throw new Error(`Nom de champ invalide : ${key}`);
+    }
+    sort[name] = descending ? -1 : 1;
+  }
+  return sort;
+}
+
+/**
+ * Convertit le _id reçu dans ?afterId=... ou ?beforeId=... (toujours du texte) :
+ *  - idType "number" : _id numérique (MongoDB ne compare pas un texte à un nombre :
+ *    "5" laissé en texte ne retiendrait aucun document) ;
+ *  - idType absent   : ObjectId si la valeur en a le format, texte sinon.
+ *
+ * Retourne null si id est null.
+ */
+function buildKeysetId(id, idType = null) {
+  if (id === null) {
+    return null;
+  }
+  if (idType === null) {
+    return toDocumentId(id);
+  }
+  if (idType !== "number") {
+    throw new Error(`idType invalide : ${idType}`);
+  }
+  const n = Number(id);
+  if (id.trim() === "" || !Number.isFinite(n)) {
+    throw new Error(`_id numérique invalide : ${id}`);
+  }
+  // Entier au-delà de 2^53 : Long, pour ne pas perdre de précision
+  if (!Number.isSafeInteger(n) && /^-?\d+$/.test(id) && Math.abs(n) < 2 ** 63) {
+    return Long.fromString(id);
+  }
+  return n;
+}
+
+/**
+ * Filtre commun à getDocuments et countDocuments :
+ * champ = valeur (valeur convertie en nombre ou booléen) et/ou filtre riche (voir buildFilter).
+ */
+function buildMatch(searchField = null, searchValue = null, filter = null) {
+  let query = {};
+
+  // TODO ÉTUDIANT 1 :
+  // Si searchField ET searchValue sont fournis, filtrer les documents
+  if (searchField && searchValue !== null && searchValue !== undefined) {
+    let filtreValue = searchValue;
+    // Convertir en nombre ou booléen
+    if (!isNaN(searchValue)) {
+      filtreValue = Number(searchValue);
+    } else if (searchValue === "true" || searchValue === "false") {
+      filtreValue = searchValue === "true";
+    }
+
+    query[searchField] = filtreValue;
+  }
+
+  // Filtre riche (?q=...) : appliqué par MongoDB, qui peut utiliser ses index
+  if (filter) {
+    query = Object.keys(query).length > 0 ? { $and: [query, filter] } : filter;
+  }
+  return query;
+}
+
 /**
  * Retourne les documents d'une collection.
  *
@@ -31,6 +219,12 @@ async function listCollections(dbName = null) {
  *  - searchField  : filtrage simple sur un champ (ex: "name")
  *  - searchValue  : valeur à rechercher pour ce champ (ex: "Alice")
  *  - skip         : pagination (nombre de documents à ignorer)
+ *  - projection   : champs renvoyés, ex: { name: 1, age: 1 } ou { photo: 0 } (voir buildProjection)
+ *  - filter       : filtre MongoDB déjà validé (voir buildFilter), combiné avec searchField
+ *  - sort         : tri, ex: { age: -1 } (voir buildSort)
+ *  - hint         : nom de l'index à utiliser
+ *  - afterId      : pagination par clé, documents dont _id > afterId, triés par _id (voir buildKeysetId)
+ *  - beforeId     : pagination par clé, documents dont _id < beforeId (les derniers avant lui), triés par _id
  */
 async function getDocuments(collectionName, options = {}) {
   const {
@@ -39,27 +233,44 @@ async function getDocuments(collectionName, options = {}) {
     searchField = null,
     searchValue = null,
     skip = 0,
+    projection = null,
+    filter = null,
+    sort = null,
+    hint = null,
+    afterId = null,
+    beforeId = null,
   } = options;
 
   const db = getDb(databaseName);
 
-  let query = {};
+  const match = buildMatch(searchField, searchValue, filter);
+  let query = match;
+  let order = sort;
+
+  // Pagination par clé : plage sur _id (index toujours présent) au lieu de skip,
+  // qui oblige MongoDB à parcourir tous les documents ignorés.
+  // beforeId : page précédente, lue en ordre décroissant puis remise dans l'ordre.
+  if (afterId !== null || beforeId !== null) {
+    const range = afterId !== null
+      ? { _id: { $gt: afterId } }
+      : { _id: { $lt: beforeId } };
+    query = Object.keys(query).length > 0 ? { $and: [query, range] } : range;
+    order = { _id: afterId !== null ? 1 : -1 };
+  }
 
-  // TODO ÉTUDIANT 1 :
-  // Si searchField ET searchValue sont fournis, filtrer les documents
-  if (searchField && searchValue !== null && searchValue !== undefined) {
-    let filtreValue = searchValue;
-    // Convertir en nombre ou booléen
-    if (!isNaN(searchValue)) {
-      filtreValue = Number(searchValue);
-    } else if (searchValue === "true" || searchValue === "false") {
-      filtreValue = searchValue === "true";
-    }
+  let cursor = db.collection(collectionName).find(query);
 
-    query[searchField] = filtreValue;
+  if (order) {
+    cursor = cursor.sort(order);
+  }
+  if (hint) {
+    cursor = cursor.hint(hint);
   }
 
-  let cursor = db.collection(collectionName).find(query);
+  // Projection : seuls les champs demandés sont lus et envoyés
+  if (projection) {
+    cursor = cursor.project(projection);
+  }
 
   // TODO ÉTUDIANT 2 :
   // Utiliser "skip" pour ignorer un certain  nombre de documents
@@ -69,9 +280,55 @@ async function getDocuments(collectionName, options = {}) {
 }
 
   const docs = await cursor.limit(limit).toArray();
+  if (beforeId !== null && afterId === null) {
+    docs.reverse();
+  }
+
+  // Dernière page d'un parcours par clé : $gt ne compare que des _id du même type.
+  // Des _id d'un type classé après (ex. des textes après des nombres) ne seront jamais atteints :
+  // erreur plutôt qu'un parcours qui semble terminé.
+  if (afterId !== null && docs.length < limit) {
+    const boundary = { _id: { $type: laterIdTypes(afterId) } };
+    const unreachable = await db.collection(collectionName).findOne(
+      Object.keys(match).length > 0 ? { $and: [match, boundary] } : boundary,
+      { projection: { _id: 1 } }
+    );
+    if (unreachable) {
+      const err = new Error(
+        `Pagination par clé incomplète : des documents ont un _id d'un autre type que '${afterId}' ` +
+        `et ne peuvent pas être atteints par 'afterId'`
+      );
+      err.keysetTypeBoundary = true;
+      throw err;
+    }
+  }
   return docs;
 }
 
+/**
+ * Types BSON que MongoDB classe après celui de id (ordre de comparaison de _id) :
+ * nombres < textes < objets < tableaux < binaires < ObjectId < booléens < dates < ...
+ */
+function laterIdTypes(id) {
+  const afterObjectId = ["bool", "date", "timestamp", "regex"];
+  if (id instanceof ObjectId) {
+    return afterObjectId;
+  }
+  const afterString = ["object", "array", "binData", "objectId", ...afterObjectId];
+  if (typeof id === "string") {
+    return afterString;
+  }
+  return ["string", "symbol", ...afterString];
+}
+
+/**
+ * Vrai si err est le refus par MongoDB d'un hint qui ne correspond à aucun index
+ * (erreur du client : 400, et non 500).
+ */
+function isBadHintError(err) {
+  return Boolean(err) && err.code === 2 && /hint/i.test(err.message || "");
+}
+
 /**
  * Trouve UN document qui correspond au filtre donné.
  *    
@@ -164,6 +421,113 @@ async function hasDuplicate(collectionName, fieldName, value, dbName = null) {
   return count;
 }
 
+/**
+ * Compte les documents d'une collection (mêmes options de filtre que getDocuments).
+ *
+ * Sans filtre : estimatedDocumentCount, lu dans les métadonnées de la collection
+ * (instantané, mais approximatif juste après une écriture ou un arrêt brutal).
+ * Avec filtre : countDocuments, exact, qui utilise les index du filtre.
+ *
+ * @returns {Promise<{count: number, estimated: boolean}>}
+ */
+async function countDocuments(collectionName, options = {}) {
+  const { databaseName = null, searchField = null, searchValue = null, filter = null } = options;
+
+  const collection = getDb(databaseName).collection(collectionName);
+  const query = buildMatch(searchField, searchValue, filter);
+
+  if (Object.keys(query).length === 0) {
+    return { count: await collection.estimatedDocumentCount(), estimated: true };
+  }
+  return { count: await collection.countDocuments(query), estimated: false };
+}
+
+// Opérations transmises par watchDocuments ; les autres (drop, rename...) invalident la vue
+const WATCHED_OPERATIONS = ["insert", "update", "replace", "delete", "drop", "rename", "dropDatabase", "invalidate"];
+
+/**
+ * Suit les modifications d'une collection (change stream MongoDB : replica set requis).
+ *
+ * Mêmes options de filtre que getDocuments, plus projection et resumeAfter (jeton de reprise).
+ * Avec un filtre ou une projection, chaque document modifié est relu par son _id avec le
+ * filtre et la projection de la vue : un document qui ne correspond plus au filtre est
+ * transmis comme supprimé, un document inséré qui n'y correspond pas est ignoré.
+ * Sans eux, le document complet vient du change stream (fullDocument: "updateLookup").
+ *
+ * Retourne { changes, close } : changes s'itère avec for await et donne, dans l'ordre,
+ * { token, event } avec event = { op: "insert" | "update" | "delete", id, document? } ou { op: "reset" }.
+ */
+function watchDocuments(collectionName, options = {}) {
+  const {
+    databaseName = null,
+    searchField = null,
+    searchValue = null,
+    filter = null,
+    projection = null,
+    resumeAfter = null,
+  } = options;
+
+  const collection = getDb(databaseName).collection(collectionName);
+  const match = buildMatch(searchField, searchValue, filter);
+  const filtered = Object.keys(match).length > 0;
+  const lookup = filtered || projection !== null;
+
+  const watchOptions = { fullDocument: lookup ? "default" : "updateLookup" };
+  if (resumeAfter) {
+    watchOptions.resumeAfter = resumeAfter;
+  }
+  const stream = collection.watch(
+    [{ $match: { operationType: { $in: WATCHED_OPERATIONS } } }],
+    watchOptions
+  );
+
+  async function toChangeEvent(change) {
+    const op = change.operationType;
+    if (op === "delete") {
+      return { op: "delete", id: String(change.documentKey._id) };
+    }
+    if (op !== "insert" && op !== "update" && op !== "replace") {
+      return { op: "reset" };
+    }
+
+    const _id = change.documentKey._id;
+    let document = change.fullDocument || null;
+    if (lookup) {
+      document = await collection.findOne(
+        filtered ? { $and: [{ _id }, match] } : { _id },
+        projection ? { projection } : {}
+      );
+    }
+    if (!document) {
+      // Hors du filtre (ou déjà supprimé) : absent de la vue
+      return op === "insert" ? null : { op: "delete", id: String(_id) };
+    }
+    return { op: op === "insert" ? "insert" : "update", id: String(_id), document };
+  }
+
+  async function* changes() {
+    // tryNext ouvre le flux sans attendre de modification. L'événement "ready" qui suit indique
+    // au client que toute modification ultérieure lui sera transmise : il peut lire les documents.
+    const first = await stream.tryNext();
+    if (first) {
+      const event = await toChangeEvent(first);
+      if (event) {
+        yield { token: first._id, event };
+      }
+    }
+    yield { token: stream.resumeToken, event: { op: "ready" } };
+
+    for await (const change of stream) {
+      const event = await toChangeEvent(change);
+      if (event) {
+        yield { token: change._id, event };
+      }
+    }
+  }
+
+  return { changes: changes(), close: () => stream.close() };
+}
+
 /**
  * Insère un document dans une collection.
  *
@@ -278,17 +642,179 @@ async function updateDocument(collectionName, id, partialDoc, dbName = null) {
     }
 }
 
+/**
+ * Convertit un id reçu en chaîne vers la valeur stockée dans _id
+ * (ObjectId si le format est valide, sinon la chaîne telle quelle).
+ */
+function toDocumentId(id) {
+  return ObjectId.isValid(id) ? new ObjectId(id) : id;
+}
+
+/**
+ * Insère plusieurs documents en une seule requête (insertMany non ordonné).
+ *
+ * Un document invalide n'empêche pas l'insertion des autres.
+ *
+ * @param {string} collectionName
+ * @param {object[]} docs
+ * @param {string|null} dbName
+ * @returns {Promise<object[]>} un résultat par document : { index, success, id?, error? }
+ */
+async function insertDocuments(collectionName, docs, dbName = null) {
+  const db = getDb(dbName);
+
+  const results = docs.map((doc, index) => {
+    if (typeof doc !== "object" || doc === null || Array.isArray(doc) || Object.keys(doc).length === 0) {
+      return { index, success: false, error: "Document invalide" };
+    }
+    return { index, success: true };
+  });
+
+  const validIndexes = results.filter((r) => r.success).map((r) => r.index);
+  if (validIndexes.length === 0) {
+    return results;
+  }
+
+  // _id reçu en texte (export NDJSON/CSV) : rendu en ObjectId, comme à l'origine.
+  // Un paquet importé deux fois échoue alors en doublons au lieu de dupliquer les documents.
+  const toInsert = validIndexes.map((i) => {
+    const doc = docs[i];
+    return typeof doc._id === "string" ? { ...doc, _id: toDocumentId(doc._id) } : doc;
+  });
+  let insertedIds = {};
+  try {
+    const res = await db.collection(collectionName).insertMany(toInsert, { ordered: false });
+    insertedIds = res.insertedIds;
+  } catch (err) {
+    // MongoBulkWriteError : certains documents ont été insérés, d'autres non
+    if (!err.writeErrors) {
+      throw err;
+    }
+    insertedIds = (err.result && err.result.insertedIds) || {};
+    const writeErrors = Array.isArray(err.writeErrors) ? err.writeErrors : [err.writeErrors];
+    for (const we of writeErrors) {
+      const r = results[validIndexes[we.index]];
+      r.success = false;
+      r.error = we.errmsg || "Erreur d'insertion";
+    }
+  }
+
+  validIndexes.forEach((docIndex, i) => {
+    const r = results[docIndex];
+    if (r.success && insertedIds[i] !== undefined) {
+      r.id = String(insertedIds[i]);
+    }
+  });
+
+  return results;
+}
+
+/**
+ * Met à jour partiellement plusieurs documents ($set) en une seule requête.
+ *
+ * @param {string} collectionName
+ * @param {{id: string, fields: object}[]} updates
+ * @param {string|null} dbName
+ * @returns {Promise<object[]>} un résultat par mise à jour : { index, id, success, error? }
+ */
+async function updateDocuments(collectionName, updates, dbName = null) {
+  const db = getDb(dbName);
+  const collection = db.collection(collectionName);
+
+  const ids = updates.map((u) => toDocumentId(u && u.id));
+  const existing = await collection
+    .find({ _id: { $in: ids } }, { projection: { _id: 1 } })
+    .toArray();
+  const existingIds = new Set(existing.map((d) => String(d._id)));
+
+  const results = [];
+  const operations = [];
+  const operationIndexes = []; // operations[i] concerne updates[operationIndexes[i]]
+  updates.forEach((u, index) => {
+    const id = u && u.id;
+    const fields = u && u.fields;
+    if (!existingIds.has(String(id))) {
+      results.push({ index, id, success: false, error: "Le document n'existe pas" });
+    } else if (typeof fields !== "object" || fields === null || Object.keys(fields).length === 0
+        || Object.prototype.hasOwnProperty.call(fields, "_id")) {
+      results.push({ index, id, success: false, error: "Modification non effectuée" });
+    } else {
+      results.push({ index, id, success: true });
+      operations.push({ updateOne: { filter: { _id: ids[index] }, update: { $set: fields } } });
+      operationIndexes.push(index);
+    }
+  });
+
+  if (operations.length === 0) {
+    return results;
+  }
+  try {
+    await collection.bulkWrite(operations, { ordered: false });
+  } catch (err) {
+    // MongoBulkWriteError : certaines mises à jour ont été appliquées, d'autres non
+    if (!err.writeErrors) {
+      throw err;
+    }
+    const writeErrors = Array.isArray(err.writeErrors) ? err.writeErrors : [err.writeErrors];
+    for (const we of writeErrors) {
+      const r = results[operationIndexes[we.index]];
+      r.success = false;
+      r.error = we.errmsg || "Modification non effectuée";
+    }
+  }
+  return results;
+}
+
+/**
+ * Supprime plusieurs documents par _id en une seule requête.
+ *
+ * @param {string} collectionName
+ * @param {string[]} ids
+ * @param {string|null} dbName
+ * @returns {Promise<object[]>} un résultat par id : { index, id, success, error? }
+ */
+async function deleteDocuments(collectionName, ids, dbName = null) {
+  const db = getDb(dbName);
+  const collection = db.collection(collectionName);
+
+  const docIds = ids.map(toDocumentId);
+  const existing = await collection
+    .find({ _id: { $in: docIds } }, { projection: { _id: 1 } })
+    .toArray();
+  const existingIds = new Set(existing.map((d) => String(d._id)));
+
+  if (existing.length > 0) {
+    await collection.deleteMany({ _id: { $in: existing.map((d) => d._id) } });
+  }
+
+  return ids.map((id, index) =>
+    existingIds.has(String(id))
+      ? { index, id, success: true }
+      : { index, id, success: false, error: "Le document n'existe pas" }
+  );
+}
+
 // BONUS (optionnel) : joinDocuments pourrait être ajouté ici plus tard
 // pour des opérations plus avancées (agrégations, $lookup, etc.)
 
 module.exports = {
   listCollections,
+  buildProjection,
+  buildFilter,
+  buildSort,
+  buildKeysetId,
   getDocuments,
+  isBadHintError,
   findDocument,
   hasDocument,
   hasDuplicate,
+  countDocuments,
+  watchDocuments,
   insertDocument,
   deleteDocument,
   replaceDocument,
   updateDocument,
+  insertDocuments,
+  updateDocuments,
+  deleteDocuments,
 };
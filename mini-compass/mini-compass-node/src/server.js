@@ -7,6 +7,7 @@ const {
   getRouteParam,
   getQueryNumber,
   getQueryString,
+  getQueryList,
   sendOk,
   sendCreated,
   sendError,
@@ -15,14 +16,24 @@ const {
 
 const {
   listCollections,
+  buildProjection,
+  buildFilter,
+  buildSort,
+  buildKeysetId,
   getDocuments,
+  isBadHintError,
   findDocument,
   hasDocument,
   hasDuplicate,
+  countDocuments,
+  watchDocuments,
   insertDocument,
   deleteDocument,
   replaceDocument,
   updateDocument,
+  insertDocuments,
+  updateDocuments,
+  deleteDocuments,
 } = require("./db-service");
 
 
@@ -31,9 +42,12 @@ const {
 // ----------------------------------------------------------------------------
 const app = express();
 const PORT = 3000;
+// Intervalle des commentaires envoyés sur /changes : garde la connexion ouverte à travers les proxys
+const CHANGES_HEARTBEAT_MS = 15000;
 
 app.use(cors());
-app.use(bodyParser.json());
+// Les requêtes groupées (bulk) peuvent dépasser la limite par défaut de 100 ko
+app.use(bodyParser.json({ limit: "16mb" }));
 
 // ----------------------------------------------------------------------------
 // ROUTES API
@@ -64,6 +78,11 @@ app.get(
 /**
  * GET /collections/:name/documents
  * → Retourne les documents d’une collection
+ *
+ * Projection optionnelle : ?fields=name,age (champs inclus) ou ?exclude=photo (champs exclus)
+ * Filtre, tri et index optionnels : ?q={"age":{"$gte":18}}&sort=-age,name&hint=age_1
+ * Pagination par clé (au lieu de skip) : ?afterId=<_id du dernier document reçu> ou ?beforeId=<_id du premier>,
+ * avec ?idType=number si ce _id est un nombre
  */
 app.get(
   "/collections/:name/documents",
@@ -76,18 +95,156 @@ app.get(
     const field = getQueryString(req, "field", null);
     const value = getQueryString(req, "value", null);
 
-    const docs = await getDocuments(collectionName, {
-      databaseName: dbName,
-      limit,
-      skip,
-      searchField: field,
-      searchValue: value,
-    });
+    const hint = getQueryString(req, "hint", null);
+    const idType = getQueryString(req, "idType", null);
+
+    let projection;
+    let filter;
+    let sort;
+    let afterId;
+    let beforeId;
+    try {
+      projection = buildProjection(getQueryList(req, "fields"), getQueryList(req, "exclude"));
+      filter = buildFilter(getQueryString(req, "q", null));
+      sort = buildSort(getQueryList(req, "sort"));
+      afterId = buildKeysetId(getQueryString(req, "afterId", null), idType);
+      beforeId = buildKeysetId(getQueryString(req, "beforeId", null), idType);
+    } catch (err) {
+      return sendError(res, 400, err.message);
+    }
+
+    // Pagination par clé : l'ordre est toujours celui de _id
+    if (afterId !== null || beforeId !== null) {
+      if (afterId !== null && beforeId !== null) {
+        return sendError(res, 400, "Utiliser 'afterId' ou 'beforeId', pas les deux");
+      }
+      if (sort && (Object.keys(sort).length !== 1 || sort._id !== 1)) {
+        return sendError(res, 400, "'afterId' et 'beforeId' imposent le tri par _id");
+      }
+    }
+
+    let docs;
+    try {
+      docs = await getDocuments(collectionName, {
+        databaseName: dbName,
+        limit,
+        skip,
+        searchField: field,
+        searchValue: value,
+        projection,
+        filter,
+        sort,
+        hint,
+        afterId,
+        beforeId,
+      });
+    } catch (err) {
+      if (hint && isBadHintError(err)) {
+        return sendError(res, 400, `Index '${hint}' introuvable`);
+      }
+      if (err.keysetTypeBoundary) {
+        return sendError(res, 409, err.message);
+      }
+      throw err;
+    }
 
     sendOk(res, { documents: docs });
   })
 );
 
+/**
+ * GET /collections/:name/changes
+ * → Modifications de la collection en direct (Server-Sent Events)
+ *
+ * Mêmes filtres et projection que /documents (field/value, q, fields/exclude).
+ * Un premier événement "ready" est envoyé dès que le flux est ouvert : les documents lus
+ * après lui ne peuvent plus manquer une modification.
+ * Chaque modification est un événement "change" : data = { op, id, document? },
+ * id = jeton de reprise. Un client qui se reconnecte avec l'en-tête Last-Event-ID
+ * reprend après le dernier événement reçu.
+ * Sans replica set (change streams indisponibles) : un événement "error", puis fin du flux.
+ */
+app.get("/collections/:name/changes", (req, res) => {
+  const collectionName = getRouteParam(req, "name");
+  const dbName = getQueryString(req, "db", null);
+  const field = getQueryString(req, "field", null);
+  const value = getQueryString(req, "value", null);
+
+  let projection;
+  let filter;
+  let resumeAfter = null;
+  try {
+    projection = buildProjection(getQueryList(req, "fields"), getQueryList(req, "exclude"));
+    filter = buildFilter(getQueryString(req, "q", null));
+  } catch (err) {
+    return sendError(res, 400, err.message);
+  }
+  const lastEventId = req.get("Last-Event-ID");
+  if (lastEventId) {
+    try {
+      resumeAfter = JSON.parse(lastEventId);
+    } catch (err) {
+      return sendError(res, 400, "En-tête Last-Event-ID invalide");
+    }
+  }
+
+  res.status(200).set({
+    "Content-Type": "text/event-stream; charset=utf-8",
+    "Cache-Control": "no-cache",
+    Connection: "keep-alive",
+    "X-Accel-Buffering": "no",
+  });
+  res.flushHeaders();
+
+  const watch = watchDocuments(collectionName, {
+    databaseName: dbName,
+    searchField: field,
+    searchValue: value,
+    filter,
+    projection,
+    resumeAfter,
+  });
+  const heartbeat = setInterval(() => res.write(": ping\n\n"), CHANGES_HEARTBEAT_MS);
+
+  let closed = false;
+  const stop = () => {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    clearInterval(heartbeat);
+    watch.close().catch(() => {});
+    res.end();
+  };
+  req.on("close", stop);
+
+  (async () => {
+    for await (const { token, event } of watch.changes) {
+      const type = event.op === "ready" ? "ready" : "change";
+      res.write(`id: ${JSON.stringify(token)}\nevent: ${type}\ndata: ${JSON.stringify(event)}\n\n`);
+      if (event.op === "reset") {
+        break; // collection supprimée ou renommée : le client recharge la vue
+      }
+    }
+  })()
+    .catch((err) => {
+      if (closed) {
+        return;
+      }
+      console.error("Erreur flux de modifications:", err);
+      if (resumeAfter && err.code === 286) {
+        // ChangeStreamHistoryLost : le jeton est trop ancien, le client doit tout recharger
+        res.write(`event: change\ndata: ${JSON.stringify({ op: "reset" })}\n\n`);
+        return;
+      }
+      const message = err.code === 40573
+        ? "Le suivi en direct nécessite un replica set MongoDB"
+        : "Erreur du flux de modifications";
+      res.write(`event: error\ndata: ${JSON.stringify({ error: message })}\n\n`);
+    })
+    .finally(stop);
+});
+
 /**
  * GET /collections/:name/documents/find?field=f&value=v&db=...
  * → Retourne un document correspondant
@@ -152,6 +309,37 @@ app.get(
   })
 );
 
+/**
+ * GET /collections/:name/count?field=f&value=v&q=...&db=...
+ * → Nombre de documents (mêmes filtres que GET /documents), ex: { count: 1200, estimated: true }
+ * Sans filtre, le nombre est une estimation rapide (métadonnées de la collection).
+ */
+app.get(
+  "/collections/:name/count",
+  asyncHandler(async (req, res) => {
+    const collectionName = getRouteParam(req, "name");
+
+    const dbName = getQueryString(req, "db", null);
+    const field = getQueryString(req, "field", null);
+    const value = getQueryString(req, "value", null);
+
+    let filter;
+    try {
+      filter = buildFilter(getQueryString(req, "q", null));
+    } catch (err) {
+      return sendError(res, 400, err.message);
+    }
+
+    const result = await countDocuments(collectionName, {
+      databaseName: dbName,
+      searchField: field,
+      searchValue: value,
+      filter,
+    });
+    sendOk(res, result);
+  })
+);
+
 /**
  * POST /collections/:name/documents
  * → Insertion d’un document
@@ -172,6 +360,71 @@ app.post(
   })
 );
 
+/**
+ * POST /collections/:name/documents/bulk
+ * Body : { documents: [ {...}, {...} ] }
+ * → Insertion groupée, un résultat par document
+ */
+app.post(
+  "/collections/:name/documents/bulk",
+  asyncHandler(async (req, res) => {
+    const collectionName = getRouteParam(req, "name");
+    const dbName = getQueryString(req, "db", null);
+    const documents = req.body && req.body.documents;
+
+    if (!Array.isArray(documents)) {
+      return sendError(res, 400, "Tableau 'documents' requis");
+    }
+
+    const results = await insertDocuments(collectionName, documents, dbName);
+    sendOk(res, { results });
+  })
+);
+
+/**
+ * PATCH /collections/:name/documents/bulk
+ * Body : { updates: [ { id: "...", fields: {...} } ] }
+ * → Mises à jour partielles groupées, un résultat par mise à jour
+ *
+ * (déclarée avant PATCH /collections/:name/documents/:id)
+ */
+app.patch(
+  "/collections/:name/documents/bulk",
+  asyncHandler(async (req, res) => {
+    const collectionName = getRouteParam(req, "name");
+    const dbName = getQueryString(req, "db", null);
+    const updates = req.body && req.body.updates;
+
+    if (!Array.isArray(updates)) {
+      return sendError(res, 400, "Tableau 'updates' requis");
+    }
+
+    const results = await updateDocuments(collectionName, updates, dbName);
+    sendOk(res, { results });
+  })
+);
+
+/**
+ * POST /collections/:name/documents/bulk-delete
+ * Body : { ids: [ "...", "..." ] }
+ * → Suppressions groupées, un résultat par id
+ */
+app.post(
+  "/collections/:name/documents/bulk-delete",
+  asyncHandler(async (req, res) => {
+    const collectionName = getRouteParam(req, "name");
+    const dbName = getQueryString(req, "db", null);
+    const ids = req.body && req.body.ids;
+
+    if (!Array.isArray(ids)) {
+      return sendError(res, 400, "Tableau 'ids' requis");
+    }
+
+    const results = await deleteDocuments(collectionName, ids, dbName);
+    sendOk(res, { results });
+  })
+);
+
 /**
  * DELETE /collections/:name/documents/:id
  */
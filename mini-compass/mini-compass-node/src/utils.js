@@ -1,3 +1,5 @@
+const zlib = require("zlib");
+
 /**
  * Récupère un paramètre de route (ex: /collections/:name).
  */
@@ -35,11 +37,77 @@ function getQueryNumber(req, name, defaultValue = undefined) {
   return n;
 }
 
+/**
+ * Récupère un paramètre de query string sous forme de liste (valeurs séparées par des virgules).
+ * Exemple: GET /collections/users/documents?fields=name,age → ["name", "age"]
+ * Retourne un tableau vide si absent.
+ */
+function getQueryList(req, name) {
+  const value = getQueryString(req, name, undefined);
+  if (value === undefined) {
+    return [];
+  }
+  return value
+    .split(",")
+    .map((item) => item.trim())
+    .filter((item) => item.length > 0);
+}
+
+// Taille (octets) à partir de laquelle une réponse JSON est compressée :
+// en dessous, l'en-tête et le temps de compression coûtent plus que le gain.
+const COMPRESSION_THRESHOLD = Number(process.env.COMPRESSION_THRESHOLD || 1024);
+
+/**
+ * Encodage à utiliser d'après l'en-tête Accept-Encoding du client :
+ * "gzip", "deflate" ou null (réponse non compressée). Les encodages en q=0 sont refusés.
+ */
+function acceptedEncoding(req) {
+  const header = (req && req.headers["accept-encoding"]) || "";
+  const accepted = header
+    .split(",")
+    .map((part) => part.trim().split(";"))
+    .filter(([, q]) => !q || !/^q=0(\.0*)?$/.test(q.trim()))
+    .map(([name]) => name.trim().toLowerCase());
+
+  if (accepted.includes("gzip")) {
+    return "gzip";
+  }
+  if (accepted.includes("deflate")) {
+    return "deflate";
+  }
+  return null;
+}
+
 /**
  * Envoie une réponse JSON avec un statut donné.
+ *
+ * Au-delà de COMPRESSION_THRESHOLD octets, la réponse est compressée (gzip ou deflate)
+ * si le client l'accepte. La compression se fait hors de la boucle d'événements
+ * (zlib asynchrone) au niveau le plus rapide : sur du JSON très répétitif, le gain
+ * de taille est presque celui du niveau par défaut, pour une fraction du temps.
  */
 function sendJson(res, statusCode, payload) {
-  res.status(statusCode).json(payload);
+  const body = JSON.stringify(payload);
+  const encoding = acceptedEncoding(res.req);
+
+  res.status(statusCode).type("application/json");
+  res.vary("Accept-Encoding");
+
+  if (!encoding || Buffer.byteLength(body) < COMPRESSION_THRESHOLD) {
+    res.send(body);
+    return;
+  }
+
+  const compress = encoding === "gzip" ? zlib.gzip : zlib.deflate;
+  compress(body, { level: zlib.constants.Z_BEST_SPEED }, (err, compressed) => {
+    if (err) {
+      console.error("Erreur de compression:", err);
+      res.send(body);
+      return;
+    }
+    res.set("Content-Encoding", encoding);
+    res.send(compressed);
+  });
 }
 
 /**
@@ -94,6 +162,7 @@ module.exports = {
   getRouteParam,
   getQueryString,
   getQueryNumber,
+  getQueryList,
   sendJson,
   sendOk,
   sendCreated,